@@ -1,23 +1,54 @@
 package com.cloudin.commons.langs;
 
+import com.cloudin.commons.langs.http.HttpMetricsSink;
+import com.cloudin.commons.langs.http.HttpResilience;
+import com.cloudin.commons.langs.http.HttpStatusException;
+import com.cloudin.commons.langs.http.MeteredConnectionManager;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
 import org.apache.http.client.entity.EntityBuilder;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,8 +58,17 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
@@ -37,6 +77,12 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * HTTP请求工具
@@ -66,6 +112,96 @@ public class HttpUtils {
 	
 	public static SSLConnectionSocketFactory sslConnectionSocketFactory;
 	
+	/**
+	 * 异步 HttpClient 使用的 ssl 处理策略，与 {@link #sslConnectionSocketFactory} 一致，不作任何验证处理
+	 */
+	public static SSLIOSessionStrategy sslIOSessionStrategy;
+	
+	/**
+	 * 异步 HttpClient 默认的最大并发请求数
+	 */
+	private static final int DEFAULT_ASYNC_MAX_TOTAL = 200;
+	
+	/**
+	 * 异步 HttpClient 默认的每个路由（目标主机）最大并发请求数
+	 */
+	private static final int DEFAULT_ASYNC_MAX_PER_ROUTE = 50;
+	
+	/**
+	 * 共享的异步 HttpClient，首次发送异步请求时按默认配置创建
+	 */
+	private static volatile CloseableHttpAsyncClient asyncHttpClient;
+	
+	/**
+	 * 流式读取响应内容时使用的缓冲区大小
+	 */
+	private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+	
+	/**
+	 * 请求结束时最多读取的剩余响应内容字节数。剩余内容更多时直接关闭连接，不再下载
+	 */
+	private static final int MAX_DRAIN_BYTES = 64 * 1024;
+	
+	/**
+	 * 共享连接池默认的连接保持时间：服务端未通过 Keep-Alive 响应头指定时使用，单位：毫秒
+	 */
+	private static final long DEFAULT_KEEP_ALIVE_MILLIS = 30 * 1000;
+	
+	/**
+	 * 共享连接池默认的最大空闲时间，空闲超过该时间的连接由后台线程关闭，单位：毫秒
+	 */
+	private static final long DEFAULT_MAX_IDLE_MILLIS = 60 * 1000;
+	
+	/**
+	 * 共享的连接池
+	 */
+	private static volatile PoolingHttpClientConnectionManager sharedConnectionManager;
+	
+	/**
+	 * 共享的 HttpClient，为 null 时每次请求新建 HttpClient
+	 */
+	private static volatile CloseableHttpClient sharedHttpClient;
+	
+	/**
+	 * 是否启用压缩：请求时发送 Accept-Encoding 并解压响应内容，请求内容超过阈值时以 gzip 压缩发送
+	 */
+	private static volatile boolean compressionEnabled = false;
+	
+	/**
+	 * 请求内容压缩阈值，请求内容长度大于等于该值时才压缩，单位：字节
+	 */
+	private static volatile long requestCompressionThreshold = 8 * 1024;
+	
+	/**
+	 * 压缩前的请求内容字节数
+	 */
+	private static final LongAdder requestBytes = new LongAdder();
+	
+	/**
+	 * 压缩后的请求内容字节数
+	 */
+	private static final LongAdder requestCompressedBytes = new LongAdder();
+	
+	/**
+	 * 解压后的响应内容字节数
+	 */
+	private static final LongAdder responseBytes = new LongAdder();
+	
+	/**
+	 * 解压前（网络传输）的响应内容字节数
+	 */
+	private static final LongAdder responseCompressedBytes = new LongAdder();
+	
+	/**
+	 * 同步请求的容错处理（重试、熔断、舱壁），为 null 时不做容错处理
+	 */
+	private static volatile HttpResilience resilience;
+	
+	/**
+	 * 请求指标接收方，为 null 时不记录
+	 */
+	private static volatile HttpMetricsSink metricsSink;
+	
 	static {
 		logger = LoggerFactory.getLogger(HttpUtils.class);
 		try {
@@ -74,6 +210,9 @@ public class HttpUtils {
 			sslConnectionSocketFactory = new SSLConnectionSocketFactory(sslcontext, new String[]{
 				"SSLv3", "TLSv1", "TLSv1.1", "TLSv1.2"
 			}, null, new SimpleTrustManager());
+			sslIOSessionStrategy = new SSLIOSessionStrategy(sslcontext, new String[]{
+				"SSLv3", "TLSv1", "TLSv1.1", "TLSv1.2"
+			}, null, new SimpleTrustManager());
 		} catch (NoSuchAlgorithmException e) {
 			logger.error("", e);
 		} catch (KeyManagementException e) {
@@ -125,28 +264,8 @@ public class HttpUtils {
 		URL requestUrl = new URL(url);
 		HttpGet httpGet = new HttpGet(url);
 		
-		CloseableHttpClient httpsClient = null;
-		try {
-			httpsClient = getHttpClient(connectionTimeout, socketTimeout);
-			CloseableHttpResponse response = httpsClient.execute(httpGet);
-			try {
-				StatusLine statusLine = response.getStatusLine();
-				if (statusLine.getStatusCode() == HttpStatus.SC_OK) {
-					HttpEntity entity = response.getEntity();
-					if (charset == null) {
-						return EntityUtils.toString(entity, DEFAULT_CHARSET);
-					} else {
-						return EntityUtils.toString(entity, charset);
-					}
-				} else {
-					throw new HttpException("请求失败： status=" + statusLine.toString());
-				}
-			} finally {
-				org.apache.http.client.utils.HttpClientUtils.closeQuietly(response);
-			}
-		} finally {
-			org.apache.http.client.utils.HttpClientUtils.closeQuietly(httpsClient);
-		}
+		final Charset responseCharset = charset == null ? DEFAULT_CHARSET : charset;
+		return execute(httpGet, connectionTimeout, socketTimeout, entity -> EntityUtils.toString(entity, responseCharset));
 	}
 	
 	/**
@@ -241,12 +360,23 @@ public class HttpUtils {
 	public static String postForm(String url, Map<String, String> formData, ContentType contentType,
 		Integer connectionTimeout, Integer socketTimeout) throws IOException, HttpException {
 		
+		return post(url, buildFormEntity(formData, contentType), contentType, connectionTimeout, socketTimeout);
+	}
+	
+	/**
+	 * 构建表单请求内容
+	 *
+	 * @param formData    表单数据
+	 * @param contentType http请求内容类型
+	 *
+	 * @return 请求内容
+	 */
+	private static HttpEntity buildFormEntity(Map<String, String> formData, ContentType contentType) {
 		List<NameValuePair> nameValuePairList = new ArrayList<>();
 		for (Map.Entry<String, String> item : formData.entrySet()) {
 			nameValuePairList.add(new BasicNameValuePair(item.getKey(), item.getValue()));
 		}
-		return post(url, EntityBuilder.create().setParameters(nameValuePairList).setContentType(contentType).build(), contentType,
-			connectionTimeout, socketTimeout);
+		return EntityBuilder.create().setParameters(nameValuePairList).setContentType(contentType).build();
 	}
 	
 	/**
@@ -288,70 +418,1111 @@ public class HttpUtils {
 		HttpPost httpPost = new HttpPost(url);
 		httpPost.setEntity(httpEntity);
 		
-		CloseableHttpClient httpsClient = getHttpClient(connectionTimeout, socketTimeout);
+		return execute(httpPost, connectionTimeout, socketTimeout,
+			entity -> EntityUtils.toString(entity, contentType.getCharset()));
+	}
+	
+	/**
+	 * 执行请求，响应状态为 200 时读取响应内容。<br>
+	 * 已初始化共享 HttpClient 时复用其连接池，否则为本次请求新建 HttpClient 并在结束后关闭。
+	 * 已设置容错处理时，按其重试、熔断和限制并发
+	 *
+	 * @param request           请求
+	 * @param connectionTimeout 链接建立超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 * @param reader            响应内容读取方式
+	 *
+	 * @return 读取结果
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
+	 */
+	private static <T> T execute(final HttpRequestBase request, Integer connectionTimeout, Integer socketTimeout,
+		final EntityReader<T> reader) throws IOException, HttpException {
+		CloseableHttpClient httpClient = sharedHttpClient;
+		boolean shared = httpClient != null;
+		if (shared) {
+			request.setConfig(buildRequestConfig(connectionTimeout, socketTimeout));
+		} else {
+			httpClient = getHttpClient(connectionTimeout, socketTimeout);
+		}
+		if (compressionEnabled) {
+			prepareCompression(request, true);
+		}
 		try {
-			CloseableHttpResponse response = httpsClient.execute(httpPost);
-			try {
-				StatusLine statusLine = response.getStatusLine();
-				if (statusLine.getStatusCode() == HttpStatus.SC_OK) {
-					HttpEntity entity = response.getEntity();
-					return EntityUtils.toString(entity, contentType.getCharset());
-				} else {
-					throw new HttpException("请求失败： status=" + statusLine.toString());
+			HttpResilience currentResilience = resilience;
+			if (currentResilience == null) {
+				return executeOnce(httpClient, request, reader);
+			}
+			final CloseableHttpClient client = httpClient;
+			// 流式读取时响应内容可能已部分交给调用方，不能按幂等请求重试
+			boolean idempotent = isIdempotent(request) && !(reader instanceof StreamEntityReader);
+			return currentResilience.execute(request.getURI().getAuthority(), idempotent,
+				() -> executeOnce(client, request, reader));
+		} finally {
+			if (!shared) {
+				org.apache.http.client.utils.HttpClientUtils.closeQuietly(httpClient);
+			}
+		}
+	}
+	
+	/**
+	 * 发送一次请求，响应状态为 200 时读取响应内容。已设置指标接收方时记录耗时、状态码和收发字节数
+	 *
+	 * @throws org.apache.http.HttpException 响应状态不是 200
+	 */
+	private static <T> T executeOnce(CloseableHttpClient httpClient, HttpRequestBase request, EntityReader<T> reader)
+		throws IOException, HttpException {
+		HttpMetricsSink sink = metricsSink;
+		if (sink == null) {
+			return executeOnce(httpClient, request, reader, null);
+		}
+		long start = System.nanoTime();
+		ResponseMeter meter = new ResponseMeter();
+		try {
+			T result = executeOnce(httpClient, request, reader, meter);
+			sink.onResponse(hostKey(request.getURI()), meter.statusCode, System.nanoTime() - start,
+				requestBytes(request), meter.bytesIn);
+			return result;
+		} catch (HttpStatusException e) {
+			sink.onResponse(hostKey(request.getURI()), e.getStatusCode(), System.nanoTime() - start,
+				requestBytes(request), meter.bytesIn);
+			throw e;
+		} catch (IOException | HttpException | RuntimeException e) {
+			sink.onError(hostKey(request.getURI()), e, System.nanoTime() - start);
+			throw e;
+		}
+	}
+	
+	private static <T> T executeOnce(CloseableHttpClient httpClient, HttpRequestBase request, EntityReader<T> reader,
+		ResponseMeter meter) throws IOException, HttpException {
+		CloseableHttpResponse response = httpClient.execute(request);
+		boolean completed = false;
+		try {
+			StatusLine statusLine = response.getStatusLine();
+			if (statusLine.getStatusCode() == HttpStatus.SC_OK) {
+				HttpEntity entity = response.getEntity();
+				if (meter != null) {
+					meter.statusCode = statusLine.getStatusCode();
+					entity = meter.wrap(entity);
 				}
-			} finally {
-				org.apache.http.client.utils.HttpClientUtils.closeQuietly(response);
+				T result = reader.read(decompress(entity));
+				completed = true;
+				return result;
+			} else {
+				completed = true;
+				throw new HttpStatusException(statusLine.getStatusCode(), "请求失败： status=" + statusLine.toString());
 			}
 		} finally {
-			org.apache.http.client.utils.HttpClientUtils.closeQuietly(httpsClient);
+			if (completed && drain(response.getEntity())) {
+				// 读完响应内容后，连接才能归还连接池复用
+				org.apache.http.client.utils.HttpClientUtils.closeQuietly(response);
+			} else {
+				// 读取失败（如超出 maxBytes）或剩余内容过多（如处理方只读取了开头）时不再下载，直接关闭响应，连接随之关闭。
+				// HttpClientUtils.closeQuietly 和关闭响应内容输入流都会读完全部剩余内容，这里不能使用
+				try {
+					response.close();
+				} catch (IOException e) {
+					logger.debug("关闭响应失败", e);
+				}
+			}
 		}
 	}
 	
 	/**
-	 * 创建一个新的 CloseableHttpClient，该HttpClient只能用于单个请求，不支持cookie，不支持压缩。<br>
-	 * 如果jvm 不支持 SSLv3 算法，该Client将不能用于https请求
+	 * 读完不超过 {@link #MAX_DRAIN_BYTES} 的剩余响应内容，读到结尾时连接归还连接池
+	 *
+	 * @param entity 响应内容
+	 *
+	 * @return 是否已读完
+	 */
+	private static boolean drain(HttpEntity entity) {
+		if (entity == null || !entity.isStreaming()) {
+			return true;
+		}
+		try {
+			InputStream in = entity.getContent();
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			for (long drained = 0; drained <= MAX_DRAIN_BYTES; ) {
+				int n = in.read(buffer);
+				if (n < 0) {
+					return true;
+				}
+				drained += n;
+			}
+		} catch (IOException e) {
+			logger.debug("读取剩余响应内容失败", e);
+		}
+		return false;
+	}
+	
+	/**
+	 * @return 指标中使用的目标主机，格式为 host:port，与 {@link MeteredConnectionManager} 一致
+	 */
+	private static String hostKey(URI uri) {
+		int port = uri.getPort();
+		if (port < 0) {
+			port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+		}
+		return uri.getHost() + ":" + port;
+	}
+	
+	/**
+	 * @return 请求内容字节数，压缩发送时为压缩后的字节数，未知时为 0
+	 */
+	private static long requestBytes(HttpRequestBase request) {
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			if (entity instanceof GzipRequestEntity) {
+				return ((GzipRequestEntity) entity).getCompressedLength();
+			}
+			if (entity != null && entity.getContentLength() > 0) {
+				return entity.getContentLength();
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * 设置请求指标接收方，同步和异步请求都会记录。连接池等待时间只在初始化共享 HttpClient 后记录
+	 *
+	 * @param sink 指标接收方，如 {@link com.cloudin.commons.langs.http.DefaultHttpMetrics}，为 null 时不记录
+	 */
+	public static void setMetricsSink(HttpMetricsSink sink) {
+		metricsSink = sink;
+	}
+	
+	public static HttpMetricsSink getMetricsSink() {
+		return metricsSink;
+	}
+	
+	/**
+	 * 判断请求是否可以安全重试：幂等方法，且请求内容可重复发送
+	 */
+	private static boolean isIdempotent(HttpRequestBase request) {
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			if (entity != null && !entity.isRepeatable()) {
+				return false;
+			}
+		}
+		String method = request.getMethod();
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method) || "PUT".equals(method)
+			|| "DELETE".equals(method) || "TRACE".equals(method);
+	}
+	
+	/**
+	 * 设置同步请求的容错处理：重试、按目标主机熔断、按目标主机限制并发。
+	 * <p>
+	 * 幂等请求（GET 等）在 IO 异常和 5xx 响应时按退避策略重试；POST 等非幂等请求只在连接建立失败时重试
+	 *
+	 * @param httpResilience 容错处理，为 null 时不做容错处理
+	 */
+	public static void setResilience(HttpResilience httpResilience) {
+		resilience = httpResilience;
+	}
+	
+	public static HttpResilience getResilience() {
+		return resilience;
+	}
+	
+	/**
+	 * 发送 get 请求，并以流的方式处理响应内容，响应内容不会整体读入内存。
+	 *
+	 * @param url      请求url
+	 * @param maxBytes 允许读取的最大字节数，小于等于 0 时不限制。超出时抛出 {@link IOException}，不再下载剩余内容
+	 * @param handler  响应内容处理方式，输入流在请求结束后自动关闭
+	 *
+	 * @return 处理结果
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
+	 */
+	public static <T> T getStream(String url, long maxBytes, ResponseStreamHandler<T> handler)
+		throws IOException, HttpException {
+		return getStream(url, maxBytes, handler, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT);
+	}
+	
+	/**
+	 * 发送 get 请求，并以流的方式处理响应内容，响应内容不会整体读入内存。
 	 *
+	 * @param url               请求url
+	 * @param maxBytes          允许读取的最大字节数，小于等于 0 时不限制。超出时抛出 {@link IOException}，不再下载剩余内容
+	 * @param handler           响应内容处理方式，输入流在请求结束后自动关闭
 	 * @param connectionTimeout 链接建立超时时间
 	 * @param socketTimeout     数据传输超时时间
 	 *
-	 * @return CloseableHttpClient
+	 * @return 处理结果
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
 	 */
-	public static CloseableHttpClient getHttpClient(Integer connectionTimeout, Integer socketTimeout) {
-		
-		return getHttpClient(connectionTimeout, socketTimeout, null);
+	public static <T> T getStream(String url, long maxBytes, ResponseStreamHandler<T> handler,
+		Integer connectionTimeout, Integer socketTimeout) throws IOException, HttpException {
+		logger.debug("requestUrl={}", url);
+		return execute(new HttpGet(url), connectionTimeout, socketTimeout, streamReader(maxBytes, handler));
 	}
 	
 	/**
-	 * 创建一个新的 CloseableHttpClient，该HttpClient只能用于单个请求，不支持cookie，不支持压缩。<br>
-	 * 如果jvm 不支持 SSLv3 算法，该Client将不能用于https请求
+	 * 发送 post 请求，并以流的方式处理响应内容，响应内容不会整体读入内存。
 	 *
+	 * @param url               请求url
+	 * @param httpEntity        请求内容
+	 * @param maxBytes          允许读取的最大字节数，小于等于 0 时不限制。超出时抛出 {@link IOException}，不再下载剩余内容
+	 * @param handler           响应内容处理方式，输入流在请求结束后自动关闭
 	 * @param connectionTimeout 链接建立超时时间
 	 * @param socketTimeout     数据传输超时时间
-	 * @param connectionManager 连接管理器
 	 *
-	 * @return CloseableHttpClient
+	 * @return 处理结果
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
 	 */
-	public static CloseableHttpClient getHttpClient(Integer connectionTimeout, Integer socketTimeout,
-		HttpClientConnectionManager connectionManager) {
-		
-		RequestConfig.Builder requestConfigBuiler = RequestConfig.custom().setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT)
-			.setSocketTimeout(DEFAULT_SOCKET_TIMEOUT);
-		
-		if (connectionTimeout != null) {
-			requestConfigBuiler.setConnectTimeout(connectionTimeout);
-		}
-		if (socketTimeout != null) {
-			requestConfigBuiler.setSocketTimeout(socketTimeout);
-		}
-		
-		HttpClientBuilder builder = HttpClients.custom().setUserAgent(DEFAULT_USER_AGENT).disableCookieManagement()
-			.disableAuthCaching().disableAutomaticRetries().disableConnectionState().disableContentCompression()
-			.disableRedirectHandling().setDefaultRequestConfig(requestConfigBuiler.build());
-		if (connectionManager != null) {
-			builder.setConnectionManager(connectionManager);
+	public static <T> T postStream(String url, HttpEntity httpEntity, long maxBytes, ResponseStreamHandler<T> handler,
+		Integer connectionTimeout, Integer socketTimeout) throws IOException, HttpException {
+		logger.debug("requestUrl={}", url);
+		HttpPost httpPost = new HttpPost(url);
+		httpPost.setEntity(httpEntity);
+		return execute(httpPost, connectionTimeout, socketTimeout, streamReader(maxBytes, handler));
+	}
+	
+	/**
+	 * 下载文件。响应内容直接写入文件，失败时删除未写完的文件
+	 *
+	 * @param url      请求url
+	 * @param target   目标文件，已存在时覆盖
+	 * @param maxBytes 允许下载的最大字节数，小于等于 0 时不限制。超出时抛出 {@link IOException}，不再下载剩余内容
+	 *
+	 * @return 下载的字节数
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
+	 */
+	public static long download(String url, File target, long maxBytes) throws IOException, HttpException {
+		boolean success = false;
+		try (OutputStream out = new FileOutputStream(target)) {
+			long count = download(url, out, maxBytes);
+			success = true;
+			return count;
+		} finally {
+			if (!success && !target.delete()) {
+				logger.warn("删除未下载完成的文件失败：{}", target);
+			}
+		}
+	}
+	
+	/**
+	 * 下载响应内容到输出流，输出流不会被关闭
+	 *
+	 * @param url      请求url
+	 * @param out      输出流
+	 * @param maxBytes 允许下载的最大字节数，小于等于 0 时不限制。超出时抛出 {@link IOException}，不再下载剩余内容
+	 *
+	 * @return 下载的字节数
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
+	 */
+	public static long download(String url, final OutputStream out, long maxBytes) throws IOException, HttpException {
+		return getStream(url, maxBytes, in -> {
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			long count = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+				count += n;
+			}
+			return count;
+		});
+	}
+	
+	/**
+	 * 下载响应内容到 channel，channel 不会被关闭
+	 *
+	 * @param url      请求url
+	 * @param channel  目标 channel
+	 * @param maxBytes 允许下载的最大字节数，小于等于 0 时不限制。超出时抛出 {@link IOException}，不再下载剩余内容
+	 *
+	 * @return 下载的字节数
+	 *
+	 * @throws java.io.IOException
+	 * @throws org.apache.http.HttpException 响应状态不是 200
+	 */
+	public static long download(String url, final WritableByteChannel channel, long maxBytes)
+		throws IOException, HttpException {
+		return getStream(url, maxBytes, in -> {
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+			long count = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				byteBuffer.clear().limit(n);
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+				count += n;
+			}
+			return count;
+		});
+	}
+	
+	/**
+	 * 把流式处理方式包装为响应内容读取方式，并限制读取的字节数
+	 */
+	private static <T> EntityReader<T> streamReader(long maxBytes, ResponseStreamHandler<T> handler) {
+		return new StreamEntityReader<>(maxBytes, handler);
+	}
+	
+	/**
+	 * 设置是否启用压缩。启用后：
+	 * <ul>
+	 * <li>请求时发送 Accept-Encoding: gzip, deflate，并以流的方式解压响应内容</li>
+	 * <li>同步请求的请求内容长度不小于 {@link #setRequestCompressionThreshold(long)} 时，以 gzip 压缩发送</li>
+	 * <li>记录压缩前后的字节数，见 {@link #getResponseBytes()} 等方法</li>
+	 * </ul>
+	 * 请求内容压缩需要服务端支持 Content-Encoding: gzip 的请求，默认不启用
+	 *
+	 * @param enabled 是否启用
+	 */
+	public static void setCompressionEnabled(boolean enabled) {
+		compressionEnabled = enabled;
+	}
+	
+	public static boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+	
+	/**
+	 * @param threshold 请求内容压缩阈值，请求内容长度大于等于该值时才压缩，单位：字节。长度未知的请求内容不压缩
+	 */
+	public static void setRequestCompressionThreshold(long threshold) {
+		requestCompressionThreshold = threshold;
+	}
+	
+	/**
+	 * @return 被压缩的请求内容，压缩前的字节数
+	 */
+	public static long getRequestBytes() {
+		return requestBytes.sum();
+	}
+	
+	/**
+	 * @return 被压缩的请求内容，压缩后的字节数
+	 */
+	public static long getRequestCompressedBytes() {
+		return requestCompressedBytes.sum();
+	}
+	
+	/**
+	 * @return 压缩的响应内容，解压后已读取的字节数
+	 */
+	public static long getResponseBytes() {
+		return responseBytes.sum();
+	}
+	
+	/**
+	 * @return 压缩的响应内容，解压前已读取（网络传输）的字节数
+	 */
+	public static long getResponseCompressedBytes() {
+		return responseCompressedBytes.sum();
+	}
+	
+	/**
+	 * 清零压缩统计
+	 */
+	public static void resetCompressionStats() {
+		requestBytes.reset();
+		requestCompressedBytes.reset();
+		responseBytes.reset();
+		responseCompressedBytes.reset();
+	}
+	
+	/**
+	 * 设置 Accept-Encoding 请求头，请求内容超过阈值时以 gzip 压缩
+	 *
+	 * @param request      请求
+	 * @param compressBody 是否压缩请求内容
+	 */
+	private static void prepareCompression(HttpRequestBase request, boolean compressBody) {
+		request.setHeader("Accept-Encoding", "gzip, deflate");
+		if (compressBody && request instanceof HttpEntityEnclosingRequest) {
+			HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+			HttpEntity entity = entityRequest.getEntity();
+			if (entity != null && entity.getContentEncoding() == null
+				&& entity.getContentLength() >= requestCompressionThreshold) {
+				entityRequest.setEntity(new GzipRequestEntity(entity));
+			}
+		}
+	}
+	
+	/**
+	 * 按 Content-Encoding 解压响应内容，未压缩时原样返回
+	 *
+	 * @param entity 响应内容
+	 *
+	 * @return 解压后的响应内容
+	 */
+	private static HttpEntity decompress(HttpEntity entity) {
+		if (entity == null || entity.getContentEncoding() == null) {
+			return entity;
+		}
+		String encoding = entity.getContentEncoding().getValue().trim().toLowerCase();
+		if ("gzip".equals(encoding) || "x-gzip".equals(encoding) || "deflate".equals(encoding)) {
+			return new DecompressingEntity(entity, !encoding.equals("deflate"));
+		}
+		return entity;
+	}
+	
+	/**
+	 * 初始化共享的 HttpClient。初始化后 {@link #get}、{@link #post}、{@link #postForm} 等方法都复用该 HttpClient 的连接池，
+	 * 不再为每个请求新建、关闭连接。
+	 *
+	 * @param maxTotal    连接池最大连接数
+	 * @param maxPerRoute 每个路由（目标主机）的最大连接数
+	 *
+	 * @see #initSharedHttpClient(int, int, long, long)
+	 */
+	public static void initSharedHttpClient(int maxTotal, int maxPerRoute) {
+		initSharedHttpClient(maxTotal, maxPerRoute, DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_MAX_IDLE_MILLIS);
+	}
+	
+	/**
+	 * 初始化共享的 HttpClient。初始化后 {@link #get}、{@link #post}、{@link #postForm} 等方法都复用该 HttpClient 的连接池，
+	 * 不再为每个请求新建、关闭连接。重复调用时，会关闭之前的 HttpClient 及其连接池。
+	 *
+	 * @param maxTotal        连接池最大连接数
+	 * @param maxPerRoute     每个路由（目标主机）的最大连接数
+	 * @param keepAliveMillis 连接保持时间，服务端通过 Keep-Alive 响应头指定了更短的时间时，以服务端为准。单位：毫秒
+	 * @param maxIdleMillis   最大空闲时间，空闲超过该时间或已过期的连接由后台线程关闭。单位：毫秒
+	 */
+	public static synchronized void initSharedHttpClient(int maxTotal, int maxPerRoute, final long keepAliveMillis,
+		long maxIdleMillis) {
+		Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+			.register("http", PlainConnectionSocketFactory.getSocketFactory())
+			.register("https", sslConnectionSocketFactory != null ? sslConnectionSocketFactory
+				: SSLConnectionSocketFactory.getSocketFactory()).build();
+		PoolingHttpClientConnectionManager connectionManager = new MeteredConnectionManager(registry,
+			() -> metricsSink);
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		// 复用空闲超过 2 秒的连接前，先检查连接是否已被服务端关闭
+		connectionManager.setValidateAfterInactivity(2000);
+		
+		ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+		};
+		
+		CloseableHttpClient httpClient = HttpClients.custom().setUserAgent(DEFAULT_USER_AGENT)
+			.disableCookieManagement().disableAuthCaching().disableAutomaticRetries().disableConnectionState()
+			.disableContentCompression().disableRedirectHandling()
+			.setDefaultRequestConfig(buildRequestConfig(null, null)).setConnectionManager(connectionManager)
+			.setKeepAliveStrategy(keepAliveStrategy).evictExpiredConnections()
+			.evictIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS).build();
+		
+		CloseableHttpClient oldHttpClient = sharedHttpClient;
+		sharedConnectionManager = connectionManager;
+		sharedHttpClient = httpClient;
+		org.apache.http.client.utils.HttpClientUtils.closeQuietly(oldHttpClient);
+		logger.info("maxTotal={},maxPerRoute={},keepAliveMillis={},maxIdleMillis={}", maxTotal, maxPerRoute,
+			keepAliveMillis, maxIdleMillis);
+	}
+	
+	/**
+	 * 关闭共享的 HttpClient 及其连接池，之后的请求恢复为每次新建 HttpClient
+	 */
+	public static synchronized void closeSharedHttpClient() {
+		CloseableHttpClient oldHttpClient = sharedHttpClient;
+		sharedHttpClient = null;
+		sharedConnectionManager = null;
+		org.apache.http.client.utils.HttpClientUtils.closeQuietly(oldHttpClient);
+	}
+	
+	/**
+	 * @return 共享的 HttpClient，未初始化时返回 null
+	 */
+	public static CloseableHttpClient getSharedHttpClient() {
+		return sharedHttpClient;
+	}
+	
+	/**
+	 * @return 共享 HttpClient 的连接池，未初始化时返回 null。可用于查看连接池状态
+	 */
+	public static PoolingHttpClientConnectionManager getSharedConnectionManager() {
+		return sharedConnectionManager;
+	}
+	
+	/**
+	 * 异步发送 get 请求。请求在 I/O 线程中完成，调用线程不会被阻塞
+	 *
+	 * @param url 请求url
+	 *
+	 * @return 响应内容，UTF-8编码。响应状态不是 200 时，以 {@link HttpException} 异常结束
+	 */
+	public static CompletableFuture<String> getAsync(String url) {
+		return getAsync(url, DEFAULT_CHARSET, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT);
+	}
+	
+	/**
+	 * 异步发送 get 请求。请求在 I/O 线程中完成，调用线程不会被阻塞
+	 *
+	 * @param url               请求url
+	 * @param charset           响应结果编码
+	 * @param connectionTimeout 链接建立超时时间，同时作为等待并发名额的超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 *
+	 * @return 响应内容。响应状态不是 200 时，以 {@link HttpException} 异常结束
+	 */
+	public static CompletableFuture<String> getAsync(String url, Charset charset, Integer connectionTimeout,
+		Integer socketTimeout) {
+		return executeAsync(new HttpGet(url), charset == null ? DEFAULT_CHARSET : charset, connectionTimeout,
+			socketTimeout);
+	}
+	
+	/**
+	 * 异步发送 post 请求。请求在 I/O 线程中完成，调用线程不会被阻塞
+	 *
+	 * @param url         请求url
+	 * @param body        请求内容
+	 * @param contentType http请求内容类型
+	 *
+	 * @return 响应内容。响应状态不是 200 时，以 {@link HttpException} 异常结束
+	 */
+	public static CompletableFuture<String> postAsync(String url, String body, ContentType contentType) {
+		return postAsync(url, body, contentType, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT);
+	}
+	
+	/**
+	 * 异步发送 post 请求。请求在 I/O 线程中完成，调用线程不会被阻塞
+	 *
+	 * @param url               请求url
+	 * @param body              请求内容
+	 * @param contentType       http请求内容类型
+	 * @param connectionTimeout 链接建立超时时间，同时作为等待并发名额的超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 *
+	 * @return 响应内容。响应状态不是 200 时，以 {@link HttpException} 异常结束
+	 */
+	public static CompletableFuture<String> postAsync(String url, String body, ContentType contentType,
+		Integer connectionTimeout, Integer socketTimeout) {
+		HttpPost httpPost = new HttpPost(url);
+		httpPost.setEntity(new StringEntity(body, contentType));
+		return executeAsync(httpPost, contentType.getCharset(), connectionTimeout, socketTimeout);
+	}
+	
+	/**
+	 * 异步发送表单 post 请求。请求在 I/O 线程中完成，调用线程不会被阻塞
+	 *
+	 * @param url         请求url
+	 * @param formData    表单数据
+	 * @param contentType http请求内容类型
+	 *
+	 * @return 响应内容。响应状态不是 200 时，以 {@link HttpException} 异常结束
+	 */
+	public static CompletableFuture<String> postFormAsync(String url, Map<String, String> formData,
+		ContentType contentType) {
+		return postFormAsync(url, formData, contentType, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT);
+	}
+	
+	/**
+	 * 异步发送表单 post 请求。请求在 I/O 线程中完成，调用线程不会被阻塞
+	 *
+	 * @param url               请求url
+	 * @param formData          表单数据
+	 * @param contentType       http请求内容类型
+	 * @param connectionTimeout 链接建立超时时间，同时作为等待并发名额的超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 *
+	 * @return 响应内容。响应状态不是 200 时，以 {@link HttpException} 异常结束
+	 */
+	public static CompletableFuture<String> postFormAsync(String url, Map<String, String> formData,
+		ContentType contentType, Integer connectionTimeout, Integer socketTimeout) {
+		HttpPost httpPost = new HttpPost(url);
+		httpPost.setEntity(buildFormEntity(formData, contentType));
+		return executeAsync(httpPost, contentType.getCharset(), connectionTimeout, socketTimeout);
+	}
+	
+	/**
+	 * 通过共享的异步 HttpClient 执行请求。取消返回的 CompletableFuture 时，同时取消底层请求
+	 *
+	 * @param request           请求
+	 * @param charset           响应结果编码，为 null 时使用 UTF-8
+	 * @param connectionTimeout 链接建立超时时间，同时作为等待并发名额的超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 *
+	 * @return 响应内容
+	 */
+	private static CompletableFuture<String> executeAsync(HttpRequestBase request, final Charset charset,
+		Integer connectionTimeout, Integer socketTimeout) {
+		logger.debug("requestUrl={}", request.getURI());
+		request.setConfig(buildRequestConfig(connectionTimeout, socketTimeout));
+		if (compressionEnabled) {
+			// 异步请求的内容需要可重复读取，只启用响应压缩
+			prepareCompression(request, false);
+		}
+		
+		final HttpMetricsSink sink = metricsSink;
+		final String host = sink == null ? null : hostKey(request.getURI());
+		final long bytesOut = sink == null ? 0 : requestBytes(request);
+		final long start = System.nanoTime();
+		final CompletableFuture<String> result = new CompletableFuture<>();
+		final Future<HttpResponse> future;
+		try {
+			future = getAsyncHttpClient().execute(request, new FutureCallback<HttpResponse>() {
+				@Override
+				public void completed(HttpResponse response) {
+					if (sink != null) {
+						HttpEntity entity = response.getEntity();
+						long bytesIn = entity == null ? 0 : Math.max(entity.getContentLength(), 0);
+						sink.onResponse(host, response.getStatusLine().getStatusCode(), System.nanoTime() - start,
+							bytesOut, bytesIn);
+					}
+					try {
+						StatusLine statusLine = response.getStatusLine();
+						if (statusLine.getStatusCode() == HttpStatus.SC_OK) {
+							result.complete(EntityUtils.toString(decompress(response.getEntity()),
+								charset == null ? DEFAULT_CHARSET : charset));
+						} else {
+							EntityUtils.consumeQuietly(response.getEntity());
+							result.completeExceptionally(new HttpStatusException(statusLine.getStatusCode(),
+								"请求失败： status=" + statusLine.toString()));
+						}
+					} catch (Exception e) {
+						result.completeExceptionally(e);
+					}
+				}
+				
+				@Override
+				public void failed(Exception ex) {
+					if (sink != null) {
+						sink.onError(host, ex, System.nanoTime() - start);
+					}
+					result.completeExceptionally(ex);
+				}
+				
+				@Override
+				public void cancelled() {
+					result.cancel(false);
+				}
+			});
+		} catch (Exception e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		result.whenComplete((res, ex) -> {
+			if (result.isCancelled()) {
+				future.cancel(true);
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * 初始化共享的异步 HttpClient。重复调用时，会关闭之前的异步 HttpClient。
+	 * <p>
+	 * 并发请求数受连接池限制，超出限制的请求在连接池中排队（不占用线程），排队超过链接建立超时时间后以异常结束
+	 *
+	 * @param maxTotal      最大并发请求数
+	 * @param maxPerRoute   每个路由（目标主机）的最大并发请求数
+	 * @param ioThreadCount I/O 线程数，小于等于 0 时使用 CPU 核数
+	 *
+	 * @throws IOReactorException 创建 I/O reactor 失败
+	 */
+	public static synchronized void initAsyncHttpClient(int maxTotal, int maxPerRoute, int ioThreadCount)
+		throws IOReactorException {
+		IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom().setSoKeepAlive(true);
+		if (ioThreadCount > 0) {
+			ioReactorConfig.setIoThreadCount(ioThreadCount);
+		}
+		Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+			.register("http", NoopIOSessionStrategy.INSTANCE)
+			.register("https", sslIOSessionStrategy != null ? sslIOSessionStrategy
+				: SSLIOSessionStrategy.getDefaultStrategy()).build();
+		PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+			new DefaultConnectingIOReactor(ioReactorConfig.build()), registry);
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		
+		CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom().setUserAgent(DEFAULT_USER_AGENT)
+			.disableCookieManagement().disableAuthCaching().disableConnectionState()
+			.setDefaultRequestConfig(buildRequestConfig(null, null)).setConnectionManager(connectionManager).build();
+		httpClient.start();
+		
+		CloseableHttpAsyncClient oldHttpClient = asyncHttpClient;
+		asyncHttpClient = httpClient;
+		closeQuietly(oldHttpClient);
+		logger.info("async maxTotal={},maxPerRoute={},ioThreadCount={}", maxTotal, maxPerRoute, ioThreadCount);
+	}
+	
+	/**
+	 * 关闭共享的异步 HttpClient，未完成的请求会以异常结束
+	 */
+	public static synchronized void closeAsyncHttpClient() {
+		CloseableHttpAsyncClient oldHttpClient = asyncHttpClient;
+		asyncHttpClient = null;
+		closeQuietly(oldHttpClient);
+	}
+	
+	/**
+	 * @return 共享的异步 HttpClient，未初始化时按默认配置创建
+	 *
+	 * @throws IOReactorException 创建 I/O reactor 失败
+	 */
+	private static CloseableHttpAsyncClient getAsyncHttpClient() throws IOReactorException {
+		CloseableHttpAsyncClient httpClient = asyncHttpClient;
+		if (httpClient == null) {
+			synchronized (HttpUtils.class) {
+				if (asyncHttpClient == null) {
+					initAsyncHttpClient(DEFAULT_ASYNC_MAX_TOTAL, DEFAULT_ASYNC_MAX_PER_ROUTE, 0);
+				}
+				httpClient = asyncHttpClient;
+			}
+		}
+		return httpClient;
+	}
+	
+	private static void closeQuietly(CloseableHttpAsyncClient httpClient) {
+		if (httpClient != null) {
+			try {
+				httpClient.close();
+			} catch (IOException e) {
+				logger.error("", e);
+			}
+		}
+	}
+	
+	/**
+	 * 构建请求配置
+	 *
+	 * @param connectionTimeout 链接建立超时时间，同时作为从连接池获取连接的超时时间，为 null 时使用默认值
+	 * @param socketTimeout     数据传输超时时间，为 null 时使用默认值
+	 *
+	 * @return 请求配置
+	 */
+	private static RequestConfig buildRequestConfig(Integer connectionTimeout, Integer socketTimeout) {
+		int actualConnectionTimeout = connectionTimeout != null ? connectionTimeout : DEFAULT_CONNECTION_TIMEOUT;
+		int actualSocketTimeout = socketTimeout != null ? socketTimeout : DEFAULT_SOCKET_TIMEOUT;
+		return RequestConfig.custom().setConnectTimeout(actualConnectionTimeout)
+			.setConnectionRequestTimeout(actualConnectionTimeout).setSocketTimeout(actualSocketTimeout).build();
+	}
+	
+	/**
+	 * 创建一个新的 CloseableHttpClient，该HttpClient只能用于单个请求，不支持cookie，不支持压缩。<br>
+	 * 如果jvm 不支持 SSLv3 算法，该Client将不能用于https请求
+	 *
+	 * @param connectionTimeout 链接建立超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 *
+	 * @return CloseableHttpClient
+	 */
+	public static CloseableHttpClient getHttpClient(Integer connectionTimeout, Integer socketTimeout) {
+		
+		return getHttpClient(connectionTimeout, socketTimeout, null);
+	}
+	
+	/**
+	 * 创建一个新的 CloseableHttpClient，该HttpClient只能用于单个请求，不支持cookie，不支持压缩。<br>
+	 * 如果jvm 不支持 SSLv3 算法，该Client将不能用于https请求
+	 *
+	 * @param connectionTimeout 链接建立超时时间
+	 * @param socketTimeout     数据传输超时时间
+	 * @param connectionManager 连接管理器
+	 *
+	 * @return CloseableHttpClient
+	 */
+	public static CloseableHttpClient getHttpClient(Integer connectionTimeout, Integer socketTimeout,
+		HttpClientConnectionManager connectionManager) {
+		
+		RequestConfig.Builder requestConfigBuiler = RequestConfig.custom().setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT)
+			.setSocketTimeout(DEFAULT_SOCKET_TIMEOUT);
+		
+		if (connectionTimeout != null) {
+			requestConfigBuiler.setConnectTimeout(connectionTimeout);
+		}
+		if (socketTimeout != null) {
+			requestConfigBuiler.setSocketTimeout(socketTimeout);
+		}
+		
+		HttpClientBuilder builder = HttpClients.custom().setUserAgent(DEFAULT_USER_AGENT).disableCookieManagement()
+			.disableAuthCaching().disableAutomaticRetries().disableConnectionState().disableContentCompression()
+			.disableRedirectHandling().setDefaultRequestConfig(requestConfigBuiler.build());
+		if (connectionManager != null) {
+			builder.setConnectionManager(connectionManager);
+		}
+		builder.setSSLSocketFactory(sslConnectionSocketFactory);
+		return builder.build();
+	}
+	
+	/**
+	 * 响应内容读取方式
+	 */
+	private interface EntityReader<T> {
+		
+		T read(HttpEntity entity) throws IOException;
+	}
+	
+	/**
+	 * 响应内容流式处理方式
+	 */
+	public interface ResponseStreamHandler<T> {
+		
+		/**
+		 * 处理响应内容
+		 *
+		 * @param in 响应内容输入流，无需关闭
+		 *
+		 * @return 处理结果
+		 *
+		 * @throws IOException 读取失败或超出字节数限制
+		 */
+		T handle(InputStream in) throws IOException;
+	}
+	
+	/**
+	 * 流式读取响应内容，并限制读取的字节数
+	 */
+	private static class StreamEntityReader<T> implements EntityReader<T> {
+		
+		private final long maxBytes;
+		
+		private final ResponseStreamHandler<T> handler;
+		
+		private StreamEntityReader(long maxBytes, ResponseStreamHandler<T> handler) {
+			this.maxBytes = maxBytes;
+			this.handler = handler;
+		}
+		
+		@Override
+		public T read(HttpEntity entity) throws IOException {
+			if (entity == null) {
+				return handler.handle(new ByteArrayInputStream(new byte[0]));
+			}
+			if (maxBytes > 0 && entity.getContentLength() > maxBytes) {
+				throw new IOException("响应内容超出限制： contentLength=" + entity.getContentLength() + ", maxBytes=" + maxBytes);
+			}
+			// 不关闭输入流，关闭会读完剩余内容，由 executeOnce 决定读完还是直接关闭响应
+			return handler.handle(new LimitedInputStream(entity.getContent(), maxBytes));
+		}
+	}
+	
+	/**
+	 * 记录一次请求的状态码和已读取的响应内容字节数（解压前）
+	 */
+	private static class ResponseMeter {
+		
+		private int statusCode;
+		
+		private long bytesIn;
+		
+		private HttpEntity wrap(HttpEntity entity) {
+			if (entity == null) {
+				return null;
+			}
+			return new HttpEntityWrapper(entity) {
+				
+				private InputStream content;
+				
+				@Override
+				public InputStream getContent() throws IOException {
+					if (content == null) {
+						content = new ProxyInputStream(wrappedEntity.getContent()) {
+							@Override
+							protected void afterRead(int n) {
+								if (n > 0) {
+									bytesIn += n;
+								}
+							}
+						};
+					}
+					return content;
+				}
+				
+				@Override
+				public void writeTo(OutputStream out) throws IOException {
+					try (InputStream in = getContent()) {
+						byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+						int n;
+						while ((n = in.read(buffer)) != -1) {
+							out.write(buffer, 0, n);
+						}
+					}
+				}
+			};
+		}
+	}
+	
+	/**
+	 * 以 gzip 压缩发送的请求内容，发送时记录压缩前后的字节数
+	 */
+	private static class GzipRequestEntity extends HttpEntityWrapper {
+		
+		private volatile long compressedLength;
+		
+		private GzipRequestEntity(HttpEntity wrappedEntity) {
+			super(wrappedEntity);
+		}
+		
+		@Override
+		public Header getContentEncoding() {
+			return new BasicHeader(HTTP.CONTENT_ENCODING, "gzip");
+		}
+		
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+		
+		@Override
+		public boolean isChunked() {
+			return true;
+		}
+		
+		/**
+		 * 压缩后的内容整体读入内存，只在拦截器等需要读取请求内容时使用，发送时仍以流的方式压缩
+		 */
+		@Override
+		public InputStream getContent() throws IOException {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, STREAM_BUFFER_SIZE)) {
+				wrappedEntity.writeTo(gzip);
+			}
+			return new ByteArrayInputStream(buffer.toByteArray());
+		}
+		
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			LongAdder written = new LongAdder();
+			try {
+				GZIPOutputStream gzip = new GZIPOutputStream(new CountingOutputStream(out, written), STREAM_BUFFER_SIZE);
+				wrappedEntity.writeTo(new CountingOutputStream(gzip, requestBytes));
+				gzip.finish();
+				gzip.flush();
+			} finally {
+				requestCompressedBytes.add(written.sum());
+				compressedLength = written.sum();
+			}
+		}
+		
+		/**
+		 * @return 最近一次发送的压缩后字节数，未发送时为 0
+		 */
+		private long getCompressedLength() {
+			return compressedLength;
+		}
+	}
+	
+	/**
+	 * 以流的方式解压的响应内容，读取时记录解压前后的字节数
+	 */
+	private static class DecompressingEntity extends HttpEntityWrapper {
+		
+		private final boolean gzip;
+		
+		private InputStream content;
+		
+		private DecompressingEntity(HttpEntity wrappedEntity, boolean gzip) {
+			super(wrappedEntity);
+			this.gzip = gzip;
+		}
+		
+		@Override
+		public Header getContentEncoding() {
+			return null;
+		}
+		
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+		
+		@Override
+		public InputStream getContent() throws IOException {
+			if (content == null) {
+				InputStream in = new CountingInputStream(wrappedEntity.getContent(), responseCompressedBytes);
+				in = gzip ? new GZIPInputStream(in, STREAM_BUFFER_SIZE) : new DeflateInputStream(in);
+				content = new CountingInputStream(in, responseBytes);
+			}
+			return content;
+		}
+		
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			try (InputStream in = getContent()) {
+				byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+				int n;
+				while ((n = in.read(buffer)) != -1) {
+					out.write(buffer, 0, n);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 把读取的字节数累加到计数器的输入流
+	 */
+	private static class CountingInputStream extends ProxyInputStream {
+		
+		private final LongAdder counter;
+		
+		private CountingInputStream(InputStream in, LongAdder counter) {
+			super(in);
+			this.counter = counter;
+		}
+		
+		@Override
+		protected void afterRead(int n) {
+			if (n > 0) {
+				counter.add(n);
+			}
+		}
+	}
+	
+	/**
+	 * 把写入的字节数累加到计数器的输出流
+	 */
+	private static class CountingOutputStream extends ProxyOutputStream {
+		
+		private final LongAdder counter;
+		
+		private CountingOutputStream(OutputStream out, LongAdder counter) {
+			super(out);
+			this.counter = counter;
+		}
+		
+		@Override
+		protected void beforeWrite(int n) {
+			counter.add(n);
+		}
+		
+		@Override
+		public void close() {
+			// 不关闭底层输出流，由 HttpClient 负责
+		}
+	}
+	
+	/**
+	 * 读取字节数超出限制时抛出异常的输入流
+	 */
+	private static class LimitedInputStream extends ProxyInputStream {
+		
+		private final long maxBytes;
+		
+		private long count;
+		
+		private LimitedInputStream(InputStream in, long maxBytes) {
+			super(in);
+			this.maxBytes = maxBytes;
+		}
+		
+		@Override
+		protected void afterRead(int n) throws IOException {
+			if (n > 0) {
+				count += n;
+				if (maxBytes > 0 && count > maxBytes) {
+					throw new IOException("响应内容超出限制： maxBytes=" + maxBytes);
+				}
+			}
 		}
-		builder.setSSLSocketFactory(sslConnectionSocketFactory);
-		return builder.build();
 	}
 	
 	/**
@@ -0,0 +1,332 @@
+package com.cloudin.commons.langs.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 紧凑的二进制编解码器：常用类型（字符串、整数、浮点数、布尔、字节数组、日期以及由它们组成的 List/Set/Map）
+ * 使用带类型标记的变长编码，其它可序列化对象回退到 java 序列化。
+ * <p>
+ * 只有 {@link ArrayList}、{@link HashSet}、{@link LinkedHashSet}、{@link HashMap}、{@link LinkedHashMap} 本身使用紧凑编码，
+ * 解码后 List 为 {@link ArrayList}，Set 为 {@link LinkedHashSet}，Map 为 {@link LinkedHashMap}，可以赋值给原类型。
+ * 其它集合（如 {@link java.util.TreeMap}、{@link java.util.EnumMap}、不可修改的集合）使用 java 序列化，保留原类型和比较器
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 01:30
+ */
+public class BinaryCacheCodec implements CacheCodec {
+
+	public static final byte ID = 1;
+
+	private static final byte NULL    = 0;
+	private static final byte STRING  = 1;
+	private static final byte INT     = 2;
+	private static final byte LONG    = 3;
+	private static final byte DOUBLE  = 4;
+	private static final byte TRUE    = 5;
+	private static final byte FALSE   = 6;
+	private static final byte BYTES   = 7;
+	private static final byte LIST    = 8;
+	private static final byte SET     = 9;
+	private static final byte MAP     = 10;
+	private static final byte DATE    = 11;
+	private static final byte JAVA    = 12;
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public byte[] encode(Object value) throws IOException {
+		Output out = new Output();
+		write(out, value);
+		return out.toByteArray();
+	}
+
+	@Override
+	public Object decode(byte[] data, int offset, int length) throws IOException {
+		Input in = new Input(data, offset, offset + length);
+		Object value = read(in);
+		if (in.pos != in.limit) {
+			throw new IOException("unexpected trailing bytes: " + (in.limit - in.pos));
+		}
+		return value;
+	}
+
+	private static void write(Output out, Object value) throws IOException {
+		if (value == null) {
+			out.write(NULL);
+		} else if (value instanceof String) {
+			out.write(STRING);
+			out.writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+		} else if (value instanceof Integer) {
+			out.write(INT);
+			out.writeVarLong(zigZag((Integer) value));
+		} else if (value instanceof Long) {
+			out.write(LONG);
+			out.writeVarLong(zigZag((Long) value));
+		} else if (value instanceof Double) {
+			out.write(DOUBLE);
+			out.writeLong(Double.doubleToRawLongBits((Double) value));
+		} else if (value instanceof Boolean) {
+			out.write((Boolean) value ? TRUE : FALSE);
+		} else if (value instanceof byte[]) {
+			out.write(BYTES);
+			out.writeBytes((byte[]) value);
+		} else if (value.getClass() == Date.class) {
+			out.write(DATE);
+			out.writeLong(((Date) value).getTime());
+		} else if (isCompactCollection(value.getClass())) {
+			Collection<?> collection = (Collection<?>) value;
+			out.write(value instanceof List ? LIST : SET);
+			out.writeVarLong(collection.size());
+			for (Object element : collection) {
+				write(out, element);
+			}
+		} else if (value.getClass() == HashMap.class || value.getClass() == LinkedHashMap.class) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.write(MAP);
+			out.writeVarLong(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				write(out, entry.getKey());
+				write(out, entry.getValue());
+			}
+		} else if (value instanceof Serializable) {
+			out.write(JAVA);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+				oos.writeObject(value);
+			}
+			out.writeBytes(bytes.toByteArray());
+		} else {
+			throw new IOException("unsupported type: " + value.getClass().getName());
+		}
+	}
+
+	private static Object read(Input in) throws IOException {
+		byte tag = in.read();
+		switch (tag) {
+			case NULL:
+				return null;
+			case STRING: {
+				int length = in.readLength();
+				String value = new String(in.data, in.pos, length, StandardCharsets.UTF_8);
+				in.pos += length;
+				return value;
+			}
+			case INT:
+				return (int) unZigZag(in.readVarLong());
+			case LONG:
+				return unZigZag(in.readVarLong());
+			case DOUBLE:
+				return Double.longBitsToDouble(in.readLong());
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case BYTES:
+				return in.readBytes();
+			case DATE:
+				return new Date(in.readLong());
+			case LIST: {
+				int size = in.readSize();
+				List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(read(in));
+				}
+				return list;
+			}
+			case SET: {
+				int size = in.readSize();
+				Set<Object> set = new LinkedHashSet<>(capacity(size));
+				for (int i = 0; i < size; i++) {
+					set.add(read(in));
+				}
+				return set;
+			}
+			case MAP: {
+				int size = in.readSize();
+				Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+				for (int i = 0; i < size; i++) {
+					map.put(read(in), read(in));
+				}
+				return map;
+			}
+			case JAVA: {
+				int length = in.readLength();
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(in.data, in.pos, length))) {
+					in.pos += length;
+					return ois.readObject();
+				} catch (ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+			}
+			default:
+				throw new IOException("unknown tag: " + tag);
+		}
+	}
+
+	/**
+	 * 解码结果可以赋值给原类型的集合，子类及其它实现可能依赖比较器、元素类型等状态，不使用紧凑编码
+	 */
+	private static boolean isCompactCollection(Class<?> type) {
+		return type == ArrayList.class || type == HashSet.class || type == LinkedHashSet.class;
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int capacity(int size) {
+		return Math.max(16, (int) (size / 0.75f) + 1);
+	}
+
+	/**
+	 * 可增长的输出缓冲区
+	 */
+	private static class Output {
+
+		private byte[] buf = new byte[256];
+
+		private int pos;
+
+		private void ensure(int length) {
+			if (pos + length > buf.length) {
+				byte[] newBuf = new byte[Math.max(buf.length << 1, pos + length)];
+				System.arraycopy(buf, 0, newBuf, 0, pos);
+				buf = newBuf;
+			}
+		}
+
+		void write(byte b) {
+			ensure(1);
+			buf[pos++] = b;
+		}
+
+		void writeVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7FL) != 0) {
+				buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buf[pos++] = (byte) value;
+		}
+
+		void writeLong(long value) {
+			ensure(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				buf[pos++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeBytes(byte[] bytes) {
+			writeVarLong(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		byte[] toByteArray() {
+			byte[] res = new byte[pos];
+			System.arraycopy(buf, 0, res, 0, pos);
+			return res;
+		}
+	}
+
+	/**
+	 * 带边界检查的输入
+	 */
+	private static class Input {
+
+		private final byte[] data;
+
+		private final int limit;
+
+		private int pos;
+
+		Input(byte[] data, int pos, int limit) {
+			this.data = data;
+			this.pos = pos;
+			this.limit = limit;
+		}
+
+		private void require(int length) throws EOFException {
+			if (length < 0 || limit - pos < length) {
+				throw new EOFException();
+			}
+		}
+
+		byte read() throws EOFException {
+			require(1);
+			return data[pos++];
+		}
+
+		long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = read();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("malformed varint");
+		}
+
+		long readLong() throws EOFException {
+			require(8);
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (data[pos++] & 0xFF);
+			}
+			return value;
+		}
+
+		/**
+		 * 读取字节长度，并校验剩余数据足够
+		 */
+		int readLength() throws IOException {
+			long length = readVarLong();
+			if (length > limit - pos) {
+				throw new EOFException();
+			}
+			return (int) length;
+		}
+
+		/**
+		 * 读取元素个数，每个元素至少占一个字节
+		 */
+		int readSize() throws IOException {
+			return readLength();
+		}
+
+		byte[] readBytes() throws IOException {
+			int length = readLength();
+			byte[] res = new byte[length];
+			System.arraycopy(data, pos, res, 0, length);
+			pos += length;
+			return res;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.cloudin.commons.langs.cache;
+
+import java.io.IOException;
+
+/**
+ * 缓存值编解码器，由 {@link CodecTranscoder} 调用，版本头和压缩由 {@link CodecTranscoder} 处理
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 01:30
+ */
+public interface CacheCodec {
+
+	/**
+	 * 编解码器标识，写入版本头用于解码时选择编解码器，取值 1~127。
+	 * 内置实现：{@link BinaryCacheCodec} 为 1，{@link FastjsonCacheCodec} 为 2
+	 *
+	 * @return 编解码器标识
+	 */
+	byte getId();
+
+	/**
+	 * 编码
+	 *
+	 * @param value 缓存值
+	 *
+	 * @return 编码结果
+	 *
+	 * @throws IOException 不支持的类型或编码失败
+	 */
+	byte[] encode(Object value) throws IOException;
+
+	/**
+	 * 解码
+	 *
+	 * @param data   编码结果所在的字节数组
+	 * @param offset 起始位置
+	 * @param length 长度
+	 *
+	 * @return 缓存值
+	 *
+	 * @throws IOException 数据格式错误
+	 */
+	Object decode(byte[] data, int offset, int length) throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.cloudin.commons.langs.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link MemcachedTemplate#getOrLoad} 写入 memcached 的值，附带加载耗时和过期时间，用于过期前概率性提前刷新（XFetch）
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 01:00
+ */
+class CacheEntry implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final Object value;
+	
+	/**
+	 * 加载耗时，单位：毫秒
+	 */
+	private final long delta;
+	
+	/**
+	 * 过期时间戳，单位：毫秒
+	 */
+	private final long expireAt;
+	
+	CacheEntry(Object value, long delta, long expireAt) {
+		this.value = value;
+		this.delta = delta;
+		this.expireAt = expireAt;
+	}
+	
+	Object getValue() {
+		return value;
+	}
+	
+	long getDelta() {
+		return delta;
+	}
+	
+	long getExpireAt() {
+		return expireAt;
+	}
+	
+	/**
+	 * 是否应当提前刷新：now - delta * beta * ln(random) >= expireAt，
+	 * 越接近过期、加载越慢，提前刷新的概率越大
+	 *
+	 * @param beta 提前刷新系数，越大越早刷新，0 表示不提前刷新
+	 */
+	boolean shouldRefresh(double beta) {
+		if (beta <= 0 || expireAt == Long.MAX_VALUE) {
+			return false;
+		}
+		double gap = -delta * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+		return System.currentTimeMillis() + gap >= expireAt;
+	}
+	
+	/**
+	 * 解除包装，非 CacheEntry 的值原样返回
+	 */
+	static Object unwrap(Object value) {
+		return value instanceof CacheEntry ? ((CacheEntry) value).value : value;
+	}
+}
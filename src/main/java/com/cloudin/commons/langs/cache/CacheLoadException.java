@@ -0,0 +1,14 @@
+package com.cloudin.commons.langs.cache;
+
+/**
+ * {@link MemcachedTemplate#getOrLoad} 中加载函数执行失败或等待加载结果被中断
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 01:00
+ */
+public class CacheLoadException extends RuntimeException {
+	
+	public CacheLoadException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,230 @@
+package com.cloudin.commons.langs.cache;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 基于 {@link CacheCodec} 的 memcached 值转换器。
+ * <p>
+ * 编码格式：1 字节格式版本 + 1 字节编解码器标识 + 1 字节标志位（LZ4 压缩、{@link CacheEntry} 包装）
+ * [+ 16 字节加载耗时和过期时间] [+ 4 字节压缩前长度] + 编码结果，并在 memcached flags 中设置 {@link #FLAG}。
+ * <ul>
+ * <li>解码时按版本头中的标识选择编解码器，切换编解码器时新旧数据可以共存</li>
+ * <li>不带 {@link #FLAG} 的旧数据使用 {@link SerializingTranscoder}（java 序列化）解码</li>
+ * <li>未知版本、未知编解码器或格式错误的数据视为未命中，滚动升级期间旧版本节点同样把新格式数据视为未命中</li>
+ * </ul>
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 01:30
+ */
+public class CodecTranscoder implements Transcoder<Object> {
+
+	private static final Logger logger = LoggerFactory.getLogger(CodecTranscoder.class);
+
+	/**
+	 * memcached flags 标志位，{@link SerializingTranscoder} 无法识别该标志位，会将数据视为未命中
+	 */
+	public static final int FLAG = 0x4000;
+
+	/**
+	 * 当前的格式版本
+	 */
+	public static final byte FORMAT_VERSION = 1;
+
+	/**
+	 * 默认的压缩阈值，单位：字节
+	 */
+	public static final int DEFAULT_COMPRESSION_THRESHOLD = 16 * 1024;
+
+	private static final int HEADER_LENGTH = 3;
+
+	private static final byte COMPRESSED = 1;
+
+	private static final byte WRAPPED = 1 << 1;
+
+	private static final LZ4Compressor       COMPRESSOR   = LZ4Factory.fastestInstance().fastCompressor();
+	private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+	private final CacheCodec codec;
+
+	/**
+	 * 可解码的编解码器，下标为编解码器标识
+	 */
+	private final CacheCodec[] codecs = new CacheCodec[128];
+
+	private final SerializingTranscoder legacyTranscoder = new SerializingTranscoder();
+
+	/**
+	 * 编码结果不小于该值时使用 LZ4 压缩，小于等于 0 时不压缩
+	 */
+	private volatile int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+	/**
+	 * @param codec 编码使用的编解码器，内置编解码器均可解码。
+	 *              默认注册的 {@link FastjsonCacheCodec} 不允许任何类，解码 fastjson 数据需要传入或注册配置了允许类的实例
+	 */
+	public CodecTranscoder(CacheCodec codec) {
+		this.codec = codec;
+		register(new BinaryCacheCodec());
+		register(new FastjsonCacheCodec());
+		register(codec);
+	}
+
+	/**
+	 * 注册用于解码的编解码器，标识相同时覆盖
+	 *
+	 * @param codec 编解码器
+	 */
+	public void register(CacheCodec codec) {
+		if (codec.getId() <= 0) {
+			throw new IllegalArgumentException("codec id must be in 1~127: " + codec.getId());
+		}
+		codecs[codec.getId()] = codec;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	@Override
+	public boolean asyncDecode(CachedData d) {
+		return false;
+	}
+
+	@Override
+	public CachedData encode(Object o) {
+		CacheEntry entry = o instanceof CacheEntry ? (CacheEntry) o : null;
+		byte[] payload;
+		try {
+			payload = codec.encode(entry == null ? o : entry.getValue());
+		} catch (IOException e) {
+			throw new IllegalArgumentException("encode " + o.getClass().getName() + " failed", e);
+		}
+		byte flags = entry == null ? 0 : WRAPPED;
+		int originalLength = payload.length;
+		int threshold = compressionThreshold;
+		if (threshold > 0 && payload.length >= threshold) {
+			byte[] compressed = COMPRESSOR.compress(payload);
+			// 压缩效果不明显时保存原文，解压也有开销
+			if (compressed.length + 4 < payload.length) {
+				payload = compressed;
+				flags |= COMPRESSED;
+			}
+		}
+		int length = HEADER_LENGTH + payload.length;
+		if (entry != null) {
+			length += 16;
+		}
+		if ((flags & COMPRESSED) != 0) {
+			length += 4;
+		}
+		byte[] data = new byte[length];
+		data[0] = FORMAT_VERSION;
+		data[1] = codec.getId();
+		data[2] = flags;
+		int pos = HEADER_LENGTH;
+		if (entry != null) {
+			pos = writeLong(data, pos, entry.getDelta());
+			pos = writeLong(data, pos, entry.getExpireAt());
+		}
+		if ((flags & COMPRESSED) != 0) {
+			pos = writeInt(data, pos, originalLength);
+		}
+		System.arraycopy(payload, 0, data, pos, payload.length);
+		return new CachedData(FLAG, data, getMaxSize());
+	}
+
+	@Override
+	public Object decode(CachedData d) {
+		if ((d.getFlags() & FLAG) == 0) {
+			return legacyTranscoder.decode(d);
+		}
+		byte[] data = d.getData();
+		try {
+			if (data.length < HEADER_LENGTH || data[0] != FORMAT_VERSION) {
+				logger.warn("unsupported cache data format version {}", data.length == 0 ? -1 : data[0]);
+				return null;
+			}
+			CacheCodec decoder = data[1] > 0 ? codecs[data[1]] : null;
+			if (decoder == null) {
+				logger.warn("unknown cache codec {}", data[1]);
+				return null;
+			}
+			byte flags = data[2];
+			int pos = HEADER_LENGTH;
+			long delta = 0;
+			long expireAt = 0;
+			if ((flags & WRAPPED) != 0) {
+				delta = readLong(data, pos);
+				expireAt = readLong(data, pos + 8);
+				pos += 16;
+			}
+			Object value;
+			if ((flags & COMPRESSED) != 0) {
+				int originalLength = readInt(data, pos);
+				pos += 4;
+				byte[] payload = new byte[originalLength];
+				DECOMPRESSOR.decompress(data, pos, payload, 0, originalLength);
+				value = decoder.decode(payload, 0, originalLength);
+			} else {
+				value = decoder.decode(data, pos, data.length - pos);
+			}
+			return (flags & WRAPPED) != 0 ? new CacheEntry(value, delta, expireAt) : value;
+		} catch (IOException | RuntimeException e) {
+			logger.warn("decode cache data failed", e);
+			return null;
+		}
+	}
+
+	@Override
+	public int getMaxSize() {
+		return CachedData.MAX_SIZE;
+	}
+
+	private static int writeLong(byte[] data, int pos, long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			data[pos++] = (byte) (value >>> shift);
+		}
+		return pos;
+	}
+
+	private static int writeInt(byte[] data, int pos, int value) {
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			data[pos++] = (byte) (value >>> shift);
+		}
+		return pos;
+	}
+
+	private static long readLong(byte[] data, int pos) throws IOException {
+		if (data.length - pos < 8) {
+			throw new IOException("malformed cache data");
+		}
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (data[pos + i] & 0xFF);
+		}
+		return value;
+	}
+
+	private static int readInt(byte[] data, int pos) throws IOException {
+		if (data.length - pos < 4) {
+			throw new IOException("malformed cache data");
+		}
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			value = (value << 8) | (data[pos + i] & 0xFF);
+		}
+		if (value < 0 || value > CachedData.MAX_SIZE * 8) {
+			throw new IOException("malformed cache data");
+		}
+		return value;
+	}
+}
@@ -0,0 +1,111 @@
+package com.cloudin.commons.langs.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * fastjson 编解码器，适合 POJO 类型的缓存值：编码结果为 值的类名 + json。
+ * <p>
+ * 解码时按类名反序列化顶层对象，泛型集合中的元素会被解码为 {@link com.alibaba.fastjson.JSONObject}，
+ * 集合类缓存值建议使用 {@link BinaryCacheCodec}。
+ * <p>
+ * 类名来自缓存数据，指定类型反序列化不经过 fastjson 的 autoType 黑名单，能写入 memcached 的人可借此调用任意类的 setter。
+ * 因此只编解码 {@link #addAccept(String) 允许的类}，其它类解码失败（视为未命中），编码时抛出异常
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 01:30
+ */
+public class FastjsonCacheCodec implements CacheCodec {
+
+	public static final byte ID = 2;
+
+	/**
+	 * 允许的完整类名或以 . 结尾的包名前缀
+	 */
+	private final List<String> accepts = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param accepts 允许的完整类名或以 . 结尾的包名前缀，如 com.cloudin.
+	 */
+	public FastjsonCacheCodec(String... accepts) {
+		this.accepts.addAll(Arrays.asList(accepts));
+	}
+
+	/**
+	 * 添加允许编解码的类
+	 *
+	 * @param accept 完整类名或以 . 结尾的包名前缀，如 com.cloudin.
+	 */
+	public void addAccept(String accept) {
+		accepts.add(accept);
+	}
+
+	/**
+	 * @return 类名是否在允许的范围内
+	 */
+	public boolean isAccepted(String className) {
+		for (String accept : accepts) {
+			if (className.equals(accept) || (accept.endsWith(".") && className.startsWith(accept))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public byte[] encode(Object value) throws IOException {
+		if (value == null) {
+			throw new IOException("null value");
+		}
+		if (!isAccepted(value.getClass().getName())) {
+			throw new IOException("class not accepted: " + value.getClass().getName());
+		}
+		byte[] className = value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+		byte[] json = JSON.toJSONBytes(value, SerializerFeature.DisableCircularReferenceDetect);
+		byte[] res = new byte[2 + className.length + json.length];
+		res[0] = (byte) (className.length >>> 8);
+		res[1] = (byte) className.length;
+		System.arraycopy(className, 0, res, 2, className.length);
+		System.arraycopy(json, 0, res, 2 + className.length, json.length);
+		return res;
+	}
+
+	@Override
+	public Object decode(byte[] data, int offset, int length) throws IOException {
+		if (length < 2) {
+			throw new IOException("malformed data");
+		}
+		int classNameLength = ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+		if (length < 2 + classNameLength) {
+			throw new IOException("malformed data");
+		}
+		String className = new String(data, offset + 2, classNameLength, StandardCharsets.UTF_8);
+		if (!isAccepted(className)) {
+			throw new IOException("class not accepted: " + className);
+		}
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if (classLoader == null) {
+			classLoader = FastjsonCacheCodec.class.getClassLoader();
+		}
+		Class<?> clazz;
+		try {
+			clazz = Class.forName(className, false, classLoader);
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+		int jsonOffset = offset + 2 + classNameLength;
+		String json = new String(data, jsonOffset, offset + length - jsonOffset, StandardCharsets.UTF_8);
+		return JSON.parseObject(json, clazz);
+	}
+}
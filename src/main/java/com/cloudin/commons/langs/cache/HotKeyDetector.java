@@ -0,0 +1,319 @@
+package com.cloudin.commons.langs.cache;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点 key 探测：用 count-min sketch 估计每个 key 在当前时间窗口内的访问次数，用小顶堆维护访问最多的 K 个 key。
+ * 进入 top-K 且访问次数达到阈值的 key 判定为热点，由短过期时间的本地副本提供服务，分担单个 memcached 节点的压力。
+ * <p>
+ * 每个时间窗口结束时所有计数减半，使统计结果反映最近的访问情况。
+ * 记录一次访问为 4 次原子自增，已是热点的 key 无锁更新次数，只有非热点 key 的估计次数超过 top-K 中最小值时才会加锁。
+ * 可通过 {@link #registerMBean(String)} 注册为 JMX MBean 查看热点分布
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 02:40
+ */
+public class HotKeyDetector implements HotKeyDetectorMBean {
+
+	private static final int DEPTH = 4;
+
+	/**
+	 * count-min sketch 计数器，DEPTH 行，每行 width 个
+	 */
+	private final AtomicIntegerArray counters;
+
+	private final int widthMask;
+
+	private final int topK;
+
+	private final int threshold;
+
+	private final long windowMillis;
+
+	private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+
+	/**
+	 * 访问次数最多的 K 个 key，堆顶为其中次数最少的
+	 */
+	private final PriorityQueue<HotKey> heap = new PriorityQueue<>(Comparator.comparingLong(hotKey -> hotKey.count));
+
+	private final Map<String, HotKey> heapIndex = new HashMap<>();
+
+	/**
+	 * top-K 已满时堆顶的次数，估计次数不超过该值的访问无需加锁
+	 */
+	private volatile long heapMin;
+
+	/**
+	 * 当前的热点 key 快照，发布后不再修改，读多写少
+	 */
+	private volatile Map<String, HotKey> hotKeys = new HashMap<>();
+
+	private final NearCache replica;
+
+	private final LongAdder accessCount = new LongAdder();
+
+	public HotKeyDetector() {
+		this(4096, 32, 1000, 1000, 1000);
+	}
+
+	/**
+	 * @param width         count-min sketch 每行的计数器数量，向上取整为 2 的幂
+	 * @param topK          维护的热点候选数量
+	 * @param threshold     时间窗口内访问次数达到该值才判定为热点
+	 * @param windowMillis  时间窗口，单位：毫秒，每个窗口结束时计数减半
+	 * @param replicaMillis 本地副本的过期时间，单位：毫秒
+	 */
+	public HotKeyDetector(int width, int topK, int threshold, long windowMillis, long replicaMillis) {
+		int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+		this.counters = new AtomicIntegerArray(DEPTH * size);
+		this.widthMask = size - 1;
+		this.topK = topK;
+		this.threshold = threshold;
+		this.windowMillis = windowMillis;
+		this.replica = new NearCache(topK * 2L, replicaMillis);
+	}
+
+	/**
+	 * 记录一次访问
+	 *
+	 * @param key 缓存主键
+	 *
+	 * @return 该 key 是否为热点
+	 */
+	public boolean record(String key) {
+		accessCount.increment();
+		ageIfNeeded();
+		// 由 128 位 MurmurHash3 的两个 64 位结果派生各行的位置：h1 + row * h2，
+		// hashCode 相同的 key 不会在每一行都冲突；h2 取奇数保证各行位置互不相同
+		byte[] hash = KeyEncoder.murmur3(key);
+		long h1 = getLongBE(hash, 0);
+		long h2 = getLongBE(hash, 8) | 1;
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < DEPTH; row++) {
+			int index = row * (widthMask + 1) + ((int) (h1 + row * h2) & widthMask);
+			estimate = Math.min(estimate, counters.incrementAndGet(index));
+		}
+		HotKey hotKey = hotKeys.get(key);
+		if (hotKey != null) {
+			// 只更新次数，堆的顺序在下次加锁时重建
+			if (estimate > hotKey.count) {
+				hotKey.count = estimate;
+			}
+			return true;
+		}
+		if (estimate >= threshold && estimate > heapMin) {
+			offer(key, estimate);
+		}
+		return hotKeys.containsKey(key);
+	}
+
+	/**
+	 * @param key 缓存主键
+	 *
+	 * @return 该 key 当前是否为热点
+	 */
+	public boolean isHot(String key) {
+		return hotKeys.containsKey(key);
+	}
+
+	/**
+	 * 热点 key 的本地副本
+	 */
+	public NearCache getReplica() {
+		return replica;
+	}
+
+	/**
+	 * 访问次数最多的 key，按估计次数降序
+	 *
+	 * @return key 与当前窗口内的估计访问次数
+	 */
+	public synchronized List<Map.Entry<String, Long>> getTopKeyCounts() {
+		List<Map.Entry<String, Long>> res = new ArrayList<>(heap.size());
+		for (HotKey hotKey : heap) {
+			res.add(new AbstractMap.SimpleImmutableEntry<>(hotKey.key, hotKey.count));
+		}
+		res.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+		return res;
+	}
+
+	/**
+	 * 注册为 JMX MBean
+	 *
+	 * @param name MBean 名称，如缓存所属的应用
+	 *
+	 * @return 注册的 ObjectName
+	 *
+	 * @throws JMException 注册失败
+	 */
+	public ObjectName registerMBean(String name) throws JMException {
+		ObjectName objectName = new ObjectName("com.cloudin.commons.langs:type=HotKeyDetector,name=" + name);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName)) {
+			server.unregisterMBean(objectName);
+		}
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+
+	@Override
+	public String[] getTopKeys() {
+		List<Map.Entry<String, Long>> topKeys = getTopKeyCounts();
+		String[] res = new String[topKeys.size()];
+		for (int i = 0; i < res.length; i++) {
+			res[i] = topKeys.get(i).getKey() + "=" + topKeys.get(i).getValue();
+		}
+		return res;
+	}
+
+	@Override
+	public int getHotKeyCount() {
+		return hotKeys.size();
+	}
+
+	@Override
+	public long getAccessCount() {
+		return accessCount.sum();
+	}
+
+	@Override
+	public long getReplicaHitCount() {
+		return replica.getHitCount();
+	}
+
+	@Override
+	public long getReplicaMissCount() {
+		return replica.getMissCount();
+	}
+
+	@Override
+	public synchronized void reset() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.set(i, 0);
+		}
+		heap.clear();
+		heapIndex.clear();
+		heapMin = 0;
+		hotKeys = new HashMap<>();
+		replica.invalidateAll();
+		windowStart.set(System.currentTimeMillis());
+	}
+
+	/**
+	 * 更新 top-K
+	 */
+	private synchronized void offer(String key, long estimate) {
+		// 热点 key 的次数在锁外更新过，先重建堆
+		heap.clear();
+		heap.addAll(heapIndex.values());
+		HotKey hotKey = heapIndex.get(key);
+		if (hotKey != null) {
+			if (estimate <= hotKey.count) {
+				return;
+			}
+			heap.remove(hotKey);
+			hotKey.count = estimate;
+			heap.add(hotKey);
+		} else if (heap.size() < topK) {
+			hotKey = new HotKey(key, estimate);
+			heap.add(hotKey);
+			heapIndex.put(key, hotKey);
+		} else if (estimate > heap.peek().count) {
+			HotKey evicted = heap.poll();
+			heapIndex.remove(evicted.key);
+			hotKey = new HotKey(key, estimate);
+			heap.add(hotKey);
+			heapIndex.put(key, hotKey);
+		} else {
+			return;
+		}
+		heapMin = heap.size() < topK ? 0 : heap.peek().count;
+		publish();
+	}
+
+	/**
+	 * 窗口结束时所有计数减半，跌破阈值的 key 不再是热点
+	 */
+	private void ageIfNeeded() {
+		long start = windowStart.get();
+		long now = System.currentTimeMillis();
+		if (now - start < windowMillis || !windowStart.compareAndSet(start, now)) {
+			return;
+		}
+		for (int i = 0; i < counters.length(); i++) {
+			int value = counters.get(i);
+			if (value != 0) {
+				// 并发自增时可能丢失少量计数，对估计结果影响可以忽略
+				counters.set(i, value >>> 1);
+			}
+		}
+		synchronized (this) {
+			List<HotKey> remaining = new ArrayList<>(heap.size());
+			for (HotKey hotKey : heap) {
+				hotKey.count >>>= 1;
+				if (hotKey.count > 0) {
+					remaining.add(hotKey);
+				} else {
+					heapIndex.remove(hotKey.key);
+				}
+			}
+			heap.clear();
+			heap.addAll(remaining);
+			heapMin = heap.size() < topK ? 0 : heap.peek().count;
+			publish();
+		}
+	}
+
+	/**
+	 * 发布新的热点快照，不再是热点的 key 从本地副本中移除
+	 */
+	private void publish() {
+		Map<String, HotKey> newHotKeys = new HashMap<>();
+		for (HotKey hotKey : heap) {
+			if (hotKey.count >= threshold) {
+				newHotKeys.put(hotKey.key, hotKey);
+			}
+		}
+		Map<String, HotKey> oldHotKeys = hotKeys;
+		hotKeys = newHotKeys;
+		for (String key : oldHotKeys.keySet()) {
+			if (!newHotKeys.containsKey(key)) {
+				replica.invalidate(key);
+			}
+		}
+	}
+
+	private static long getLongBE(byte[] bytes, int offset) {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+	private static class HotKey {
+
+		private final String key;
+
+		private volatile long count;
+
+		HotKey(String key, long count) {
+			this.key = key;
+			this.count = count;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.cloudin.commons.langs.cache;
+
+/**
+ * {@link HotKeyDetector} 的 JMX 接口
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 02:40
+ */
+public interface HotKeyDetectorMBean {
+
+	/**
+	 * @return 访问频率最高的 key 及当前窗口内的估计访问次数，格式为 key=次数，按次数降序
+	 */
+	String[] getTopKeys();
+
+	/**
+	 * @return 当前被判定为热点、由本地副本提供服务的 key 数量
+	 */
+	int getHotKeyCount();
+
+	/**
+	 * @return 累计记录的访问次数
+	 */
+	long getAccessCount();
+
+	/**
+	 * @return 本地副本的命中次数
+	 */
+	long getReplicaHitCount();
+
+	/**
+	 * @return 本地副本的未命中次数
+	 */
+	long getReplicaMissCount();
+
+	/**
+	 * 清空频率统计和本地副本
+	 */
+	void reset();
+}
@@ -0,0 +1,1183 @@
+package com.cloudin.commons.langs.cache;
+
+import net.spy.memcached.BroadcastOpFactory;
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.CachedData;
+import net.spy.memcached.ConnectionObserver;
+import net.spy.memcached.MemcachedClientIF;
+import net.spy.memcached.MemcachedNode;
+import net.spy.memcached.NodeLocator;
+import net.spy.memcached.OperationTimeoutException;
+import net.spy.memcached.internal.BulkFuture;
+import net.spy.memcached.internal.BulkGetCompletionListener;
+import net.spy.memcached.internal.BulkGetFuture;
+import net.spy.memcached.internal.OperationFuture;
+import net.spy.memcached.ops.OperationStatus;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的 {@link MemcachedClientIF} 实现，用于在没有 memcached 服务的环境下进行压测、基准测试和集成测试。
+ * <p>
+ * 与 memcached 的语义保持一致：过期时间不超过 30 天时为相对秒数、超过时为 unix 时间戳、负数立即过期；
+ * add 只在 key 不存在时写入，replace 只在 key 存在时写入；支持 cas、touch、incr/decr、append/prepend；
+ * 值按转换器编码后保存，读取时重新解码，与真实客户端一样每次返回新的对象。
+ * <p>
+ * 可通过 {@link #setLatencyMicros(long)}、{@link #setJitterMicros(long)} 模拟网络往返耗时，
+ * 通过 {@link #setFailureRate(double)} 按比例注入失败：同步操作在等待延迟后返回或抛出 {@link OperationTimeoutException}；
+ * 异步操作的写入立即生效，返回的 future 在延迟后完成，注入失败时 future 以 {@link OperationTimeoutException} 异常完成且不写入。
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 03:10
+ */
+public class InMemoryMemcachedClient implements MemcachedClientIF {
+
+	/**
+	 * 过期时间超过该秒数时视为 unix 时间戳
+	 */
+	private static final int MAX_RELATIVE_EXPIRE = 60 * 60 * 24 * 30;
+
+	/**
+	 * 与默认连接工厂的操作超时一致，单位：毫秒
+	 */
+	private static final long OPERATION_TIMEOUT = 2500;
+
+	private static final SocketAddress ADDRESS = InetSocketAddress.createUnresolved("in-memory", 11211);
+
+	private final ConcurrentMap<String, Item> items = new ConcurrentHashMap<>();
+
+	private final AtomicLong casSequence = new AtomicLong();
+
+	private final Transcoder<Object> transcoder;
+
+	private final ScheduledExecutorService scheduler;
+
+	private volatile long latencyNanos;
+
+	private volatile long jitterNanos;
+
+	private volatile double failureRate;
+
+	private volatile boolean shutdown;
+
+	private final LongAdder roundTrips = new LongAdder();
+
+	private final LongAdder getHits = new LongAdder();
+
+	private final LongAdder getMisses = new LongAdder();
+
+	private final LongAdder sets = new LongAdder();
+
+	private final LongAdder touches = new LongAdder();
+
+	private final LongAdder failures = new LongAdder();
+
+	public InMemoryMemcachedClient() {
+		this(new SerializingTranscoder());
+	}
+
+	/**
+	 * @param transcoder 默认的转换器
+	 */
+	public InMemoryMemcachedClient(Transcoder<Object> transcoder) {
+		this.transcoder = transcoder;
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "in-memory-memcached");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		this.scheduler = executor;
+	}
+
+	/**
+	 * 每次请求模拟的网络往返耗时，默认为 0
+	 *
+	 * @param latencyMicros 单位：微秒
+	 */
+	public void setLatencyMicros(long latencyMicros) {
+		this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+	}
+
+	/**
+	 * 在往返耗时的基础上随机增加 [0, jitterMicros) 的耗时，默认为 0
+	 *
+	 * @param jitterMicros 单位：微秒
+	 */
+	public void setJitterMicros(long jitterMicros) {
+		this.jitterNanos = TimeUnit.MICROSECONDS.toNanos(jitterMicros);
+	}
+
+	/**
+	 * 请求失败的比例，默认为 0，为 1 时模拟节点不可用
+	 *
+	 * @param failureRate 0 ~ 1
+	 */
+	public void setFailureRate(double failureRate) {
+		if (failureRate < 0 || failureRate > 1) {
+			throw new IllegalArgumentException("failureRate must be between 0 and 1");
+		}
+		this.failureRate = failureRate;
+	}
+
+	/**
+	 * @return 累计的请求次数，批量读取计为一次
+	 */
+	public long getRoundTrips() {
+		return roundTrips.sum();
+	}
+
+	/**
+	 * @return 累计的读取命中次数，批量读取按 key 计数
+	 */
+	public long getHitCount() {
+		return getHits.sum();
+	}
+
+	/**
+	 * @return 累计的读取未命中次数，批量读取按 key 计数
+	 */
+	public long getMissCount() {
+		return getMisses.sum();
+	}
+
+	/**
+	 * @return 累计注入的失败次数
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * @return 未过期的数据条数，同时清理已过期的数据
+	 */
+	public int getItemCount() {
+		long now = System.currentTimeMillis();
+		items.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+		return items.size();
+	}
+
+	/**
+	 * 清空数据和统计，不改变延迟和失败比例的设置
+	 */
+	public void reset() {
+		items.clear();
+		roundTrips.reset();
+		getHits.reset();
+		getMisses.reset();
+		sets.reset();
+		touches.reset();
+		failures.reset();
+	}
+
+	@Override
+	public Collection<SocketAddress> getAvailableServers() {
+		return shutdown ? Collections.emptyList() : Collections.singletonList(ADDRESS);
+	}
+
+	@Override
+	public Collection<SocketAddress> getUnavailableServers() {
+		return shutdown ? Collections.singletonList(ADDRESS) : Collections.emptyList();
+	}
+
+	@Override
+	public Transcoder<Object> getTranscoder() {
+		return transcoder;
+	}
+
+	@Override
+	public NodeLocator getNodeLocator() {
+		throw new UnsupportedOperationException("getNodeLocator");
+	}
+
+	@Override
+	public Future<Boolean> append(long cas, String key, Object val) {
+		return append(key, val, transcoder);
+	}
+
+	@Override
+	public Future<Boolean> append(String key, Object val) {
+		return append(key, val, transcoder);
+	}
+
+	@Override
+	public <T> Future<Boolean> append(long cas, String key, T val, Transcoder<T> tc) {
+		return append(key, val, tc);
+	}
+
+	@Override
+	public <T> Future<Boolean> append(String key, T val, Transcoder<T> tc) {
+		return async(() -> concat(key, tc.encode(val).getData(), true));
+	}
+
+	@Override
+	public Future<Boolean> prepend(long cas, String key, Object val) {
+		return prepend(key, val, transcoder);
+	}
+
+	@Override
+	public Future<Boolean> prepend(String key, Object val) {
+		return prepend(key, val, transcoder);
+	}
+
+	@Override
+	public <T> Future<Boolean> prepend(long cas, String key, T val, Transcoder<T> tc) {
+		return prepend(key, val, tc);
+	}
+
+	@Override
+	public <T> Future<Boolean> prepend(String key, T val, Transcoder<T> tc) {
+		return async(() -> concat(key, tc.encode(val).getData(), false));
+	}
+
+	@Override
+	public <T> Future<CASResponse> asyncCAS(String key, long casId, T value, Transcoder<T> tc) {
+		return asyncCAS(key, casId, 0, value, tc);
+	}
+
+	@Override
+	public Future<CASResponse> asyncCAS(String key, long casId, Object value) {
+		return asyncCAS(key, casId, 0, value, transcoder);
+	}
+
+	@Override
+	public Future<CASResponse> asyncCAS(String key, long casId, int exp, Object value) {
+		return asyncCAS(key, casId, exp, value, transcoder);
+	}
+
+	@Override
+	public <T> OperationFuture<CASResponse> asyncCAS(String key, long casId, int exp, T value, Transcoder<T> tc) {
+		checkState();
+		roundTrips.increment();
+		InMemoryOperationFuture<CASResponse> future = new InMemoryOperationFuture<>(key, scheduler);
+		if (shouldFail()) {
+			OperationTimeoutException failure = failure();
+			schedule(() -> future.fail(failure));
+		} else {
+			CASResponse res = compareAndSet(key, casId, exp, tc.encode(value));
+			schedule(() -> future.complete(res, new OperationStatus(res == CASResponse.OK, res.name())));
+		}
+		return future;
+	}
+
+	@Override
+	public <T> CASResponse cas(String key, long casId, int exp, T value, Transcoder<T> tc) {
+		return sync(() -> compareAndSet(key, casId, exp, tc.encode(value)));
+	}
+
+	@Override
+	public CASResponse cas(String key, long casId, Object value) {
+		return cas(key, casId, 0, value, transcoder);
+	}
+
+	@Override
+	public CASResponse cas(String key, long casId, int exp, Object value) {
+		return cas(key, casId, exp, value, transcoder);
+	}
+
+	@Override
+	public <T> CASResponse cas(String key, long casId, T value, Transcoder<T> tc) {
+		return cas(key, casId, 0, value, tc);
+	}
+
+	@Override
+	public <T> Future<Boolean> add(String key, int exp, T o, Transcoder<T> tc) {
+		return async(() -> store(key, exp, tc.encode(o), StoreMode.ADD));
+	}
+
+	@Override
+	public Future<Boolean> add(String key, int exp, Object o) {
+		return add(key, exp, o, transcoder);
+	}
+
+	@Override
+	public <T> Future<Boolean> set(String key, int exp, T o, Transcoder<T> tc) {
+		return async(() -> store(key, exp, tc.encode(o), StoreMode.SET));
+	}
+
+	@Override
+	public Future<Boolean> set(String key, int exp, Object o) {
+		return set(key, exp, o, transcoder);
+	}
+
+	@Override
+	public <T> Future<Boolean> replace(String key, int exp, T o, Transcoder<T> tc) {
+		return async(() -> store(key, exp, tc.encode(o), StoreMode.REPLACE));
+	}
+
+	@Override
+	public Future<Boolean> replace(String key, int exp, Object o) {
+		return replace(key, exp, o, transcoder);
+	}
+
+	@Override
+	public <T> Future<T> asyncGet(String key, Transcoder<T> tc) {
+		return async(() -> decode(read(key), tc));
+	}
+
+	@Override
+	public Future<Object> asyncGet(String key) {
+		return asyncGet(key, transcoder);
+	}
+
+	@Override
+	public Future<CASValue<Object>> asyncGetAndTouch(String key, int exp) {
+		return asyncGetAndTouch(key, exp, transcoder);
+	}
+
+	@Override
+	public <T> Future<CASValue<T>> asyncGetAndTouch(String key, int exp, Transcoder<T> tc) {
+		return async(() -> casValue(readAndTouch(key, exp), tc));
+	}
+
+	@Override
+	public CASValue<Object> getAndTouch(String key, int exp) {
+		return getAndTouch(key, exp, transcoder);
+	}
+
+	@Override
+	public <T> CASValue<T> getAndTouch(String key, int exp, Transcoder<T> tc) {
+		return sync(() -> casValue(readAndTouch(key, exp), tc));
+	}
+
+	@Override
+	public <T> Future<CASValue<T>> asyncGets(String key, Transcoder<T> tc) {
+		return async(() -> casValue(read(key), tc));
+	}
+
+	@Override
+	public Future<CASValue<Object>> asyncGets(String key) {
+		return asyncGets(key, transcoder);
+	}
+
+	@Override
+	public <T> CASValue<T> gets(String key, Transcoder<T> tc) {
+		return sync(() -> casValue(read(key), tc));
+	}
+
+	@Override
+	public CASValue<Object> gets(String key) {
+		return gets(key, transcoder);
+	}
+
+	@Override
+	public <T> T get(String key, Transcoder<T> tc) {
+		return sync(() -> decode(read(key), tc));
+	}
+
+	@Override
+	public Object get(String key) {
+		return get(key, transcoder);
+	}
+
+	@Override
+	public <T> BulkFuture<Map<String, T>> asyncGetBulk(Iterator<String> keys, Iterator<Transcoder<T>> tcs) {
+		checkState();
+		roundTrips.increment();
+		InMemoryBulkFuture<T> future = new InMemoryBulkFuture<>(scheduler);
+		if (shouldFail()) {
+			schedule(() -> future.completeExceptionally(failure()));
+		} else {
+			Map<String, T> res = readBulk(keys, tcs);
+			schedule(() -> future.complete(res));
+		}
+		return future;
+	}
+
+	@Override
+	public <T> BulkFuture<Map<String, T>> asyncGetBulk(Collection<String> keys, Iterator<Transcoder<T>> tcs) {
+		return asyncGetBulk(keys.iterator(), tcs);
+	}
+
+	@Override
+	public <T> BulkFuture<Map<String, T>> asyncGetBulk(Iterator<String> keys, Transcoder<T> tc) {
+		return asyncGetBulk(keys, repeat(tc));
+	}
+
+	@Override
+	public <T> BulkFuture<Map<String, T>> asyncGetBulk(Collection<String> keys, Transcoder<T> tc) {
+		return asyncGetBulk(keys.iterator(), repeat(tc));
+	}
+
+	@Override
+	public BulkFuture<Map<String, Object>> asyncGetBulk(Iterator<String> keys) {
+		return asyncGetBulk(keys, repeat(transcoder));
+	}
+
+	@Override
+	public BulkFuture<Map<String, Object>> asyncGetBulk(Collection<String> keys) {
+		return asyncGetBulk(keys.iterator(), repeat(transcoder));
+	}
+
+	@Override
+	public <T> BulkFuture<Map<String, T>> asyncGetBulk(Transcoder<T> tc, String... keys) {
+		return asyncGetBulk(Arrays.asList(keys).iterator(), repeat(tc));
+	}
+
+	@Override
+	public BulkFuture<Map<String, Object>> asyncGetBulk(String... keys) {
+		return asyncGetBulk(Arrays.asList(keys).iterator(), repeat(transcoder));
+	}
+
+	@Override
+	public <T> Map<String, T> getBulk(Iterator<String> keys, Transcoder<T> tc) {
+		return sync(() -> readBulk(keys, repeat(tc)));
+	}
+
+	@Override
+	public <T> Map<String, T> getBulk(Collection<String> keys, Transcoder<T> tc) {
+		return getBulk(keys.iterator(), tc);
+	}
+
+	@Override
+	public Map<String, Object> getBulk(Iterator<String> keys) {
+		return getBulk(keys, transcoder);
+	}
+
+	@Override
+	public Map<String, Object> getBulk(Collection<String> keys) {
+		return getBulk(keys.iterator(), transcoder);
+	}
+
+	@Override
+	public <T> Map<String, T> getBulk(Transcoder<T> tc, String... keys) {
+		return getBulk(Arrays.asList(keys).iterator(), tc);
+	}
+
+	@Override
+	public Map<String, Object> getBulk(String... keys) {
+		return getBulk(Arrays.asList(keys).iterator(), transcoder);
+	}
+
+	@Override
+	public <T> Future<Boolean> touch(String key, int exp, Transcoder<T> tc) {
+		return touch(key, exp);
+	}
+
+	@Override
+	public <T> Future<Boolean> touch(String key, int exp) {
+		return async(() -> readAndTouch(key, exp) != null);
+	}
+
+	@Override
+	public Map<SocketAddress, String> getVersions() {
+		return Collections.singletonMap(ADDRESS, "in-memory");
+	}
+
+	/**
+	 * @return curr_items、cmd_get、get_hits、get_misses、cmd_set、cmd_touch 及注入的失败次数 injected_failures
+	 */
+	@Override
+	public Map<SocketAddress, Map<String, String>> getStats() {
+		Map<String, String> stats = new LinkedHashMap<>();
+		stats.put("curr_items", String.valueOf(getItemCount()));
+		stats.put("cmd_get", String.valueOf(getHits.sum() + getMisses.sum()));
+		stats.put("get_hits", String.valueOf(getHits.sum()));
+		stats.put("get_misses", String.valueOf(getMisses.sum()));
+		stats.put("cmd_set", String.valueOf(sets.sum()));
+		stats.put("cmd_touch", String.valueOf(touches.sum()));
+		stats.put("injected_failures", String.valueOf(failures.sum()));
+		return Collections.singletonMap(ADDRESS, stats);
+	}
+
+	/**
+	 * 只支持通用统计，其他类型返回空的统计
+	 */
+	@Override
+	public Map<SocketAddress, Map<String, String>> getStats(String prefix) {
+		if (prefix == null || prefix.isEmpty()) {
+			return getStats();
+		}
+		return Collections.singletonMap(ADDRESS, Collections.emptyMap());
+	}
+
+	@Override
+	public long incr(String key, long by) {
+		return sync(() -> mutate(key, by, -1, 0, false));
+	}
+
+	@Override
+	public long incr(String key, int by) {
+		return incr(key, (long) by);
+	}
+
+	@Override
+	public long decr(String key, long by) {
+		return sync(() -> mutate(key, -by, -1, 0, false));
+	}
+
+	@Override
+	public long decr(String key, int by) {
+		return decr(key, (long) by);
+	}
+
+	@Override
+	public Future<Long> asyncIncr(String key, long by) {
+		return async(() -> mutate(key, by, -1, 0, false));
+	}
+
+	@Override
+	public Future<Long> asyncIncr(String key, int by) {
+		return asyncIncr(key, (long) by);
+	}
+
+	@Override
+	public Future<Long> asyncDecr(String key, long by) {
+		return async(() -> mutate(key, -by, -1, 0, false));
+	}
+
+	@Override
+	public Future<Long> asyncDecr(String key, int by) {
+		return asyncDecr(key, (long) by);
+	}
+
+	@Override
+	public long incr(String key, long by, long def, int exp) {
+		return sync(() -> mutate(key, by, def, exp, true));
+	}
+
+	@Override
+	public long incr(String key, int by, long def, int exp) {
+		return incr(key, (long) by, def, exp);
+	}
+
+	@Override
+	public long decr(String key, long by, long def, int exp) {
+		return sync(() -> mutate(key, -by, def, exp, true));
+	}
+
+	@Override
+	public long decr(String key, int by, long def, int exp) {
+		return decr(key, (long) by, def, exp);
+	}
+
+	@Override
+	public Future<Long> asyncIncr(String key, long by, long def, int exp) {
+		return async(() -> mutate(key, by, def, exp, true));
+	}
+
+	@Override
+	public Future<Long> asyncIncr(String key, int by, long def, int exp) {
+		return asyncIncr(key, (long) by, def, exp);
+	}
+
+	@Override
+	public Future<Long> asyncDecr(String key, long by, long def, int exp) {
+		return async(() -> mutate(key, -by, def, exp, true));
+	}
+
+	@Override
+	public Future<Long> asyncDecr(String key, int by, long def, int exp) {
+		return asyncDecr(key, (long) by, def, exp);
+	}
+
+	@Override
+	public long incr(String key, long by, long def) {
+		return incr(key, by, def, 0);
+	}
+
+	@Override
+	public long incr(String key, int by, long def) {
+		return incr(key, (long) by, def, 0);
+	}
+
+	@Override
+	public long decr(String key, long by, long def) {
+		return decr(key, by, def, 0);
+	}
+
+	@Override
+	public long decr(String key, int by, long def) {
+		return decr(key, (long) by, def, 0);
+	}
+
+	@Override
+	public Future<Long> asyncIncr(String key, long by, long def) {
+		return asyncIncr(key, by, def, 0);
+	}
+
+	@Override
+	public Future<Long> asyncIncr(String key, int by, long def) {
+		return asyncIncr(key, (long) by, def, 0);
+	}
+
+	@Override
+	public Future<Long> asyncDecr(String key, long by, long def) {
+		return asyncDecr(key, by, def, 0);
+	}
+
+	@Override
+	public Future<Long> asyncDecr(String key, int by, long def) {
+		return asyncDecr(key, (long) by, def, 0);
+	}
+
+	@Override
+	public Future<Boolean> delete(String key) {
+		return delete(key, 0L);
+	}
+
+	/**
+	 * @param cas 为 0 时不校验 cas
+	 */
+	@Override
+	public Future<Boolean> delete(String key, long cas) {
+		return async(() -> {
+			checkKey(key);
+			boolean[] deleted = new boolean[1];
+			items.computeIfPresent(key, (k, old) -> {
+				if (old.isExpired(System.currentTimeMillis())) {
+					return null;
+				}
+				if (cas != 0 && cas != old.cas) {
+					return old;
+				}
+				deleted[0] = true;
+				return null;
+			});
+			return deleted[0];
+		});
+	}
+
+	@Override
+	public Future<Boolean> flush(int delay) {
+		if (delay <= 0) {
+			return flush();
+		}
+		return async(() -> {
+			scheduler.schedule(items::clear, delay, TimeUnit.SECONDS);
+			return true;
+		});
+	}
+
+	@Override
+	public Future<Boolean> flush() {
+		return async(() -> {
+			items.clear();
+			return true;
+		});
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+		scheduler.shutdown();
+	}
+
+	@Override
+	public boolean shutdown(long timeout, TimeUnit unit) {
+		shutdown();
+		try {
+			return scheduler.awaitTermination(timeout, unit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Override
+	public boolean waitForQueues(long timeout, TimeUnit unit) {
+		return true;
+	}
+
+	/**
+	 * 没有网络连接，不会产生连接事件
+	 */
+	@Override
+	public boolean addObserver(ConnectionObserver obs) {
+		return false;
+	}
+
+	@Override
+	public boolean removeObserver(ConnectionObserver obs) {
+		return false;
+	}
+
+	@Override
+	public CountDownLatch broadcastOp(BroadcastOpFactory of) {
+		throw new UnsupportedOperationException("broadcastOp");
+	}
+
+	@Override
+	public CountDownLatch broadcastOp(BroadcastOpFactory of, Collection<MemcachedNode> nodes) {
+		throw new UnsupportedOperationException("broadcastOp");
+	}
+
+	@Override
+	public Set<String> listSaslMechanisms() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * 同步操作：等待往返耗时后执行，注入失败时抛出 {@link OperationTimeoutException}
+	 */
+	private <T> T sync(Supplier<T> operation) {
+		checkState();
+		roundTrips.increment();
+		long delay = delayNanos();
+		if (delay > 0) {
+			long deadline = System.nanoTime() + delay;
+			for (long remaining = delay; remaining > 0; remaining = deadline - System.nanoTime()) {
+				LockSupport.parkNanos(remaining);
+			}
+		}
+		if (shouldFail()) {
+			throw failure();
+		}
+		return operation.get();
+	}
+
+	/**
+	 * 异步操作：立即执行，返回的 future 在往返耗时后完成
+	 */
+	private <T> Future<T> async(Supplier<T> operation) {
+		checkState();
+		roundTrips.increment();
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if (shouldFail()) {
+			schedule(() -> future.completeExceptionally(failure()));
+		} else {
+			T res = operation.get();
+			schedule(() -> future.complete(res));
+		}
+		return future;
+	}
+
+	private void schedule(Runnable completion) {
+		long delay = delayNanos();
+		if (delay <= 0) {
+			completion.run();
+		} else {
+			scheduler.schedule(completion, delay, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private long delayNanos() {
+		long jitter = jitterNanos;
+		return jitter > 0 ? latencyNanos + ThreadLocalRandom.current().nextLong(jitter) : latencyNanos;
+	}
+
+	private boolean shouldFail() {
+		double rate = failureRate;
+		return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+	}
+
+	private OperationTimeoutException failure() {
+		failures.increment();
+		return new OperationTimeoutException("Injected failure of in-memory memcached client");
+	}
+
+	private void checkState() {
+		if (shutdown) {
+			throw new IllegalStateException("Shutting down");
+		}
+	}
+
+	/**
+	 * 与 spymemcached 的校验一致：不超过 250 字节，不包含空白和控制字符
+	 */
+	private static void checkKey(String key) {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_KEY_LENGTH) {
+			throw new IllegalArgumentException("Key is too long (maxlen = " + MAX_KEY_LENGTH + ")");
+		}
+		if (bytes.length == 0) {
+			throw new IllegalArgumentException("Key must contain at least one character.");
+		}
+		for (byte b : bytes) {
+			if (b == ' ' || b == '\n' || b == '\r' || b == 0) {
+				throw new IllegalArgumentException("Key contains invalid characters:  ``" + key + "''");
+			}
+		}
+	}
+
+	private static long expireAt(int exp) {
+		if (exp == 0) {
+			return 0;
+		}
+		if (exp < 0) {
+			return 1;
+		}
+		if (exp <= MAX_RELATIVE_EXPIRE) {
+			return System.currentTimeMillis() + exp * 1000L;
+		}
+		// 与 0 区分，避免被视为永不过期
+		return Math.max(1, exp * 1000L);
+	}
+
+	private Item newItem(CachedData data, long expireAt) {
+		return new Item(data, expireAt, casSequence.incrementAndGet());
+	}
+
+	private Item read(String key) {
+		checkKey(key);
+		Item item = items.get(key);
+		if (item != null && item.isExpired(System.currentTimeMillis())) {
+			items.remove(key, item);
+			item = null;
+		}
+		if (item == null) {
+			getMisses.increment();
+		} else {
+			getHits.increment();
+		}
+		return item;
+	}
+
+	private Item readAndTouch(String key, int exp) {
+		checkKey(key);
+		touches.increment();
+		return items.computeIfPresent(key, (k, old) -> old.isExpired(System.currentTimeMillis()) ? null
+			: new Item(old.data, expireAt(exp), old.cas));
+	}
+
+	private <T> Map<String, T> readBulk(Iterator<String> keys, Iterator<Transcoder<T>> tcs) {
+		Map<String, T> res = new HashMap<>();
+		while (keys.hasNext() && tcs.hasNext()) {
+			String key = keys.next();
+			Transcoder<T> tc = tcs.next();
+			Item item = read(key);
+			if (item != null) {
+				res.put(key, tc.decode(item.data));
+			}
+		}
+		return res;
+	}
+
+	private static <T> T decode(Item item, Transcoder<T> tc) {
+		return item == null ? null : tc.decode(item.data);
+	}
+
+	private static <T> CASValue<T> casValue(Item item, Transcoder<T> tc) {
+		return item == null ? null : new CASValue<>(item.cas, tc.decode(item.data));
+	}
+
+	private static <T> Iterator<Transcoder<T>> repeat(Transcoder<T> tc) {
+		return new Iterator<Transcoder<T>>() {
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+
+			@Override
+			public Transcoder<T> next() {
+				return tc;
+			}
+		};
+	}
+
+	private boolean store(String key, int exp, CachedData data, StoreMode mode) {
+		checkKey(key);
+		sets.increment();
+		boolean[] stored = new boolean[1];
+		items.compute(key, (k, old) -> {
+			boolean exists = old != null && !old.isExpired(System.currentTimeMillis());
+			if (mode == StoreMode.ADD && exists || mode == StoreMode.REPLACE && !exists) {
+				return exists ? old : null;
+			}
+			stored[0] = true;
+			return newItem(data, expireAt(exp));
+		});
+		return stored[0];
+	}
+
+	private CASResponse compareAndSet(String key, long casId, int exp, CachedData data) {
+		checkKey(key);
+		sets.increment();
+		CASResponse[] res = new CASResponse[1];
+		items.compute(key, (k, old) -> {
+			if (old == null || old.isExpired(System.currentTimeMillis())) {
+				res[0] = CASResponse.NOT_FOUND;
+				return null;
+			}
+			if (old.cas != casId) {
+				res[0] = CASResponse.EXISTS;
+				return old;
+			}
+			res[0] = CASResponse.OK;
+			return newItem(data, expireAt(exp));
+		});
+		return res[0];
+	}
+
+	private boolean concat(String key, byte[] bytes, boolean append) {
+		checkKey(key);
+		sets.increment();
+		boolean[] stored = new boolean[1];
+		items.computeIfPresent(key, (k, old) -> {
+			if (old.isExpired(System.currentTimeMillis())) {
+				return null;
+			}
+			byte[] first = append ? old.data.getData() : bytes;
+			byte[] second = append ? bytes : old.data.getData();
+			byte[] newBytes = Arrays.copyOf(first, first.length + second.length);
+			System.arraycopy(second, 0, newBytes, first.length, second.length);
+			stored[0] = true;
+			return newItem(new CachedData(old.data.getFlags(), newBytes, Integer.MAX_VALUE), old.expireAt);
+		});
+		return stored[0];
+	}
+
+	/**
+	 * incr/decr，值以十进制字符串保存，decr 最小减到 0
+	 *
+	 * @return 修改后的值，key 不存在且不创建或值不是数字时返回 -1
+	 */
+	private long mutate(String key, long by, long def, int exp, boolean create) {
+		checkKey(key);
+		long[] res = {-1};
+		items.compute(key, (k, old) -> {
+			if (old == null || old.isExpired(System.currentTimeMillis())) {
+				if (!create) {
+					return null;
+				}
+				res[0] = def;
+				return newItem(counter(def), expireAt(exp));
+			}
+			long value;
+			try {
+				value = Long.parseLong(new String(old.data.getData(), StandardCharsets.US_ASCII).trim());
+			} catch (NumberFormatException e) {
+				return old;
+			}
+			res[0] = by < 0 ? Math.max(0, value + by) : value + by;
+			return new Item(counter(res[0]), old.expireAt, casSequence.incrementAndGet());
+		});
+		return res[0];
+	}
+
+	private static CachedData counter(long value) {
+		return new CachedData(0, Long.toString(value).getBytes(StandardCharsets.US_ASCII), CachedData.MAX_SIZE);
+	}
+
+	private enum StoreMode {
+		SET, ADD, REPLACE
+	}
+
+	private static class Item {
+
+		private final CachedData data;
+
+		/**
+		 * 过期时间戳，单位：毫秒，0 表示永不过期
+		 */
+		private final long expireAt;
+
+		private final long cas;
+
+		Item(CachedData data, long expireAt, long cas) {
+			this.data = data;
+			this.expireAt = expireAt;
+			this.cas = cas;
+		}
+
+		boolean isExpired(long now) {
+			return expireAt != 0 && now >= expireAt;
+		}
+	}
+
+	/**
+	 * 可以异常完成的 {@link OperationFuture}。没有实际的 Operation，父类中依赖 Operation 的方法都需要覆盖
+	 */
+	private static class InMemoryOperationFuture<T> extends OperationFuture<T> {
+
+		private final CountDownLatch latch;
+
+		private volatile T value;
+
+		private volatile Exception failure;
+
+		InMemoryOperationFuture(String key, ExecutorService executor) {
+			this(key, new CountDownLatch(1), executor);
+		}
+
+		private InMemoryOperationFuture(String key, CountDownLatch latch, ExecutorService executor) {
+			super(key, latch, OPERATION_TIMEOUT, executor);
+			this.latch = latch;
+		}
+
+		void complete(T value, OperationStatus status) {
+			this.value = value;
+			set(value, status);
+			latch.countDown();
+			signalComplete();
+		}
+
+		void fail(Exception e) {
+			failure = e;
+			complete(null, new OperationStatus(false, e.getMessage()));
+		}
+
+		@Override
+		public T get(long duration, TimeUnit unit) throws InterruptedException, TimeoutException, ExecutionException {
+			if (!latch.await(duration, unit)) {
+				throw new TimeoutException("Timed out waiting for operation");
+			}
+			if (failure != null) {
+				throw new ExecutionException(failure);
+			}
+			return value;
+		}
+
+		/**
+		 * 操作在调用时已执行，无法取消
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		@Override
+		public boolean cancel() {
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public boolean isDone() {
+			return latch.getCount() == 0;
+		}
+	}
+
+	/**
+	 * 批量读取的 future，结果在调用时已读取，往返耗时后完成。
+	 * 继承 {@link BulkGetFuture} 以便把自身传给 {@link BulkGetCompletionListener}，结果由内部的 {@link CompletableFuture} 保存
+	 */
+	private static class InMemoryBulkFuture<T> extends BulkGetFuture<T> {
+
+		private final CompletableFuture<Map<String, T>> result = new CompletableFuture<>();
+
+		/**
+		 * 尚未通知的监听器，移除后不再通知
+		 */
+		private final Set<BulkGetCompletionListener> listeners = ConcurrentHashMap.newKeySet();
+
+		private volatile boolean timeout;
+
+		InMemoryBulkFuture(ExecutorService executor) {
+			super(Collections.emptyMap(), Collections.emptyList(), new CountDownLatch(0), executor);
+		}
+
+		void complete(Map<String, T> res) {
+			result.complete(res);
+		}
+
+		void completeExceptionally(Throwable e) {
+			result.completeExceptionally(e);
+		}
+
+		@Override
+		public Map<String, T> get() throws InterruptedException, ExecutionException {
+			return result.get();
+		}
+
+		@Override
+		public Map<String, T> get(long duration, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+			try {
+				return result.get(duration, unit);
+			} catch (TimeoutException e) {
+				timeout = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return result.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return result.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return result.isDone();
+		}
+
+		@Override
+		public boolean isTimeout() {
+			return timeout;
+		}
+
+		/**
+		 * 超时时返回空的结果
+		 */
+		@Override
+		public Map<String, T> getSome(long duration, TimeUnit unit) throws InterruptedException, ExecutionException {
+			try {
+				return get(duration, unit);
+			} catch (TimeoutException e) {
+				return Collections.emptyMap();
+			}
+		}
+
+		@Override
+		public OperationStatus getStatus() {
+			if (!isDone()) {
+				return new OperationStatus(false, "pending");
+			}
+			return result.isCompletedExceptionally() ? new OperationStatus(false, "failed")
+				: new OperationStatus(true, "END");
+		}
+
+		/**
+		 * 完成后通知监听器，已完成时立即通知
+		 */
+		@Override
+		public Future<Map<String, T>> addListener(BulkGetCompletionListener listener) {
+			if (listeners.add(listener)) {
+				result.whenComplete((res, e) -> {
+					if (listeners.remove(listener)) {
+						try {
+							listener.onComplete(this);
+						} catch (Exception ex) {
+							getLogger().warn("批量读取的监听器执行失败：" + listener.getClass().getName(), ex);
+						}
+					}
+				});
+			}
+			return this;
+		}
+
+		@Override
+		public Future<Map<String, T>> removeListener(BulkGetCompletionListener listener) {
+			listeners.remove(listener);
+			return this;
+		}
+	}
+}
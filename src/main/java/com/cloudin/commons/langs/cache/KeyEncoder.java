@@ -0,0 +1,304 @@
+package com.cloudin.commons.langs.cache;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * memcached key 的转换策略，将 应用APP + 明文key 转换为 memcached 中实际使用的 key
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 02:10
+ */
+public enum KeyEncoder {
+
+	/**
+	 * md5 摘要的十六进制字符串，与 DigestUtils.md5Hex(app + key) 结果一致，已有缓存数据可继续读取。
+	 * 每个线程复用 {@link MessageDigest} 和缓冲区，只分配结果字符串
+	 */
+	MD5 {
+		@Override
+		public String encode(String app, String key) {
+			Buffers buffers = BUFFERS.get();
+			return md5Hex(buffers, buffers.utf8(app, key));
+		}
+	},
+
+	/**
+	 * 非加密的 128 位 MurmurHash3（x64 变体）的十六进制字符串，比 md5 更快，但与已有缓存数据不兼容
+	 */
+	MURMUR3 {
+		@Override
+		public String encode(String app, String key) {
+			Buffers buffers = BUFFERS.get();
+			return murmur3Hex(buffers, buffers.utf8(app, key));
+		}
+	},
+
+	/**
+	 * 直接使用 应用APP + 明文key，适合较短且只包含可见 ASCII 字符的 key；
+	 * 超过长度或包含空白、控制字符、非 ASCII 字符的 key 回退为 {@link #MD5}
+	 */
+	PLAIN {
+		@Override
+		public String encode(String app, String key) {
+			String appPrefix = String.valueOf(app);
+			if (appPrefix.length() + key.length() <= MAX_PLAIN_LENGTH && isSafe(appPrefix) && isSafe(key)) {
+				return appPrefix.concat(key);
+			}
+			return MD5.encode(app, key);
+		}
+	};
+
+	/**
+	 * PLAIN 模式的最大长度，memcached key 最长 250 字节，为租约等后缀预留空间
+	 */
+	private static final int MAX_PLAIN_LENGTH = 200;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	/**
+	 * 转换 key
+	 *
+	 * @param app 应用APP，为 null 时与字符串拼接一致，视为 "null"
+	 * @param key 明文key
+	 *
+	 * @return memcached 中实际使用的 key
+	 */
+	public abstract String encode(String app, String key);
+
+	/**
+	 * @param length 缓冲区中 UTF-8 编码的 key 长度
+	 *
+	 * @return md5 摘要的十六进制字符串
+	 */
+	private static String md5Hex(Buffers buffers, int length) {
+		MessageDigest digest = buffers.md5;
+		digest.update(buffers.bytes, 0, length);
+		try {
+			digest.digest(buffers.hash, 0, 16);
+		} catch (DigestException e) {
+			// 输出缓冲区长度固定为 16，不会出现
+			throw new IllegalStateException(e);
+		}
+		return hex(buffers, buffers.hash);
+	}
+
+	/**
+	 * @param length 缓冲区中 UTF-8 编码的 key 长度
+	 *
+	 * @return 128 位 MurmurHash3 的十六进制字符串
+	 */
+	private static String murmur3Hex(Buffers buffers, int length) {
+		murmur3(buffers.bytes, length, buffers.hash);
+		return hex(buffers, buffers.hash);
+	}
+
+	private static boolean isSafe(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c <= ' ' || c >= 0x7F) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String hex(Buffers buffers, byte[] hash) {
+		char[] chars = buffers.hex;
+		for (int i = 0; i < 16; i++) {
+			chars[i << 1] = HEX[(hash[i] >>> 4) & 0x0F];
+			chars[(i << 1) + 1] = HEX[hash[i] & 0x0F];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * key 以 UTF-8 编码后的 MurmurHash3 x64 128 位，复用线程本地缓冲区，不分配对象
+	 *
+	 * @return 按 h1、h2 大端写入的线程本地数组，同一线程再次计算前有效
+	 */
+	static byte[] murmur3(String key) {
+		Buffers buffers = BUFFERS.get();
+		int length = buffers.utf8(key, 0);
+		murmur3(buffers.bytes, length, buffers.hash);
+		return buffers.hash;
+	}
+
+	/**
+	 * MurmurHash3 x64 128 位，seed 为 0，结果按 h1、h2 大端写入 out
+	 */
+	static void murmur3(byte[] data, int length, byte[] out) {
+		final long c1 = 0x87c37b91114253d5L;
+		final long c2 = 0x4cf5ad432745937fL;
+		long h1 = 0;
+		long h2 = 0;
+		int blocks = length >>> 4;
+		for (int i = 0; i < blocks; i++) {
+			long k1 = getLongLE(data, i << 4);
+			long k2 = getLongLE(data, (i << 4) + 8);
+
+			k1 *= c1;
+			k1 = Long.rotateLeft(k1, 31);
+			k1 *= c2;
+			h1 ^= k1;
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+
+			k2 *= c2;
+			k2 = Long.rotateLeft(k2, 33);
+			k2 *= c1;
+			h2 ^= k2;
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		int tail = blocks << 4;
+		long k1 = 0;
+		long k2 = 0;
+		switch (length & 15) {
+			case 15:
+				k2 ^= (long) (data[tail + 14] & 0xFF) << 48;
+			case 14:
+				k2 ^= (long) (data[tail + 13] & 0xFF) << 40;
+			case 13:
+				k2 ^= (long) (data[tail + 12] & 0xFF) << 32;
+			case 12:
+				k2 ^= (long) (data[tail + 11] & 0xFF) << 24;
+			case 11:
+				k2 ^= (long) (data[tail + 10] & 0xFF) << 16;
+			case 10:
+				k2 ^= (long) (data[tail + 9] & 0xFF) << 8;
+			case 9:
+				k2 ^= data[tail + 8] & 0xFF;
+				k2 *= c2;
+				k2 = Long.rotateLeft(k2, 33);
+				k2 *= c1;
+				h2 ^= k2;
+			case 8:
+				k1 ^= (long) (data[tail + 7] & 0xFF) << 56;
+			case 7:
+				k1 ^= (long) (data[tail + 6] & 0xFF) << 48;
+			case 6:
+				k1 ^= (long) (data[tail + 5] & 0xFF) << 40;
+			case 5:
+				k1 ^= (long) (data[tail + 4] & 0xFF) << 32;
+			case 4:
+				k1 ^= (long) (data[tail + 3] & 0xFF) << 24;
+			case 3:
+				k1 ^= (long) (data[tail + 2] & 0xFF) << 16;
+			case 2:
+				k1 ^= (long) (data[tail + 1] & 0xFF) << 8;
+			case 1:
+				k1 ^= data[tail] & 0xFF;
+				k1 *= c1;
+				k1 = Long.rotateLeft(k1, 31);
+				k1 *= c2;
+				h1 ^= k1;
+			default:
+				break;
+		}
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix64(h1);
+		h2 = fmix64(h2);
+		h1 += h2;
+		h2 += h1;
+		for (int i = 0; i < 8; i++) {
+			out[i] = (byte) (h1 >>> (56 - (i << 3)));
+			out[i + 8] = (byte) (h2 >>> (56 - (i << 3)));
+		}
+	}
+
+	private static long getLongLE(byte[] data, int offset) {
+		long value = 0;
+		for (int i = 7; i >= 0; i--) {
+			value = (value << 8) | (data[offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+	private static long fmix64(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	/**
+	 * 每个线程复用的缓冲区
+	 */
+	private static class Buffers {
+
+		private final MessageDigest md5;
+
+		private byte[] bytes = new byte[256];
+
+		private final byte[] hash = new byte[16];
+
+		private final char[] hex = new char[32];
+
+		Buffers() {
+			try {
+				md5 = MessageDigest.getInstance("MD5");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * 把 应用APP + 明文key 以 UTF-8 编码写入缓冲区
+		 *
+		 * @return 编码后的长度
+		 */
+		int utf8(String app, String key) {
+			return utf8(key, utf8(String.valueOf(app), 0));
+		}
+
+		/**
+		 * 以 UTF-8 编码写入缓冲区，与 {@link String#getBytes(java.nio.charset.Charset)} 一致，不成对的代理字符写为 '?'
+		 *
+		 * @return 写入后的长度
+		 */
+		int utf8(String s, int pos) {
+			int length = s.length();
+			if (bytes.length - pos < length * 3) {
+				byte[] newBytes = new byte[Math.max(bytes.length << 1, pos + length * 3)];
+				System.arraycopy(bytes, 0, newBytes, 0, pos);
+				bytes = newBytes;
+			}
+			byte[] b = bytes;
+			for (int i = 0; i < length; i++) {
+				char c = s.charAt(i);
+				if (c < 0x80) {
+					b[pos++] = (byte) c;
+				} else if (c < 0x800) {
+					b[pos++] = (byte) (0xC0 | (c >> 6));
+					b[pos++] = (byte) (0x80 | (c & 0x3F));
+				} else if (Character.isSurrogate(c)) {
+					if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+						int cp = Character.toCodePoint(c, s.charAt(++i));
+						b[pos++] = (byte) (0xF0 | (cp >> 18));
+						b[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+						b[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+						b[pos++] = (byte) (0x80 | (cp & 0x3F));
+					} else {
+						b[pos++] = '?';
+					}
+				} else {
+					b[pos++] = (byte) (0xE0 | (c >> 12));
+					b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					b[pos++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+			return pos;
+		}
+	}
+}
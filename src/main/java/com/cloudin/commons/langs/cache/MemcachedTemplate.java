@@ -1,9 +1,26 @@
 package com.cloudin.commons.langs.cache;
 
+import net.spy.memcached.CASValue;
 import net.spy.memcached.MemcachedClientIF;
-import org.apache.commons.codec.digest.DigestUtils;
+import net.spy.memcached.transcoders.Transcoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 缓存模板类
@@ -13,8 +30,35 @@ import java.util.concurrent.Future;
  */
 public class MemcachedTemplate {
 	
+	private static final Logger logger = LoggerFactory.getLogger(MemcachedTemplate.class);
+	
+	/**
+	 * 过期时间超过该秒数时，memcached 视为 unix 时间戳
+	 */
+	private static final int MAX_RELATIVE_EXPIRE = 60 * 60 * 24 * 30;
+	
 	private MemcachedClientIF memcachedClient;
 	
+	/**
+	 * 可选的进程内近端缓存，为 null 时每次 get 都访问 memcached
+	 */
+	private NearCache nearCache;
+	
+	/**
+	 * 可选的热点 key 探测，热点 key 由其短过期时间的本地副本提供服务
+	 */
+	private HotKeyDetector hotKeyDetector;
+	
+	/**
+	 * 值转换器，为 null 时使用 memcached 客户端默认的转换器（java 序列化）
+	 */
+	private Transcoder<Object> transcoder;
+	
+	/**
+	 * key 转换策略，默认 md5
+	 */
+	private KeyEncoder keyEncoder = KeyEncoder.MD5;
+	
 	/**
 	 * 应用APP
 	 */
@@ -24,6 +68,26 @@ public class MemcachedTemplate {
 	 */
 	private int defaultExpire = 30 * 60;
 	
+	/**
+	 * getOrLoad 分布式租约的有效期，单位：秒。默认10秒
+	 */
+	private int leaseSeconds = 10;
+	
+	/**
+	 * getOrLoad 未抢到租约时轮询 memcached 的间隔，单位：毫秒
+	 */
+	private long leasePollMillis = 50;
+	
+	/**
+	 * getOrLoad 过期前提前刷新的系数（XFetch beta），0 表示不提前刷新
+	 */
+	private double earlyRefreshBeta = 1.0;
+	
+	/**
+	 * 本进程内正在加载的 key，同一个 key 只有一个线程加载
+	 */
+	private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+	
 	public void setApp(String app) {
 		this.app = app;
 	}
@@ -36,6 +100,78 @@ public class MemcachedTemplate {
 		this.memcachedClient = memcachedClient;
 	}
 	
+	public void setLeaseSeconds(int leaseSeconds) {
+		this.leaseSeconds = leaseSeconds;
+	}
+	
+	public void setLeasePollMillis(long leasePollMillis) {
+		this.leasePollMillis = leasePollMillis;
+	}
+	
+	public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+		this.earlyRefreshBeta = earlyRefreshBeta;
+	}
+	
+	/**
+	 * 设置进程内近端缓存。本进程的 set/add/touch/delete 会同步移除近端缓存中的值，
+	 * 其它进程的修改在近端缓存过期后可见，因此近端缓存的过期时间应远小于 memcached 的过期时间
+	 *
+	 * @param nearCache 近端缓存，为 null 时关闭
+	 */
+	public void setNearCache(NearCache nearCache) {
+		if (nearCache != null && nearCache.getExpireMillis() >= defaultExpire * 1000L) {
+			logger.warn("near cache expire {}ms is not shorter than memcached expire {}s",
+				nearCache.getExpireMillis(), defaultExpire);
+		}
+		this.nearCache = nearCache;
+	}
+	
+	public NearCache getNearCache() {
+		return nearCache;
+	}
+	
+	/**
+	 * 设置热点 key 探测。get、getOrLoad 和 getMulti 会记录访问频率，热点 key 由探测器的本地副本提供服务；
+	 * 本进程的写操作会同步移除本地副本中的值
+	 *
+	 * @param hotKeyDetector 热点 key 探测，为 null 时关闭
+	 */
+	public void setHotKeyDetector(HotKeyDetector hotKeyDetector) {
+		this.hotKeyDetector = hotKeyDetector;
+	}
+	
+	public HotKeyDetector getHotKeyDetector() {
+		return hotKeyDetector;
+	}
+	
+	/**
+	 * 设置 key 转换策略。切换为 {@link KeyEncoder#MD5} 以外的策略后，之前写入的缓存将无法命中
+	 *
+	 * @param keyEncoder key 转换策略
+	 */
+	public void setKeyEncoder(KeyEncoder keyEncoder) {
+		this.keyEncoder = keyEncoder;
+	}
+	
+	/**
+	 * 设置缓存值的编解码器，使用默认压缩阈值的 {@link CodecTranscoder}。
+	 * 之前以 java 序列化写入的值仍可读取
+	 *
+	 * @param codec 编解码器，为 null 时使用 memcached 客户端默认的转换器
+	 */
+	public void setCodec(CacheCodec codec) {
+		this.transcoder = codec == null ? null : new CodecTranscoder(codec);
+	}
+	
+	/**
+	 * 设置缓存值的转换器
+	 *
+	 * @param transcoder 转换器，为 null 时使用 memcached 客户端默认的转换器
+	 */
+	public void setTranscoder(Transcoder<Object> transcoder) {
+		this.transcoder = transcoder;
+	}
+	
 	/**
 	 * 对明文的key进行转换
 	 *
@@ -44,7 +180,7 @@ public class MemcachedTemplate {
 	 * @return 转换后的key
 	 */
 	private String convertKey(String key) {
-		return DigestUtils.md5Hex(app + key);
+		return keyEncoder.encode(app, key);
 	}
 	
 	/**
@@ -55,7 +191,364 @@ public class MemcachedTemplate {
 	 * @return 值
 	 */
 	public Object get(String key) {
-		return memcachedClient.get(convertKey(key));
+		return CacheEntry.unwrap(getRaw(key));
+	}
+	
+	/**
+	 * 获取指定key在 memcached 中的原始值，可能是 {@link CacheEntry}
+	 */
+	private Object getRaw(String key) {
+		HotKeyDetector hotKeyDetector = this.hotKeyDetector;
+		if (hotKeyDetector != null && hotKeyDetector.record(key)) {
+			return hotKeyDetector.getReplica().get(key, this::getShared);
+		}
+		return getShared(key);
+	}
+	
+	/**
+	 * 从近端缓存或 memcached 获取原始值
+	 */
+	private Object getShared(String key) {
+		NearCache nearCache = this.nearCache;
+		if (nearCache == null) {
+			return doGet(convertKey(key));
+		}
+		return nearCache.get(key, k -> doGet(convertKey(k)));
+	}
+	
+	/**
+	 * 获取指定key的值，未命中时调用 loader 加载并缓存，使用默认过期时间
+	 *
+	 * @see #getOrLoad(String, Callable, int)
+	 */
+	public <T> T getOrLoad(String key, Callable<T> loader) {
+		return getOrLoad(key, loader, defaultExpire);
+	}
+	
+	/**
+	 * 获取指定key的值，未命中时调用 loader 加载并缓存，避免缓存失效瞬间大量请求同时击穿到数据源：
+	 * <ul>
+	 * <li>本进程内同一个 key 只有一个线程执行 loader，其它线程等待同一个结果</li>
+	 * <li>通过 memcached add 获取分布式租约，只有一个节点执行 loader，其它节点轮询等待写入结果，
+	 * 租约过期仍未写入时自行加载</li>
+	 * <li>过期前按加载耗时概率性地提前刷新（XFetch），刷新期间其它请求继续使用旧值</li>
+	 * </ul>
+	 * loader 返回 null 时不缓存。通过本方法写入的值带有包装，{@link #get(String)} 和 {@link #getMulti(Collection)}
+	 * 会自动解除包装
+	 *
+	 * @param key    缓存主键
+	 * @param loader 加载函数
+	 * @param expire 过期时间，单位：秒
+	 *
+	 * @return 值
+	 *
+	 * @throws CacheLoadException loader 执行失败
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getOrLoad(String key, Callable<T> loader, int expire) {
+		Object raw = getRaw(key);
+		if (raw instanceof CacheEntry) {
+			CacheEntry entry = (CacheEntry) raw;
+			if (!entry.shouldRefresh(earlyRefreshBeta)) {
+				return (T) entry.getValue();
+			}
+			return (T) refresh(key, loader, expire, entry.getValue());
+		}
+		if (raw != null) {
+			// 通过 set 写入的值
+			return (T) raw;
+		}
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+		if (existing != null) {
+			return (T) await(key, existing);
+		}
+		try {
+			Object value = loadWithLease(key, loader, expire);
+			future.complete(value);
+			return (T) value;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+	
+	/**
+	 * 提前刷新，只有抢到本进程加载权和分布式租约的线程执行 loader，其它线程以及刷新失败时返回旧值
+	 */
+	private Object refresh(String key, Callable<?> loader, int expire, Object staleValue) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		if (loading.putIfAbsent(key, future) != null) {
+			return staleValue;
+		}
+		try {
+			String lease = tryLease(key);
+			if (lease == null) {
+				future.complete(staleValue);
+				return staleValue;
+			}
+			try {
+				Object value = loadAndSet(key, loader, expire);
+				future.complete(value);
+				return value;
+			} finally {
+				releaseLease(key, lease);
+			}
+		} catch (RuntimeException e) {
+			logger.warn("refresh cache key {} failed, use stale value", key, e);
+			future.complete(staleValue);
+			return staleValue;
+		} finally {
+			loading.remove(key, future);
+		}
+	}
+	
+	/**
+	 * 等待本进程内其它线程的加载结果
+	 */
+	private Object await(String key, CompletableFuture<Object> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new CacheLoadException("load cache key " + key + " failed", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CacheLoadException("interrupted while waiting for cache key " + key, e);
+		}
+	}
+	
+	/**
+	 * 抢到租约时执行 loader，否则轮询等待持有租约的节点写入结果
+	 */
+	private Object loadWithLease(String key, Callable<?> loader, int expire) {
+		String lease = tryLease(key);
+		try {
+			if (lease == null) {
+				long deadline = System.currentTimeMillis() + leaseSeconds * 1000L;
+				while (System.currentTimeMillis() < deadline) {
+					sleep(key, leasePollMillis);
+					Object raw = doGet(convertKey(key));
+					if (raw != null) {
+						return CacheEntry.unwrap(raw);
+					}
+				}
+				logger.warn("cache key {} was not loaded by the lease holder in {}s, load it locally", key,
+					leaseSeconds);
+			}
+			return loadAndSet(key, loader, expire);
+		} finally {
+			if (lease != null) {
+				releaseLease(key, lease);
+			}
+		}
+	}
+	
+	/**
+	 * 执行 loader 并写入 memcached，同时记录加载耗时用于提前刷新
+	 */
+	private Object loadAndSet(String key, Callable<?> loader, int expire) {
+		long start = System.currentTimeMillis();
+		Object value;
+		try {
+			value = loader.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new CacheLoadException("load cache key " + key + " failed", e);
+		}
+		if (value != null) {
+			long now = System.currentTimeMillis();
+			long expireAt;
+			if (expire <= 0) {
+				expireAt = Long.MAX_VALUE;
+			} else if (expire <= MAX_RELATIVE_EXPIRE) {
+				expireAt = now + expire * 1000L;
+			} else {
+				expireAt = expire * 1000L;
+			}
+			invalidateNear(key);
+			doSet(convertKey(key), expire, new CacheEntry(value, now - start, expireAt));
+		}
+		return value;
+	}
+	
+	/**
+	 * 通过 memcached add 获取分布式租约，租约的值为本次获取的唯一标识。memcached 不可用时视为获取成功
+	 *
+	 * @return 租约标识，未获取到时为 null
+	 */
+	private String tryLease(String key) {
+		String lease = UUID.randomUUID().toString();
+		try {
+			return Boolean.TRUE.equals(memcachedClient.add(leaseKey(key), leaseSeconds, lease).get()) ? lease : null;
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			logger.warn("acquire lease of cache key {} failed", key, e);
+			return lease;
+		}
+	}
+	
+	/**
+	 * 只释放仍由本次持有的租约。加载超过 leaseSeconds 时租约已过期，可能已被其它节点获取，不能删除
+	 */
+	private void releaseLease(String key, String lease) {
+		String leaseKey = leaseKey(key);
+		try {
+			CASValue<Object> current = memcachedClient.gets(leaseKey);
+			if (current != null && lease.equals(current.getValue())) {
+				memcachedClient.delete(leaseKey, current.getCas());
+			}
+		} catch (RuntimeException e) {
+			logger.warn("release lease of cache key {} failed", key, e);
+		}
+	}
+	
+	private String leaseKey(String key) {
+		return convertKey(key) + ":lease";
+	}
+	
+	private static void sleep(String key, long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CacheLoadException("interrupted while waiting for cache key " + key, e);
+		}
+	}
+	
+	/**
+	 * 批量获取多个key的值，只需一次网络往返；开启近端缓存时只获取近端未命中的key
+	 *
+	 * @param keys 缓存主键集合
+	 *
+	 * @return 命中的 key 与值，按 keys 的迭代顺序排列，未命中的 key 不包含在内
+	 */
+	public Map<String, Object> getMulti(Collection<String> keys) {
+		Map<String, Object> res = new LinkedHashMap<>();
+		NearCache nearCache = this.nearCache;
+		HotKeyDetector hotKeyDetector = this.hotKeyDetector;
+		Map<String, String> convertedKeys = new HashMap<>();
+		for (String key : keys) {
+			Object value = null;
+			if (hotKeyDetector != null && hotKeyDetector.record(key)) {
+				value = hotKeyDetector.getReplica().getIfPresent(key);
+			}
+			if (value == null && nearCache != null) {
+				value = nearCache.getIfPresent(key);
+			}
+			if (value != null) {
+				res.put(key, CacheEntry.unwrap(value));
+			} else {
+				// 先占位，保持返回结果的顺序
+				res.put(key, null);
+				convertedKeys.put(convertKey(key), key);
+			}
+		}
+		if (!convertedKeys.isEmpty()) {
+			Map<String, Object> values = doGetBulk(convertedKeys.keySet());
+			for (Map.Entry<String, Object> entry : values.entrySet()) {
+				String key = convertedKeys.get(entry.getKey());
+				if (key != null && entry.getValue() != null) {
+					res.put(key, CacheEntry.unwrap(entry.getValue()));
+					if (nearCache != null) {
+						nearCache.put(key, entry.getValue());
+					}
+					if (hotKeyDetector != null && hotKeyDetector.isHot(key)) {
+						hotKeyDetector.getReplica().put(key, entry.getValue());
+					}
+				}
+			}
+			res.values().removeIf(value -> value == null);
+		}
+		return res;
+	}
+	
+	/**
+	 * 批量缓存，使用默认过期时间
+	 *
+	 * @param values 缓存的key 和 value
+	 *
+	 * @return 全部缓存成功时结果为 true 的Future对象
+	 */
+	public Future<Boolean> setMulti(Map<String, ?> values) {
+		return setMulti(values, defaultExpire);
+	}
+	
+	/**
+	 * 批量缓存。各操作异步提交，由 memcached 客户端在连接上流水线发送，不逐个等待结果
+	 *
+	 * @param values 缓存的key 和 value
+	 * @param expire 过期时间，单位：秒
+	 *
+	 * @return 全部缓存成功时结果为 true 的Future对象
+	 */
+	public Future<Boolean> setMulti(Map<String, ?> values, int expire) {
+		List<Future<Boolean>> futures = new ArrayList<>(values.size());
+		for (Map.Entry<String, ?> entry : values.entrySet()) {
+			futures.add(set(entry.getKey(), entry.getValue(), expire));
+		}
+		return new BatchFuture(futures);
+	}
+	
+	/**
+	 * 批量删除。各操作异步提交，由 memcached 客户端在连接上流水线发送，不逐个等待结果
+	 *
+	 * @param keys 缓存主键集合
+	 *
+	 * @return 全部删除成功时结果为 true 的Future对象
+	 */
+	public Future<Boolean> deleteMulti(Collection<String> keys) {
+		List<Future<Boolean>> futures = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			futures.add(delete(key));
+		}
+		return new BatchFuture(futures);
+	}
+	
+	private Object doGet(String convertedKey) {
+		Transcoder<Object> transcoder = this.transcoder;
+		return transcoder == null ? memcachedClient.get(convertedKey) : memcachedClient.get(convertedKey, transcoder);
+	}
+	
+	private Map<String, Object> doGetBulk(Collection<String> convertedKeys) {
+		Transcoder<Object> transcoder = this.transcoder;
+		return transcoder == null ? memcachedClient.getBulk(convertedKeys)
+			: memcachedClient.getBulk(convertedKeys, transcoder);
+	}
+	
+	private Future<Boolean> doSet(String convertedKey, int expire, Object value) {
+		Transcoder<Object> transcoder = this.transcoder;
+		return transcoder == null ? memcachedClient.set(convertedKey, expire, value)
+			: memcachedClient.set(convertedKey, expire, value, transcoder);
+	}
+	
+	private Future<Boolean> doAdd(String convertedKey, int expire, Object value) {
+		Transcoder<Object> transcoder = this.transcoder;
+		return transcoder == null ? memcachedClient.add(convertedKey, expire, value)
+			: memcachedClient.add(convertedKey, expire, value, transcoder);
+	}
+	
+	/**
+	 * 移除近端缓存和热点副本中的值
+	 *
+	 * @param key 缓存的key
+	 */
+	private void invalidateNear(String key) {
+		NearCache nearCache = this.nearCache;
+		if (nearCache != null) {
+			nearCache.invalidate(key);
+		}
+		HotKeyDetector hotKeyDetector = this.hotKeyDetector;
+		if (hotKeyDetector != null) {
+			hotKeyDetector.getReplica().invalidate(key);
+		}
 	}
 	
 	/**
@@ -67,7 +560,8 @@ public class MemcachedTemplate {
 	 * @return 缓存结果
 	 */
 	public Future<Boolean> set(String key, Object value) {
-		return memcachedClient.set(convertKey(key), defaultExpire, value);
+		invalidateNear(key);
+		return doSet(convertKey(key), defaultExpire, value);
 	}
 	
 	/**
@@ -80,7 +574,8 @@ public class MemcachedTemplate {
 	 * @return 缓存结果
 	 */
 	public Future<Boolean> set(String key, Object value, int expire) {
-		return memcachedClient.set(convertKey(key), expire, value);
+		invalidateNear(key);
+		return doSet(convertKey(key), expire, value);
 	}
 	
 	/**
@@ -92,6 +587,7 @@ public class MemcachedTemplate {
 	 * @return 重置结果
 	 */
 	public Future<Boolean> touch(String key, int expire) {
+		invalidateNear(key);
 		return memcachedClient.touch(convertKey(key), expire);
 	}
 	
@@ -103,6 +599,7 @@ public class MemcachedTemplate {
 	 * @return 缓存是否成功的Future对象
 	 */
 	public Future<Boolean> delete(String key) {
+		invalidateNear(key);
 		return memcachedClient.delete(convertKey(key));
 	}
 	
@@ -116,7 +613,8 @@ public class MemcachedTemplate {
 	 * @return 缓存是否成功的Future对象
 	 */
 	public Future<Boolean> add(String key, Object value, int expir) {
-		return memcachedClient.add(convertKey(key), expir, value);
+		invalidateNear(key);
+		return doAdd(convertKey(key), expir, value);
 	}
 	
 	/**
@@ -128,7 +626,71 @@ public class MemcachedTemplate {
 	 * @return 缓存是否成功的Future对象
 	 */
 	public Future<Boolean> add(String key, Object value) {
-		return memcachedClient.add(convertKey(key), defaultExpire, value);
+		invalidateNear(key);
+		return doAdd(convertKey(key), defaultExpire, value);
+	}
+	
+	/**
+	 * 合并多个操作结果的Future，全部成功时结果为 true
+	 */
+	private static class BatchFuture implements Future<Boolean> {
+		
+		private final List<Future<Boolean>> futures;
+		
+		BatchFuture(List<Future<Boolean>> futures) {
+			this.futures = futures;
+		}
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = false;
+			for (Future<Boolean> future : futures) {
+				cancelled |= future.cancel(mayInterruptIfRunning);
+			}
+			return cancelled;
+		}
+		
+		@Override
+		public boolean isCancelled() {
+			for (Future<Boolean> future : futures) {
+				if (future.isCancelled()) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public boolean isDone() {
+			for (Future<Boolean> future : futures) {
+				if (!future.isDone()) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		@Override
+		public Boolean get() throws InterruptedException, ExecutionException {
+			boolean res = true;
+			for (Future<Boolean> future : futures) {
+				res &= Boolean.TRUE.equals(future.get());
+			}
+			return res;
+		}
+		
+		@Override
+		public Boolean get(long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+			// 所有操作共用一个超时时间
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			boolean res = true;
+			for (Future<Boolean> future : futures) {
+				long remaining = Math.max(0, deadline - System.nanoTime());
+				res &= Boolean.TRUE.equals(future.get(remaining, TimeUnit.NANOSECONDS));
+			}
+			return res;
+		}
 	}
 	
 }
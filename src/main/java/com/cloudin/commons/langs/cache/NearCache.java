@@ -0,0 +1,158 @@
+package com.cloudin.commons.langs.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 进程内的近端缓存（L1），放在 memcached 等远程缓存前面，减少热点 key 的网络往返。
+ * <p>
+ * 基于 Caffeine，容量有界（W-TinyLFU 淘汰），写入后固定时间过期；过期时间应当明显短于远程缓存的过期时间，
+ * 其它节点的修改最迟在该时间之后可见。同一个 key 并发未命中时只会加载一次，其它线程等待同一个加载结果。
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 00:20
+ */
+public class NearCache {
+
+	/**
+	 * 默认最多缓存的条目数
+	 */
+	public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+	/**
+	 * 默认写入后的过期时间，单位：毫秒
+	 */
+	public static final long DEFAULT_EXPIRE_MILLIS = 5000;
+
+	private final Cache<String, Object> cache;
+
+	private final long expireMillis;
+
+	public NearCache() {
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_MILLIS);
+	}
+
+	/**
+	 * @param maximumSize  最多缓存的条目数
+	 * @param expireMillis 写入后的过期时间，单位：毫秒
+	 */
+	public NearCache(long maximumSize, long expireMillis) {
+		this.expireMillis = expireMillis;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * 获取指定key的值，未命中时调用 loader 加载，加载结果为 null 时不缓存
+	 *
+	 * @param key    缓存主键
+	 * @param loader 加载函数，同一个 key 并发未命中时只调用一次
+	 *
+	 * @return 值
+	 */
+	public Object get(String key, Function<String, Object> loader) {
+		return cache.get(key, loader);
+	}
+
+	/**
+	 * 获取指定key的值，不触发加载
+	 *
+	 * @param key 缓存主键
+	 *
+	 * @return 值，未命中时返回 null
+	 */
+	public Object getIfPresent(String key) {
+		return cache.getIfPresent(key);
+	}
+
+	/**
+	 * 缓存KEY 和 value
+	 *
+	 * @param key   缓存主键
+	 * @param value 值，为 null 时移除
+	 */
+	public void put(String key, Object value) {
+		if (value == null) {
+			cache.invalidate(key);
+		} else {
+			cache.put(key, value);
+		}
+	}
+
+	/**
+	 * 移除指定key
+	 *
+	 * @param key 缓存主键
+	 */
+	public void invalidate(String key) {
+		cache.invalidate(key);
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * 写入后的过期时间，单位：毫秒
+	 */
+	public long getExpireMillis() {
+		return expireMillis;
+	}
+
+	/**
+	 * 当前缓存的条目数（估算值）
+	 */
+	public long getSize() {
+		return cache.estimatedSize();
+	}
+
+	/**
+	 * 命中次数
+	 */
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	/**
+	 * 未命中次数
+	 */
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	/**
+	 * 命中率，未访问过时为 1.0
+	 */
+	public double getHitRate() {
+		return cache.stats().hitRate();
+	}
+
+	/**
+	 * 因容量不足或过期被淘汰的条目数
+	 */
+	public long getEvictionCount() {
+		return cache.stats().evictionCount();
+	}
+
+	/**
+	 * 完整的统计数据，包含加载次数和加载耗时
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	@Override
+	public String toString() {
+		return "NearCache{size=" + getSize() + ", " + stats() + "}";
+	}
+}
@@ -0,0 +1,53 @@
+package com.cloudin.commons.langs.http;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 舱壁：限制同时进行的请求数，避免一个慢的目标主机占满调用方的线程
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class Bulkhead {
+	
+	private final int maxConcurrent;
+	
+	private final Semaphore semaphore;
+	
+	/**
+	 * @param maxConcurrent 最大并发请求数
+	 */
+	public Bulkhead(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+		this.semaphore = new Semaphore(maxConcurrent);
+	}
+	
+	/**
+	 * 获取并发名额，成功后必须调用 {@link #release()} 归还
+	 *
+	 * @param maxWaitMillis 最长等待时间，单位：毫秒
+	 *
+	 * @return 是否获取成功
+	 *
+	 * @throws InterruptedException 等待时线程被中断
+	 */
+	public boolean tryAcquire(long maxWaitMillis) throws InterruptedException {
+		return semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	public void release() {
+		semaphore.release();
+	}
+	
+	/**
+	 * @return 正在进行的请求数
+	 */
+	public int getInFlight() {
+		return maxConcurrent - semaphore.availablePermits();
+	}
+	
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+}
@@ -0,0 +1,18 @@
+package com.cloudin.commons.langs.http;
+
+import java.io.IOException;
+
+/**
+ * 目标主机的并发请求数已达上限，且等待超时，请求未发送
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class BulkheadFullException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public BulkheadFullException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,162 @@
+package com.cloudin.commons.langs.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 熔断器。
+ * <p>
+ * 连续失败次数达到阈值后进入 {@link State#OPEN} 状态，直接拒绝请求；
+ * 经过 openMillis 后进入 {@link State#HALF_OPEN} 状态，只放行一个试探请求，
+ * 试探成功则恢复 {@link State#CLOSED}，失败则重新进入 {@link State#OPEN}。
+ * <p>
+ * 每次状态切换都会开始新的一代，{@link #tryAcquire()} 返回放行时所处的代作为许可，
+ * 只有当前代的请求结果会影响熔断状态，之前放行、之后才完成的请求的结果被忽略
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class CircuitBreaker {
+	
+	public enum State {
+		/**
+		 * 正常放行
+		 */
+		CLOSED,
+		/**
+		 * 熔断，拒绝所有请求
+		 */
+		OPEN,
+		/**
+		 * 半开，只放行一个试探请求
+		 */
+		HALF_OPEN
+	}
+	
+	/**
+	 * 未放行时 {@link #tryAcquire()} 返回的许可
+	 */
+	public static final long NO_PERMIT = -1L;
+	
+	private static final State[] STATES = State.values();
+	
+	/**
+	 * 熔断阈值：连续失败次数
+	 */
+	private final int failureThreshold;
+	
+	/**
+	 * 熔断持续时间，单位：纳秒
+	 */
+	private final long openNanos;
+	
+	/**
+	 * 代数左移 2 位，再与状态序号按位或
+	 */
+	private final AtomicLong state = new AtomicLong(pack(0, State.CLOSED));
+	
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	
+	private volatile long openedAt;
+	
+	/**
+	 * @param failureThreshold 熔断阈值：连续失败次数
+	 * @param openMillis       熔断持续时间，单位：毫秒
+	 */
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+	}
+	
+	/**
+	 * 尝试放行请求。放行后必须以返回的许可调用 {@link #onSuccess(long)} 或 {@link #onFailure(long)} 报告结果
+	 *
+	 * @return 许可，未放行时为 {@link #NO_PERMIT}
+	 */
+	public long tryAcquire() {
+		long current = state.get();
+		switch (stateOf(current)) {
+			case CLOSED:
+				return generationOf(current);
+			case OPEN:
+				return tryHalfOpen(current);
+			default:
+				return NO_PERMIT;
+		}
+	}
+	
+	/**
+	 * 熔断时间已过，只有一个线程能切换为半开状态并发送试探请求
+	 *
+	 * @return 试探请求的许可，未放行时为 {@link #NO_PERMIT}
+	 */
+	private synchronized long tryHalfOpen(long current) {
+		long generation = generationOf(current) + 1;
+		if (System.nanoTime() - openedAt >= openNanos && state.compareAndSet(current, pack(generation, State.HALF_OPEN))) {
+			return generation;
+		}
+		return NO_PERMIT;
+	}
+	
+	/**
+	 * 报告请求成功。只有试探请求的成功能结束熔断，熔断前放行、熔断后才完成的请求不影响熔断状态
+	 *
+	 * @param permit {@link #tryAcquire()} 返回的许可
+	 */
+	public void onSuccess(long permit) {
+		long current = state.get();
+		if (generationOf(current) != permit) {
+			return;
+		}
+		if (stateOf(current) == State.HALF_OPEN) {
+			if (state.compareAndSet(current, pack(permit + 1, State.CLOSED))) {
+				consecutiveFailures.set(0);
+			}
+		} else {
+			consecutiveFailures.set(0);
+		}
+	}
+	
+	/**
+	 * 报告请求失败。与 {@link #onSuccess(long)} 一样，只有当前代的请求失败才计数
+	 *
+	 * @param permit {@link #tryAcquire()} 返回的许可
+	 */
+	public void onFailure(long permit) {
+		long current = state.get();
+		if (generationOf(current) != permit) {
+			return;
+		}
+		if (stateOf(current) == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+			open(current);
+		}
+	}
+	
+	/**
+	 * 切换为熔断状态。只在切换成功时记录熔断时间，已熔断时报告的失败不会推迟恢复；
+	 * 与 {@link #tryHalfOpen(long)} 互斥，避免读取到上一次熔断的时间
+	 */
+	private synchronized void open(long expect) {
+		if (state.compareAndSet(expect, pack(generationOf(expect) + 1, State.OPEN))) {
+			openedAt = System.nanoTime();
+			consecutiveFailures.set(0);
+		}
+	}
+	
+	public State getState() {
+		return stateOf(state.get());
+	}
+	
+	private static long pack(long generation, State state) {
+		return generation << 2 | state.ordinal();
+	}
+	
+	private static long generationOf(long packed) {
+		return packed >>> 2;
+	}
+	
+	private static State stateOf(long packed) {
+		return STATES[(int) (packed & 3)];
+	}
+}
@@ -0,0 +1,18 @@
+package com.cloudin.commons.langs.http;
+
+import java.io.IOException;
+
+/**
+ * 目标主机处于熔断状态，请求未发送
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class CircuitBreakerOpenException extends IOException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public CircuitBreakerOpenException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,205 @@
+package com.cloudin.commons.langs.http;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 默认的 http 请求指标：按目标主机统计请求数、错误数、收发字节数，以及按主机、按状态码的耗时直方图和连接池等待时间直方图。
+ * <p>
+ * 记录时只有按主机、按状态码的两次 ConcurrentHashMap 查找和若干次原子自增。可通过 {@link #registerMBean(String)} 注册为 JMX MBean
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 22:00
+ */
+public class DefaultHttpMetrics implements HttpMetricsSink, DefaultHttpMetricsMBean {
+	
+	/**
+	 * 常见状态码（0 ~ 599）装箱后的 key，避免每次记录都装箱
+	 */
+	private static final Integer[] STATUS_KEYS = new Integer[600];
+	
+	static {
+		for (int i = 0; i < STATUS_KEYS.length; i++) {
+			STATUS_KEYS[i] = i;
+		}
+	}
+	
+	private final ConcurrentMap<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+	
+	@Override
+	public void onResponse(String host, int statusCode, long latencyNanos, long bytesOut, long bytesIn) {
+		HostMetrics metrics = getHostMetrics(host);
+		metrics.requests.increment();
+		metrics.bytesOut.add(bytesOut);
+		metrics.bytesIn.add(bytesIn);
+		metrics.latency.recordNanos(latencyNanos);
+		metrics.getStatusLatency(statusCode).recordNanos(latencyNanos);
+	}
+	
+	@Override
+	public void onError(String host, Throwable error, long latencyNanos) {
+		HostMetrics metrics = getHostMetrics(host);
+		metrics.requests.increment();
+		metrics.errors.increment();
+		metrics.latency.recordNanos(latencyNanos);
+	}
+	
+	@Override
+	public void onLeaseWait(String host, long waitNanos) {
+		getHostMetrics(host).leaseWait.recordNanos(waitNanos);
+	}
+	
+	private HostMetrics getHostMetrics(String host) {
+		HostMetrics metrics = hosts.get(host);
+		if (metrics == null) {
+			metrics = hosts.computeIfAbsent(host, key -> new HostMetrics());
+		}
+		return metrics;
+	}
+	
+	/**
+	 * @return 目标主机的耗时直方图，没有记录时返回 null
+	 */
+	public LatencyHistogram getLatencyHistogram(String host) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? null : metrics.latency;
+	}
+	
+	/**
+	 * @return 目标主机指定状态码的耗时直方图，没有记录时返回 null
+	 */
+	public LatencyHistogram getLatencyHistogram(String host, int statusCode) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? null : metrics.statusLatency.get(statusCode);
+	}
+	
+	/**
+	 * 注册为 JMX MBean，ObjectName 为 com.cloudin.commons.langs:type=HttpMetrics,name={name}
+	 *
+	 * @param name 名称
+	 *
+	 * @return 注册的 ObjectName
+	 *
+	 * @throws JMException 注册失败
+	 */
+	public ObjectName registerMBean(String name) throws JMException {
+		ObjectName objectName = new ObjectName("com.cloudin.commons.langs:type=HttpMetrics,name=" + name);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName)) {
+			server.unregisterMBean(objectName);
+		}
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+	
+	@Override
+	public String[] getHosts() {
+		return hosts.keySet().toArray(new String[0]);
+	}
+	
+	@Override
+	public long getRequestCount(String host) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? 0 : metrics.requests.sum();
+	}
+	
+	@Override
+	public long getErrorCount(String host) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? 0 : metrics.errors.sum();
+	}
+	
+	@Override
+	public long getStatusCount(String host, int statusCode) {
+		LatencyHistogram histogram = getLatencyHistogram(host, statusCode);
+		return histogram == null ? 0 : histogram.getCount();
+	}
+	
+	@Override
+	public long getBytesOut(String host) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? 0 : metrics.bytesOut.sum();
+	}
+	
+	@Override
+	public long getBytesIn(String host) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? 0 : metrics.bytesIn.sum();
+	}
+	
+	@Override
+	public double getLatencyMillis(String host, double percentile) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? 0 : metrics.latency.getPercentile(percentile) / 1000.0;
+	}
+	
+	@Override
+	public double getLeaseWaitMillis(String host, double percentile) {
+		HostMetrics metrics = hosts.get(host);
+		return metrics == null ? 0 : metrics.leaseWait.getPercentile(percentile) / 1000.0;
+	}
+	
+	@Override
+	public String getReport() {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, HostMetrics> entry : hosts.entrySet()) {
+			HostMetrics metrics = entry.getValue();
+			builder.append(entry.getKey()).append(": requests=").append(metrics.requests.sum())
+				.append(",errors=").append(metrics.errors.sum())
+				.append(",bytesOut=").append(metrics.bytesOut.sum())
+				.append(",bytesIn=").append(metrics.bytesIn.sum())
+				.append(",p50=").append(metrics.latency.getPercentile(50) / 1000.0).append("ms")
+				.append(",p99=").append(metrics.latency.getPercentile(99) / 1000.0).append("ms")
+				.append(",leaseWaitP99=").append(metrics.leaseWait.getPercentile(99) / 1000.0).append("ms")
+				.append(",status={");
+			for (Map.Entry<Integer, LatencyHistogram> status : metrics.statusLatency.entrySet()) {
+				builder.append(status.getKey()).append('=').append(status.getValue().getCount()).append(' ');
+			}
+			builder.append("}\n");
+		}
+		return builder.toString();
+	}
+	
+	@Override
+	public void reset() {
+		hosts.clear();
+	}
+	
+	/**
+	 * 单个目标主机的指标
+	 */
+	private static class HostMetrics {
+		
+		private final LongAdder requests = new LongAdder();
+		
+		private final LongAdder errors = new LongAdder();
+		
+		private final LongAdder bytesOut = new LongAdder();
+		
+		private final LongAdder bytesIn = new LongAdder();
+		
+		private final LatencyHistogram latency = new LatencyHistogram();
+		
+		private final ConcurrentMap<Integer, LatencyHistogram> statusLatency = new ConcurrentHashMap<>();
+		
+		private final LatencyHistogram leaseWait = new LatencyHistogram();
+		
+		/**
+		 * 先无锁查找，Java 8 的 computeIfAbsent 即使 key 已存在也会锁住所在的桶
+		 */
+		private LatencyHistogram getStatusLatency(int statusCode) {
+			Integer key = statusCode >= 0 && statusCode < STATUS_KEYS.length ? STATUS_KEYS[statusCode] : statusCode;
+			LatencyHistogram histogram = statusLatency.get(key);
+			if (histogram == null) {
+				histogram = statusLatency.computeIfAbsent(key, k -> new LatencyHistogram());
+			}
+			return histogram;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.cloudin.commons.langs.http;
+
+/**
+ * {@link DefaultHttpMetrics} 的 JMX 接口
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 22:00
+ */
+public interface DefaultHttpMetricsMBean {
+	
+	/**
+	 * @return 有记录的目标主机
+	 */
+	String[] getHosts();
+	
+	long getRequestCount(String host);
+	
+	long getErrorCount(String host);
+	
+	/**
+	 * @return 指定状态码的响应次数
+	 */
+	long getStatusCount(String host, int statusCode);
+	
+	long getBytesOut(String host);
+	
+	long getBytesIn(String host);
+	
+	/**
+	 * @param percentile 百分位，取值 (0, 100]
+	 *
+	 * @return 耗时百分位，单位：毫秒
+	 */
+	double getLatencyMillis(String host, double percentile);
+	
+	/**
+	 * @param percentile 百分位，取值 (0, 100]
+	 *
+	 * @return 从连接池获取连接的等待时间百分位，单位：毫秒
+	 */
+	double getLeaseWaitMillis(String host, double percentile);
+	
+	/**
+	 * @return 所有目标主机的指标汇总，每个主机一行
+	 */
+	String getReport();
+	
+	/**
+	 * 清空所有指标
+	 */
+	void reset();
+}
@@ -0,0 +1,16 @@
+package com.cloudin.commons.langs.http;
+
+import org.apache.http.HttpException;
+
+import java.io.IOException;
+
+/**
+ * 一次 http 请求
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public interface HttpCall<T> {
+	
+	T call() throws IOException, HttpException;
+}
@@ -0,0 +1,39 @@
+package com.cloudin.commons.langs.http;
+
+/**
+ * http 请求指标的接收方。方法在请求线程（异步请求为 I/O 线程）中同步调用，实现应尽量轻量，不能阻塞
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 22:00
+ * @see DefaultHttpMetrics
+ */
+public interface HttpMetricsSink {
+	
+	/**
+	 * 记录一次收到响应的请求
+	 *
+	 * @param host         目标主机，格式为 host[:port]
+	 * @param statusCode   响应状态码
+	 * @param latencyNanos 耗时（包括读取响应内容），单位：纳秒
+	 * @param bytesOut     请求内容字节数，未知时为 0
+	 * @param bytesIn      已读取的响应内容字节数
+	 */
+	void onResponse(String host, int statusCode, long latencyNanos, long bytesOut, long bytesIn);
+	
+	/**
+	 * 记录一次没有收到响应，或读取响应内容失败的请求
+	 *
+	 * @param host         目标主机，格式为 host[:port]
+	 * @param error        失败原因
+	 * @param latencyNanos 耗时，单位：纳秒
+	 */
+	void onError(String host, Throwable error, long latencyNanos);
+	
+	/**
+	 * 记录一次从连接池获取连接的等待
+	 *
+	 * @param host      目标主机，格式为 host[:port]
+	 * @param waitNanos 等待时间，单位：纳秒
+	 */
+	void onLeaseWait(String host, long waitNanos);
+}
@@ -0,0 +1,218 @@
+package com.cloudin.commons.langs.http;
+
+import org.apache.http.HttpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * http 请求的容错处理：重试、按目标主机熔断、按目标主机限制并发（舱壁）。
+ * <p>
+ * 每次尝试的顺序为：获取舱壁名额 -&gt; 熔断器放行 -&gt; 发送请求 -&gt; 报告结果。
+ * 熔断拒绝和舱壁已满不会重试，也不计入熔断失败次数。配置需在使用前设置完成
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class HttpResilience {
+	
+	private static final Logger logger = LoggerFactory.getLogger(HttpResilience.class);
+	
+	/**
+	 * 重试策略，默认最多尝试 3 次，退避 100 毫秒起，最长 2 秒
+	 */
+	private RetryPolicy retryPolicy = new RetryPolicy(3, 100, 2000);
+	
+	/**
+	 * 熔断阈值：连续失败次数，小于等于 0 时不熔断
+	 */
+	private int failureThreshold = 5;
+	
+	/**
+	 * 熔断持续时间，单位：毫秒
+	 */
+	private long openMillis = 30 * 1000;
+	
+	/**
+	 * 每个目标主机的最大并发请求数，小于等于 0 时不限制
+	 */
+	private int maxConcurrentPerHost = 0;
+	
+	/**
+	 * 等待并发名额的最长时间，单位：毫秒
+	 */
+	private long bulkheadWaitMillis = 0;
+	
+	private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+	
+	private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+	
+	/**
+	 * 执行请求，失败时按重试策略重试
+	 *
+	 * @param host       目标主机，作为熔断和舱壁的维度
+	 * @param idempotent 请求是否幂等
+	 * @param call       请求
+	 *
+	 * @return 请求结果
+	 *
+	 * @throws IOException   请求失败，或被熔断、舱壁拒绝
+	 * @throws HttpException 请求失败
+	 */
+	public <T> T execute(String host, boolean idempotent, HttpCall<T> call) throws IOException, HttpException {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return executeOnce(host, call);
+			} catch (IOException | HttpException e) {
+				if (!retryPolicy.shouldRetry(attempt, e, idempotent)) {
+					throw e;
+				}
+				long delay = retryPolicy.backoffMillis(attempt);
+				logger.warn("请求失败，{} 毫秒后重试：host={},attempt={},error={}", delay, host, attempt, e.toString());
+				sleep(delay);
+			}
+		}
+	}
+	
+	private <T> T executeOnce(String host, HttpCall<T> call) throws IOException, HttpException {
+		Bulkhead bulkhead = getBulkhead(host);
+		if (bulkhead != null) {
+			boolean acquired;
+			try {
+				acquired = bulkhead.tryAcquire(bulkheadWaitMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("等待并发名额时被中断");
+			}
+			if (!acquired) {
+				throw new BulkheadFullException("并发请求数已达上限：host=" + host + ",maxConcurrent="
+					+ bulkhead.getMaxConcurrent());
+			}
+		}
+		try {
+			CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+			if (circuitBreaker == null) {
+				return call.call();
+			}
+			long permit = circuitBreaker.tryAcquire();
+			if (permit == CircuitBreaker.NO_PERMIT) {
+				throw new CircuitBreakerOpenException("目标主机熔断中：host=" + host);
+			}
+			boolean success = false;
+			try {
+				T result = call.call();
+				success = true;
+				return result;
+			} catch (HttpStatusException e) {
+				// 4xx 是请求本身的问题，不代表目标主机不健康
+				success = !e.isServerError();
+				throw e;
+			} finally {
+				if (success) {
+					circuitBreaker.onSuccess(permit);
+				} else {
+					circuitBreaker.onFailure(permit);
+				}
+			}
+		} finally {
+			if (bulkhead != null) {
+				bulkhead.release();
+			}
+		}
+	}
+	
+	private static void sleep(long millis) throws InterruptedIOException {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("重试等待时被中断");
+		}
+	}
+	
+	/**
+	 * @param host 目标主机
+	 *
+	 * @return 目标主机的熔断器，未启用熔断时返回 null
+	 */
+	public CircuitBreaker getCircuitBreaker(String host) {
+		if (failureThreshold <= 0) {
+			return null;
+		}
+		return circuitBreakers.computeIfAbsent(host, key -> new CircuitBreaker(failureThreshold, openMillis));
+	}
+	
+	/**
+	 * @param host 目标主机
+	 *
+	 * @return 目标主机的舱壁，未限制并发时返回 null
+	 */
+	public Bulkhead getBulkhead(String host) {
+		if (maxConcurrentPerHost <= 0) {
+			return null;
+		}
+		return bulkheads.computeIfAbsent(host, key -> new Bulkhead(maxConcurrentPerHost));
+	}
+	
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+	
+	/**
+	 * @param retryPolicy 重试策略，{@link RetryPolicy#NONE} 表示不重试
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+	
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+	
+	/**
+	 * @param failureThreshold 熔断阈值：连续失败次数，小于等于 0 时不熔断
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		this.failureThreshold = failureThreshold;
+	}
+	
+	public long getOpenMillis() {
+		return openMillis;
+	}
+	
+	/**
+	 * @param openMillis 熔断持续时间，之后放行一个试探请求，单位：毫秒
+	 */
+	public void setOpenMillis(long openMillis) {
+		this.openMillis = openMillis;
+	}
+	
+	public int getMaxConcurrentPerHost() {
+		return maxConcurrentPerHost;
+	}
+	
+	/**
+	 * @param maxConcurrentPerHost 每个目标主机的最大并发请求数，小于等于 0 时不限制
+	 */
+	public void setMaxConcurrentPerHost(int maxConcurrentPerHost) {
+		this.maxConcurrentPerHost = maxConcurrentPerHost;
+	}
+	
+	public long getBulkheadWaitMillis() {
+		return bulkheadWaitMillis;
+	}
+	
+	/**
+	 * @param bulkheadWaitMillis 等待并发名额的最长时间，超时抛出 {@link BulkheadFullException}，单位：毫秒
+	 */
+	public void setBulkheadWaitMillis(long bulkheadWaitMillis) {
+		this.bulkheadWaitMillis = bulkheadWaitMillis;
+	}
+}
@@ -0,0 +1,32 @@
+package com.cloudin.commons.langs.http;
+
+import org.apache.http.HttpException;
+
+/**
+ * 响应状态不是 200 时抛出的异常
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class HttpStatusException extends HttpException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final int statusCode;
+	
+	public HttpStatusException(int statusCode, String message) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+	
+	public int getStatusCode() {
+		return statusCode;
+	}
+	
+	/**
+	 * @return 是否为服务端错误（5xx）或请求过多（429），此类错误可以重试，并计入熔断失败次数
+	 */
+	public boolean isServerError() {
+		return statusCode >= 500 || statusCode == 429;
+	}
+}
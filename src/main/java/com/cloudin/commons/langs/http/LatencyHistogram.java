@@ -0,0 +1,132 @@
+package com.cloudin.commons.langs.http;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图（HDR 风格的对数-线性分桶），单位：微秒。
+ * <p>
+ * 小于 32 的值每个值一个桶；之后每个 2 的幂区间再等分为 16 个桶，相对误差不超过 1/16。
+ * 记录只需一次数组下标计算和一次原子自增，不加锁、不分配对象。可记录的最大值约 25 天，超出的值记入最后一个桶
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 22:00
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 5;
+	
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	
+	private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT >> 1;
+	
+	/**
+	 * 最大移位数，对应可记录的最大值 2^(36+5) 微秒
+	 */
+	private static final int MAX_SHIFT = 36;
+	
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + MAX_SHIFT * HALF_SUB_BUCKET_COUNT;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	
+	private final LongAdder totalCount = new LongAdder();
+	
+	private final LongAdder totalMicros = new LongAdder();
+	
+	/**
+	 * 记录一个值
+	 *
+	 * @param micros 耗时，单位：微秒
+	 */
+	public void record(long micros) {
+		if (micros < 0) {
+			micros = 0;
+		}
+		counts.incrementAndGet(bucketIndex(micros));
+		totalCount.increment();
+		totalMicros.add(micros);
+	}
+	
+	/**
+	 * 记录一个值
+	 *
+	 * @param nanos 耗时，单位：纳秒
+	 */
+	public void recordNanos(long nanos) {
+		record(nanos / 1000);
+	}
+	
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		if (shift > MAX_SHIFT) {
+			return BUCKET_COUNT - 1;
+		}
+		int mantissa = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (mantissa - HALF_SUB_BUCKET_COUNT);
+	}
+	
+	/**
+	 * @return 桶的上界（包含）
+	 */
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int k = index - SUB_BUCKET_COUNT;
+		int shift = k / HALF_SUB_BUCKET_COUNT + 1;
+		long mantissa = k % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+		return ((mantissa + 1) << shift) - 1;
+	}
+	
+	/**
+	 * @param percentile 百分位，取值 (0, 100]
+	 *
+	 * @return 百分位对应的值（所在桶的上界），没有记录时返回 0，单位：微秒
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= target) {
+				return bucketUpperBound(i);
+			}
+		}
+		return bucketUpperBound(BUCKET_COUNT - 1);
+	}
+	
+	public long getCount() {
+		return totalCount.sum();
+	}
+	
+	/**
+	 * @return 平均值，没有记录时返回 0，单位：微秒
+	 */
+	public double getMean() {
+		long count = totalCount.sum();
+		return count == 0 ? 0 : (double) totalMicros.sum() / count;
+	}
+	
+	/**
+	 * 清空记录。与 {@link #record(long)} 并发时，清空期间的记录可能部分丢失
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.reset();
+		totalMicros.reset();
+	}
+}
@@ -0,0 +1,61 @@
+package com.cloudin.commons.langs.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 记录连接池等待时间的连接池。等待时间通过 {@link HttpMetricsSink#onLeaseWait(String, long)} 上报，
+ * 目标主机格式为 host:port
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 22:00
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+	
+	private final Supplier<HttpMetricsSink> metricsSinkSupplier;
+	
+	/**
+	 * @param registry            连接工厂
+	 * @param metricsSinkSupplier 指标接收方，返回 null 时不记录
+	 */
+	public MeteredConnectionManager(Registry<ConnectionSocketFactory> registry,
+		Supplier<HttpMetricsSink> metricsSinkSupplier) {
+		super(registry);
+		this.metricsSinkSupplier = metricsSinkSupplier;
+	}
+	
+	@Override
+	public ConnectionRequest requestConnection(final HttpRoute route, Object state) {
+		final ConnectionRequest request = super.requestConnection(route, state);
+		final HttpMetricsSink metricsSink = metricsSinkSupplier.get();
+		if (metricsSink == null) {
+			return request;
+		}
+		return new ConnectionRequest() {
+			@Override
+			public HttpClientConnection get(long timeout, TimeUnit tunit)
+				throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+				long start = System.nanoTime();
+				try {
+					return request.get(timeout, tunit);
+				} finally {
+					metricsSink.onLeaseWait(route.getTargetHost().toHostString(), System.nanoTime() - start);
+				}
+			}
+			
+			@Override
+			public boolean cancel() {
+				return request.cancel();
+			}
+		};
+	}
+}
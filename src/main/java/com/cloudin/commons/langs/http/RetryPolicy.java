@@ -0,0 +1,126 @@
+package com.cloudin.commons.langs.http;
+
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试策略：指数退避 + 随机抖动（full jitter）。
+ * <p>
+ * 第 n 次重试前等待 [0, min(maxDelayMillis, baseDelayMillis * 2^(n-1))) 之间的随机时间，避免大量客户端同时重试。
+ * 幂等请求在 IO 异常和服务端错误时重试；非幂等请求只在连接未建立时重试，此时请求一定没有发送到服务端
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 21:10
+ */
+public class RetryPolicy {
+	
+	/**
+	 * 不重试
+	 */
+	public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+	
+	/**
+	 * 最大尝试次数，包括第一次请求
+	 */
+	private final int maxAttempts;
+	
+	/**
+	 * 退避基础时间，单位：毫秒
+	 */
+	private final long baseDelayMillis;
+	
+	/**
+	 * 退避时间上限，单位：毫秒
+	 */
+	private final long maxDelayMillis;
+	
+	/**
+	 * @param maxAttempts     最大尝试次数，包括第一次请求
+	 * @param baseDelayMillis 退避基础时间，单位：毫秒
+	 * @param maxDelayMillis  退避时间上限，单位：毫秒
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts 不能小于 1");
+		}
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+	}
+	
+	/**
+	 * 判断失败的请求是否可以重试
+	 *
+	 * @param attempt    已尝试次数
+	 * @param e          失败原因
+	 * @param idempotent 请求是否幂等
+	 *
+	 * @return 是否重试
+	 */
+	public boolean shouldRetry(int attempt, Exception e, boolean idempotent) {
+		if (attempt >= maxAttempts) {
+			return false;
+		}
+		if (e instanceof CircuitBreakerOpenException || e instanceof BulkheadFullException) {
+			return false;
+		}
+		if (isConnectFailure(e)) {
+			return true;
+		}
+		if (!idempotent) {
+			return false;
+		}
+		if (e instanceof HttpStatusException) {
+			return ((HttpStatusException) e).isServerError();
+		}
+		if (e instanceof UnknownHostException) {
+			return false;
+		}
+		if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+			// 线程被中断
+			return false;
+		}
+		return e instanceof IOException;
+	}
+	
+	/**
+	 * 计算第 attempt 次重试前的等待时间
+	 *
+	 * @param attempt 重试序号，从 1 开始
+	 *
+	 * @return 等待时间，单位：毫秒
+	 */
+	public long backoffMillis(int attempt) {
+		if (baseDelayMillis <= 0) {
+			return 0;
+		}
+		int shift = Math.min(attempt - 1, 30);
+		long ceiling = Math.min(maxDelayMillis, baseDelayMillis << shift);
+		return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling);
+	}
+	
+	/**
+	 * @return 是否为连接建立失败，此时请求一定没有发送
+	 */
+	private static boolean isConnectFailure(Exception e) {
+		return e instanceof ConnectException || e instanceof ConnectTimeoutException;
+	}
+	
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+	
+	public long getBaseDelayMillis() {
+		return baseDelayMillis;
+	}
+	
+	public long getMaxDelayMillis() {
+		return maxDelayMillis;
+	}
+}
@@ -0,0 +1,62 @@
+package com.cloudin.commons.langs.idgenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/**
+ * 基于本地文件的号段存储，每个业务标识对应目录下的一个文件，文件内容为8字节的当前最大Id。
+ * <p>
+ * 通过文件锁保证多进程分配号段时互斥，仅适用于测试或单机部署
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 13:52
+ */
+public class FileSegmentStore implements SegmentStore {
+	
+	private final File dir;
+	
+	/**
+	 * @param dir 存放号段文件的目录，不存在时自动创建
+	 */
+	public FileSegmentStore(File dir) {
+		if (!dir.exists() && !dir.mkdirs()) {
+			throw new IllegalArgumentException("创建目录失败：" + dir.getAbsolutePath());
+		}
+		if (!dir.isDirectory()) {
+			throw new IllegalArgumentException(dir.getAbsolutePath() + " 不是一个目录");
+		}
+		this.dir = dir;
+	}
+	
+	/**
+	 * @param dir 存放号段文件的目录，不存在时自动创建
+	 */
+	public FileSegmentStore(String dir) {
+		this(new File(dir));
+	}
+	
+	/**
+	 * 同一个进程内的 {@link FileLock} 不能重叠，这里先用对象锁互斥，再用文件锁与其它进程互斥
+	 */
+	@Override
+	public synchronized long nextMaxId(String bizTag, int step) throws IOException {
+		File file = new File(dir, bizTag + ".segment");
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			FileChannel channel = raf.getChannel()) {
+			FileLock lock = channel.lock();
+			try {
+				long maxId = raf.length() >= 8 ? raf.readLong() : 0L;
+				maxId += step;
+				raf.seek(0);
+				raf.writeLong(maxId);
+				channel.force(true);
+				return maxId;
+			} finally {
+				lock.release();
+			}
+		}
+	}
+}
@@ -8,4 +8,22 @@ public interface IdGenerator {
 
 
     String newId();
+
+    /**
+     * 批量生成 Id。默认逐个调用 {@link #newId()}，实现类可以一次性预留一段 Id 以减少开销
+     *
+     * @param n 生成数量
+     *
+     * @return Id 数组，长度为 n
+     */
+    default String[] newIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n can't be less than 0");
+        }
+        String[] ids = new String[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = newId();
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,267 @@
+package com.cloudin.commons.langs.idgenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 号段模式的 Id 生成器（参考美团 Leaf-segment）。
+ * <p>
+ * 每次从 {@link SegmentStore} 领取一个长度为 step 的号段，各线程再从当前号段中批量领取 localBatch 个Id 放入线程本地缓冲，
+ * 之后的 {@link #nextId()} 只读写线程本地缓冲，不加锁、不分配对象。当前号段使用到 80% 时，由后台线程异步预取下一个号段，
+ * 只有存储的响应慢到当前号段的剩余 20% 都被用完时，取号线程才会等待。
+ * <p>
+ * 生成的Id全局唯一、单个线程内递增，但由于各线程分批领取，不保证全局递增；线程结束或进程重启时，未用完的Id会被丢弃。
+ * 不再使用时调用 {@link #close()} 停止预取线程，之后仍可继续取号，但号段改为同步加载
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 14:05
+ */
+public class SegmentIdGenerator implements IdGenerator, AutoCloseable {
+	
+	private Logger logger = LoggerFactory.getLogger(getClass());
+	
+	/**
+	 * 号段使用到该比例时预取下一个号段
+	 */
+	private static final double PREFETCH_RATIO = 0.8;
+	
+	/**
+	 * 号段已被切换的标记，之后不再为该号段预取
+	 */
+	private static final Future<Segment> SWITCHED = CompletableFuture.completedFuture(null);
+	
+	private final SegmentStore store;
+	
+	/**
+	 * 业务标识
+	 */
+	private final String bizTag;
+	
+	/**
+	 * 号段长度
+	 */
+	private final int step;
+	
+	/**
+	 * 线程每次从号段领取的Id个数
+	 */
+	private final int localBatch;
+	
+	/**
+	 * 当前号段
+	 */
+	private volatile Segment current;
+	
+	private final ExecutorService prefetchExecutor;
+	
+	private final ThreadLocal<LocalBuffer> localBuffer = ThreadLocal.withInitial(LocalBuffer::new);
+	
+	/**
+	 * @param store  号段存储
+	 * @param bizTag 业务标识
+	 * @param step   号段长度
+	 */
+	public SegmentIdGenerator(SegmentStore store, String bizTag, int step) {
+		this(store, bizTag, step, Math.max(1, Math.min(100, step / 100)));
+	}
+	
+	/**
+	 * @param store      号段存储
+	 * @param bizTag     业务标识
+	 * @param step       号段长度
+	 * @param localBatch 线程每次从号段领取的Id个数，不能大于 step
+	 */
+	public SegmentIdGenerator(SegmentStore store, String bizTag, int step, int localBatch) {
+		if (step <= 0) {
+			throw new IllegalArgumentException("step must be greater than 0");
+		}
+		if (localBatch <= 0 || localBatch > step) {
+			throw new IllegalArgumentException("localBatch must be between 1 and step");
+		}
+		this.store = store;
+		this.bizTag = bizTag;
+		this.step = step;
+		this.localBatch = localBatch;
+		this.prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "segment-prefetch-" + bizTag);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	public String getBizTag() {
+		return bizTag;
+	}
+	
+	public int getStep() {
+		return step;
+	}
+	
+	public int getLocalBatch() {
+		return localBatch;
+	}
+	
+	/**
+	 * 获得下一个ID (该方法是线程安全的)
+	 *
+	 * @return Id
+	 */
+	public long nextId() {
+		LocalBuffer buffer = localBuffer.get();
+		if (buffer.cursor >= buffer.end) {
+			refill(buffer);
+		}
+		return buffer.cursor++;
+	}
+	
+	@Override
+	public String newId() {
+		return String.valueOf(nextId());
+	}
+	
+	/**
+	 * 停止预取线程，取消尚未执行的预取，等待这些号段的取号线程改为同步加载
+	 */
+	@Override
+	public void close() {
+		for (Runnable pending : prefetchExecutor.shutdownNow()) {
+			if (pending instanceof Future) {
+				((Future<?>) pending).cancel(false);
+			}
+		}
+	}
+	
+	/**
+	 * 从当前号段领取一批Id放入线程本地缓冲，当前号段用完时切换到下一个号段
+	 *
+	 * @param buffer 线程本地缓冲
+	 */
+	private void refill(LocalBuffer buffer) {
+		for (; ; ) {
+			Segment segment = current;
+			if (segment != null) {
+				long start = segment.cursor.getAndAdd(localBatch);
+				if (start < segment.end) {
+					long end = Math.min(start + localBatch, segment.end);
+					if (end >= segment.prefetchAt && segment.next.get() == null) {
+						prefetch(segment);
+					}
+					buffer.cursor = start;
+					buffer.end = end;
+					return;
+				}
+			}
+			switchSegment(segment);
+		}
+	}
+	
+	/**
+	 * 为指定号段预取下一个号段。预取结果只挂在该号段上，号段已切换时不再预取，避免预取的号段被覆盖或丢弃
+	 *
+	 * @param segment 当前号段
+	 */
+	private void prefetch(Segment segment) {
+		if (prefetchExecutor.isShutdown()) {
+			return;
+		}
+		FutureTask<Segment> task = new FutureTask<>(this::loadSegment);
+		if (segment.next.compareAndSet(null, task)) {
+			try {
+				prefetchExecutor.execute(task);
+			} catch (RejectedExecutionException e) {
+				// 已关闭，切换号段时同步加载
+				task.cancel(false);
+			}
+		}
+	}
+	
+	/**
+	 * 切换到下一个号段。优先使用为已用完号段预取的号段，预取失败或未预取时同步加载
+	 *
+	 * @param exhausted 已用完的号段
+	 */
+	private synchronized void switchSegment(Segment exhausted) {
+		if (current != exhausted) {
+			// 其它线程已经切换过了
+			return;
+		}
+		Future<Segment> future = exhausted == null ? null : exhausted.next.getAndSet(SWITCHED);
+		Segment segment = null;
+		if (future != null) {
+			try {
+				segment = future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("等待号段时被中断：" + bizTag, e);
+			} catch (ExecutionException e) {
+				logger.error("预取号段失败，bizTag=" + bizTag, e.getCause());
+			} catch (CancellationException e) {
+				logger.debug("预取已取消，同步加载号段，bizTag={}", bizTag);
+			}
+		}
+		if (segment == null) {
+			try {
+				segment = loadSegment();
+			} catch (Exception e) {
+				throw new IllegalStateException("获取号段失败：" + bizTag, e);
+			}
+		}
+		current = segment;
+	}
+	
+	private Segment loadSegment() throws Exception {
+		long maxId = store.nextMaxId(bizTag, step);
+		logger.info("bizTag={},segment=({}, {}]", bizTag, maxId - step, maxId);
+		return new Segment(maxId - step + 1, maxId + 1);
+	}
+	
+	/**
+	 * 号段，Id 范围为 [start, end)
+	 */
+	private static class Segment {
+		
+		private final long end;
+		
+		/**
+		 * 下一批Id的起始值，多线程领取后可能超过 end
+		 */
+		private final AtomicLong cursor;
+		
+		/**
+		 * 领取到该位置时预取下一个号段
+		 */
+		private final long prefetchAt;
+		
+		/**
+		 * 为该号段预取的下一个号段，切换后为 {@link #SWITCHED}
+		 */
+		private final AtomicReference<Future<Segment>> next = new AtomicReference<>();
+		
+		private Segment(long start, long end) {
+			this.end = end;
+			this.cursor = new AtomicLong(start);
+			this.prefetchAt = start + (long) ((end - start) * PREFETCH_RATIO);
+		}
+	}
+	
+	/**
+	 * 线程本地缓冲，Id 范围为 [cursor, end)
+	 */
+	private static class LocalBuffer {
+		
+		private long cursor;
+		
+		private long end;
+	}
+}
@@ -0,0 +1,28 @@
+package com.cloudin.commons.langs.idgenerator;
+
+/**
+ * 号段存储。为 {@link SegmentIdGenerator} 分配号段，一般基于数据库实现：
+ * <pre>
+ * UPDATE id_segment SET max_id = max_id + #{step} WHERE biz_tag = #{bizTag};
+ * SELECT max_id FROM id_segment WHERE biz_tag = #{bizTag};
+ * </pre>
+ * 以上两条语句需要在同一个事务中执行。
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 13:40
+ * @see FileSegmentStore
+ */
+public interface SegmentStore {
+	
+	/**
+	 * 将指定业务的最大Id增加 step，并返回增加后的最大Id。调用方获得的号段为 (返回值 - step, 返回值]
+	 *
+	 * @param bizTag 业务标识
+	 * @param step   号段长度
+	 *
+	 * @return 增加后的最大Id
+	 *
+	 * @throws Exception 分配失败
+	 */
+	long nextMaxId(String bizTag, int step) throws Exception;
+}
@@ -1,8 +1,15 @@
 package com.cloudin.commons.langs.idgenerator;
 
+import com.cloudin.commons.langs.time.Clock;
+import com.cloudin.commons.langs.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Twitter 雪花算法的 Id 生成器
  * <p>
@@ -17,11 +24,17 @@ import org.slf4j.LoggerFactory;
  * 加起来刚好64位，为一个Long型。<br>
  * <p>
  * SnowFlake的优点是，整体上按照时间自增排序，并且整个分布式系统内不会产生ID碰撞(由数据中心ID和机器ID作区分)，并且效率较高，经测试，SnowFlake每秒能够产生26万ID左右。
+ * <p>
+ * 上次生成ID的时间截和毫秒内序列打包保存在同一个 {@link AtomicLong} 中（高位为相对基准时间戳的时间截，低 sequenceBits 位为序列），
+ * 默认在对象锁内推进；通过 {@link #setLockFree(boolean)} 开启无锁模式后，改为 CAS 推进，生成的 Id 位布局不变。
+ * <p>
+ * 默认遇到时钟回拨时抛出异常。通过 {@link #setMaxBackwardMillis(long)} 允许逻辑时钟超前系统时间一小段，
+ * 小幅回拨时沿用上次的时间截继续生成（即向未来借用时间截），超出该范围才抛出异常。
  *
  * @author 小天
  * @version 1.0.0, 2018/6/5 0005 10:41
  */
-public class SnowflakeIdGenerator {
+public class SnowflakeIdGenerator implements IdGenerator {
 	private Logger logger = LoggerFactory.getLogger(getClass());
 	
 	/**
@@ -34,6 +47,11 @@ public class SnowflakeIdGenerator {
 	 */
 	private final static long TIMESTAMP_LEFT_SHIFT = 22;
 	
+	/**
+	 * 等待下一毫秒时，单次 park 的时长，单位：纳秒
+	 */
+	private final static long PARK_NANOS = 100_000L;
+	
 	/**
 	 * 机器 id 所占的位数
 	 */
@@ -83,14 +101,49 @@ public class SnowflakeIdGenerator {
 	private long dataCenterIdMask;
 	
 	/**
-	 * 毫秒内序列(0~4095)
+	 * 打包后的状态：(上次生成ID的时间截 - 基准时间戳) 左移 sequenceBits 位，再与毫秒内序列按位或。-1 表示尚未生成过ID
+	 */
+	private final AtomicLong state = new AtomicLong(-1L);
+	
+	/**
+	 * 批量预留时借用到的最大未来时间截（相对基准时间戳）。上次生成ID的时间截不超过该值时，当前时间落后于它不视为时钟回拨
+	 */
+	private final AtomicLong borrowedUntil = new AtomicLong(-1L);
+	
+	/**
+	 * 是否使用无锁(CAS)模式生成ID
+	 */
+	private volatile boolean lockFree = false;
+	
+	/**
+	 * 逻辑时钟允许超前系统时间的最大毫秒数，默认0，即不容忍时钟回拨
+	 */
+	private volatile long maxBackwardMillis = 0L;
+	
+	/**
+	 * 毫秒内序列溢出、等待下一毫秒时，是否让出CPU(park)而不是自旋
 	 */
-	private long sequence = 0L;
+	private volatile boolean parkOnOverflow = false;
 	
 	/**
-	 * 上次生成ID的时间截
+	 * 时钟，默认为系统时钟
 	 */
-	private long lastTimeStamp = -1L;
+	private volatile Clock clock = SystemClock.INSTANCE;
+	
+	/**
+	 * 时间截超前于系统时间（向未来借用）的ID个数
+	 */
+	private final LongAdder borrowedCount = new LongAdder();
+	
+	/**
+	 * 等待时钟的次数
+	 */
+	private final LongAdder waitCount = new LongAdder();
+	
+	/**
+	 * 等待时钟的累计时长，单位：纳秒
+	 */
+	private final LongAdder waitNanos = new LongAdder();
 	
 	/**
 	 * 构造函数。5位数据中心Id，5位机器Id
@@ -176,7 +229,83 @@ public class SnowflakeIdGenerator {
 	}
 	
 	public long getLastTimeStamp() {
-		return lastTimeStamp;
+		long current = state.get();
+		if (current < 0) {
+			return -1L;
+		}
+		return (current >> sequenceBits) + baseTimeStamp;
+	}
+	
+	public boolean isLockFree() {
+		return lockFree;
+	}
+	
+	/**
+	 * @param lockFree 是否使用无锁(CAS)模式生成ID。两种模式共用同一份状态，运行期切换不会产生重复ID
+	 */
+	public void setLockFree(boolean lockFree) {
+		this.lockFree = lockFree;
+	}
+	
+	public long getMaxBackwardMillis() {
+		return maxBackwardMillis;
+	}
+	
+	/**
+	 * @param maxBackwardMillis 逻辑时钟允许超前系统时间的最大毫秒数。时钟回拨不超过该值时继续生成ID，
+	 *                          毫秒内序列溢出时也可以直接借用之后的毫秒，而不必等待时钟
+	 */
+	public void setMaxBackwardMillis(long maxBackwardMillis) {
+		if (maxBackwardMillis < 0) {
+			throw new IllegalArgumentException("maxBackwardMillis can't be less than 0");
+		}
+		this.maxBackwardMillis = maxBackwardMillis;
+	}
+	
+	public Clock getClock() {
+		return clock;
+	}
+	
+	/**
+	 * @param clock 时钟。可以使用 {@link com.cloudin.commons.langs.time.CachedClock} 避免每次生成ID都读取系统时间
+	 */
+	public void setClock(Clock clock) {
+		if (clock == null) {
+			throw new IllegalArgumentException("clock can't be null");
+		}
+		this.clock = clock;
+	}
+	
+	public boolean isParkOnOverflow() {
+		return parkOnOverflow;
+	}
+	
+	/**
+	 * @param parkOnOverflow 毫秒内序列溢出、等待下一毫秒时，是否让出CPU(park)而不是自旋
+	 */
+	public void setParkOnOverflow(boolean parkOnOverflow) {
+		this.parkOnOverflow = parkOnOverflow;
+	}
+	
+	/**
+	 * @return 时间截超前于系统时间（向未来借用）的ID个数
+	 */
+	public long getBorrowedCount() {
+		return borrowedCount.sum();
+	}
+	
+	/**
+	 * @return 等待时钟的次数
+	 */
+	public long getWaitCount() {
+		return waitCount.sum();
+	}
+	
+	/**
+	 * @return 等待时钟的累计时长，单位：毫秒
+	 */
+	public long getWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
 	}
 	
 	/**
@@ -184,37 +313,201 @@ public class SnowflakeIdGenerator {
 	 *
 	 * @return SnowflakeId
 	 */
-	public synchronized long nextId() {
-		long timestamp = getTime();
-		
-		//如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
-		if (timestamp < lastTimeStamp) {
+	public long nextId() {
+		if (lockFree) {
+			return advance();
+		}
+		synchronized (this) {
+			return advance();
+		}
+	}
+	
+	/**
+	 * 以 CAS 方式推进时间截和毫秒内序列，并生成ID。在对象锁内调用时，CAS 总是一次成功
+	 *
+	 * @return SnowflakeId
+	 */
+	private long advance() {
+		for (; ; ) {
+			long current = state.get();
+			long lastTimeStamp = current >> sequenceBits;
+			long now = getTime() - baseTimeStamp;
+			long timestamp = now;
+			
+			if (timestamp < lastTimeStamp) {
+				checkBackwards(lastTimeStamp, timestamp);
+				//回拨在容忍范围内，或仍处于批量预留借用的时间窗口内，沿用上次的时间截
+				timestamp = lastTimeStamp;
+			}
+			
+			long sequence;
+			//如果是同一时间生成的，则进行毫秒内序列
+			if (lastTimeStamp == timestamp) {
+				sequence = (current + 1) & sequenceMask;
+				//毫秒内序列溢出
+				if (sequence == 0) {
+					if (lastTimeStamp + 1 - now <= maxBackwardMillis) {
+						//借用下一毫秒
+						timestamp = lastTimeStamp + 1;
+					} else {
+						//阻塞到可以使用下一个毫秒后重试
+						waitUntilAfter(lastTimeStamp - maxBackwardMillis);
+						continue;
+					}
+				}
+			} else {
+				//时间戳改变，毫秒内序列重置
+				sequence = 0L;
+			}
+			
+			if (state.compareAndSet(current, (timestamp << sequenceBits) | sequence)) {
+				if (timestamp > now) {
+					borrowedCount.increment();
+				}
+				//移位并通过或运算拼到一起组成64位的ID
+				return (timestamp << TIMESTAMP_LEFT_SHIFT) | dataCenterIdMask | workerIdMask | sequence;
+			}
+		}
+	}
+	
+	@Override
+	public String newId() {
+		return String.valueOf(nextId());
+	}
+	
+	@Override
+	public String[] newIds(int n) {
+		long[] ids = nextIds(n);
+		String[] res = new String[n];
+		for (int i = 0; i < n; i++) {
+			res[i] = String.valueOf(ids[i]);
+		}
+		return res;
+	}
+	
+	/**
+	 * 批量获得ID (该方法是线程安全的)
+	 *
+	 * @param n 生成数量
+	 *
+	 * @return SnowflakeId 数组，长度为 n，数组内的ID连续递增
+	 *
+	 * @see #nextIds(long[])
+	 */
+	public long[] nextIds(int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("n can't be less than 0");
+		}
+		long[] dest = new long[n];
+		nextIds(dest);
+		return dest;
+	}
+	
+	/**
+	 * 批量获得ID并填充到指定数组 (该方法是线程安全的)。
+	 * <p>
+	 * 一次推进状态即可预留一段连续的时间截和序列，只读取一次当前时间。当前毫秒的序列不够用时，直接顺延到之后的毫秒，
+	 * 不等待时钟：此时ID中的时间截会略超前于当前时间（每 2^sequenceBits 个ID超前 1 毫秒），之后生成的ID接着这段时间截继续分配
+	 *
+	 * @param dest 目标数组，会被完整填充
+	 */
+	public void nextIds(long[] dest) {
+		if (dest.length == 0) {
+			return;
+		}
+		long start;
+		if (lockFree) {
+			start = reserve(dest.length);
+		} else {
+			synchronized (this) {
+				start = reserve(dest.length);
+			}
+		}
+		for (int i = 0; i < dest.length; i++) {
+			long packed = start + i;
+			dest[i] = ((packed >> sequenceBits) << TIMESTAMP_LEFT_SHIFT) | dataCenterIdMask | workerIdMask
+				| (packed & sequenceMask);
+		}
+	}
+	
+	/**
+	 * 预留 n 个连续的时间截和序列
+	 *
+	 * @param n 预留数量
+	 *
+	 * @return 预留的第一个打包状态，之后的状态依次加一
+	 */
+	private long reserve(int n) {
+		for (; ; ) {
+			long current = state.get();
+			long lastTimeStamp = current >> sequenceBits;
+			long now = getTime() - baseTimeStamp;
+			long timestamp = now;
+			
+			if (timestamp < lastTimeStamp) {
+				checkBackwards(lastTimeStamp, timestamp);
+				timestamp = lastTimeStamp;
+			}
+			
+			//同一毫秒内直接在打包状态上加一，序列溢出时自然进位到下一毫秒
+			long start = lastTimeStamp == timestamp ? current + 1 : timestamp << sequenceBits;
+			long end = start + n - 1;
+			long endTimeStamp = end >> sequenceBits;
+			if (endTimeStamp > now) {
+				//先登记借用窗口再发布状态，保证看到新状态的线程一定能看到对应的借用窗口。
+				//CAS 失败时留下的窗口只会略微放宽回拨检测，不影响ID的唯一性
+				borrowUntil(endTimeStamp);
+			}
+			if (state.compareAndSet(current, end)) {
+				if (endTimeStamp > now) {
+					borrowedCount.add(end - Math.max(start, (now + 1) << sequenceBits) + 1);
+				}
+				return start;
+			}
+		}
+	}
+	
+	/**
+	 * 登记批量预留借用到的时间截
+	 *
+	 * @param endTimeStamp 预留的最后一个时间截（相对基准时间戳）
+	 */
+	void borrowUntil(long endTimeStamp) {
+		borrowedUntil.accumulateAndGet(endTimeStamp, Math::max);
+	}
+	
+	/**
+	 * 当前时间小于上一次ID生成的时间戳，且超出了容忍范围、也不在批量预留借用的时间窗口内，说明系统时钟回退过，这个时候应当抛出异常
+	 *
+	 * @param lastTimeStamp 上次生成ID的时间截（相对基准时间戳）
+	 * @param timestamp     当前时间截（相对基准时间戳）
+	 */
+	private void checkBackwards(long lastTimeStamp, long timestamp) {
+		if (lastTimeStamp - timestamp > maxBackwardMillis && lastTimeStamp > borrowedUntil.get()) {
 			throw new RuntimeException(String
 				.format("Clock moved backwards.  Refusing to generate id for %d milliseconds",
 					lastTimeStamp - timestamp));
 		}
-		
-		//如果是同一时间生成的，则进行毫秒内序列
-		if (lastTimeStamp == timestamp) {
-			sequence = (sequence + 1) & sequenceMask;
-			//毫秒内序列溢出
-			if (sequence == 0) {
-				//阻塞到下一个毫秒,获得新的时间戳
-				timestamp = getTime();
-				while (timestamp <= lastTimeStamp) {
-					timestamp = getTime();
-				}
+	}
+	
+	/**
+	 * 阻塞到指定时间截之后的毫秒。开启 {@link #parkOnOverflow} 时让出CPU，否则自旋
+	 *
+	 * @param lastTimeStamp 相对基准时间戳的时间截
+	 */
+	private void waitUntilAfter(long lastTimeStamp) {
+		long begin = System.nanoTime();
+		long timestamp = getTime() - baseTimeStamp;
+		while (timestamp <= lastTimeStamp) {
+			if (parkOnOverflow) {
+				long remaining = lastTimeStamp + 1 - timestamp;
+				//只差不到一毫秒时小步等待，避免多睡一整个毫秒
+				LockSupport.parkNanos(remaining > 1 ? TimeUnit.MILLISECONDS.toNanos(remaining - 1) : PARK_NANOS);
 			}
-		} else {
-			//时间戳改变，毫秒内序列重置
-			sequence = 0L;
+			timestamp = getTime() - baseTimeStamp;
 		}
-		
-		//上次生成ID的时间截
-		lastTimeStamp = timestamp;
-		
-		//移位并通过或运算拼到一起组成64位的ID
-		return ((timestamp - baseTimeStamp) << TIMESTAMP_LEFT_SHIFT) | dataCenterIdMask | workerIdMask | sequence;
+		waitCount.increment();
+		waitNanos.add(System.nanoTime() - begin);
 	}
 	
 	/**
@@ -222,8 +515,8 @@ public class SnowflakeIdGenerator {
 	 *
 	 * @return 当前时间(毫秒)
 	 */
-	private long getTime() {
-		return System.currentTimeMillis();
+	protected long getTime() {
+		return clock.currentTimeMillis();
 	}
 	
 	/**
@@ -1,5 +1,7 @@
 package com.cloudin.commons.langs.io;
 
+import com.cloudin.commons.langs.time.Clock;
+import com.cloudin.commons.langs.time.SystemClock;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
@@ -25,6 +27,11 @@ public class TempFileUtil {
     private static String tempRootPath;
     private static File   tempRootDir;
 
+    /**
+     * 生成临时文件名时使用的时钟
+     */
+    private static volatile Clock clock = SystemClock.INSTANCE;
+
     static {
         tempRootPath = System.getProperty("java.io.tmpdir");
         tempRootDir = new File(tempRootPath);
@@ -47,6 +54,18 @@ public class TempFileUtil {
         }
     }
 
+    /**
+     * 设置生成临时文件名时使用的时钟
+     *
+     * @param clock 时钟，例如 {@link com.cloudin.commons.langs.time.CachedClock}
+     */
+    public static void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock can't be null");
+        }
+        TempFileUtil.clock = clock;
+    }
+
     /**
      * 获取一个新的临时文件目录
      *
@@ -55,7 +74,7 @@ public class TempFileUtil {
      * @throws IOException
      */
     public static File createTempFileDir() throws IOException {
-        return createTempFileDir(tempRootDir, new Date());
+        return createTempFileDir(tempRootDir, now());
     }
 
     /**
@@ -68,7 +87,7 @@ public class TempFileUtil {
      * @throws IOException
      */
     public static File createTempFileDir(String tempRootPath) throws IOException {
-        return createTempFileDir(new File(tempRootPath), new Date());
+        return createTempFileDir(new File(tempRootPath), now());
     }
 
     /**
@@ -125,7 +144,7 @@ public class TempFileUtil {
      * @throws IOException
      */
     public static File createTempFile() throws IOException {
-        return createTempFile(new File(tempRootPath), new Date(), null);
+        return createTempFile(new File(tempRootPath), now(), null);
     }
 
     /**
@@ -138,7 +157,7 @@ public class TempFileUtil {
      * @throws IOException
      */
     public static File createTempFile(String tempRootPath) throws IOException {
-        return createTempFile(new File(tempRootPath), new Date(), null);
+        return createTempFile(new File(tempRootPath), now(), null);
     }
 
     /**
@@ -165,7 +184,7 @@ public class TempFileUtil {
      * @throws IOException
      */
     public static File createTempFile(File tempRootDir) throws IOException {
-        return createTempFile(tempRootDir, new Date(), null);
+        return createTempFile(tempRootDir, now(), null);
     }
 
 
@@ -180,7 +199,7 @@ public class TempFileUtil {
      * @throws IOException
      */
     public static File createTempFile(File tempRootDir, String exName) throws IOException {
-        return createTempFile(tempRootDir, new Date(), exName);
+        return createTempFile(tempRootDir, now(), exName);
     }
 
     /**
@@ -227,9 +246,13 @@ public class TempFileUtil {
         }
     }
 
+    private static Date now() {
+        return new Date(clock.currentTimeMillis());
+    }
+
     private static String generateNewName(Date baseTime, String exName) {
         if (baseTime == null) {
-            baseTime = new Date();
+            baseTime = now();
         }
         if (StringUtils.isNotBlank(exName)) {
             return DateFormatUtils.format(baseTime, "yyyyMMddHHmmssSSS")
@@ -0,0 +1,55 @@
+package com.cloudin.commons.langs.security;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 有界的并发密钥缓存，超出容量时淘汰任意一个旧条目。key 为密钥的 SHA-256 指纹，不保存密钥原文
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 04:40
+ */
+class KeyCache<T> {
+	
+	private final ConcurrentMap<String, T> cache = new ConcurrentHashMap<>();
+	
+	private volatile int maxSize;
+	
+	KeyCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+	
+	T get(String fingerprint) {
+		return cache.get(fingerprint);
+	}
+	
+	void put(String fingerprint, T key) {
+		if (maxSize <= 0) {
+			return;
+		}
+		cache.put(fingerprint, key);
+		trim(fingerprint);
+	}
+	
+	void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		trim(null);
+	}
+	
+	void clear() {
+		cache.clear();
+	}
+	
+	/**
+	 * 淘汰多余的条目，不淘汰刚放入的 keep
+	 */
+	private void trim(String keep) {
+		Iterator<String> iterator = cache.keySet().iterator();
+		while (cache.size() > Math.max(maxSize, 0) && iterator.hasNext()) {
+			if (!iterator.next().equals(keep)) {
+				iterator.remove();
+			}
+		}
+	}
+}
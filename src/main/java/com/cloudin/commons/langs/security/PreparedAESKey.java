@@ -0,0 +1,644 @@
+package com.cloudin.commons.langs.security;
+
+import org.apache.commons.codec.binary.Base64;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * 预先准备好的 AES 密钥，通过 {@link AES#prepare(byte[], byte[])} 创建。
+ * <p>
+ * 密钥和向量只解析一次，每个线程各自持有已初始化的加密、解密 {@link Cipher}，
+ * 避免每次加解密都查找 Provider、创建 Cipher。线程安全，应作为单例长期持有。
+ * <p>
+ * 大文件、上传下载等大内容使用流或 {@link ByteBuffer} 方法，按固定大小的分块经 {@link Cipher#update} 处理，内存占用与内容大小无关。
+ * 例如上传加密文件到 OSS：{@code ossClient.putObject(bucket, name, key.newEncryptInputStream(new FileInputStream(file)))}
+ * <p>
+ * GCM、CTR 模式（{@link AES#isRandomNonce()}）不使用创建时传入的向量：每次加密随机生成 nonce 并放在密文开头，
+ * 解密时从密文开头读取。注意 JDK 的 GCM 解密会缓存全部密文，直到校验通过才输出明文，流式解密大内容时内存占用与内容大小相关
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 22:40
+ */
+public class PreparedAESKey {
+	
+	/**
+	 * 流式加解密的分块大小
+	 */
+	private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+	
+	/**
+	 * 分块输出缓冲区的额外空间，容纳 Cipher 内部缓存的不完整分组和补码
+	 */
+	private static final int BLOCK_PADDING_SIZE = 32;
+	
+	/**
+	 * 生成 nonce 的随机数发生器，每个线程一个，避免竞争
+	 */
+	private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+	
+	private final AES aes;
+	
+	private final SecretKeySpec keySpec;
+	
+	private final IvParameterSpec ivSpec;
+	
+	private final ThreadLocal<Cipher> encryptCipher;
+	
+	private final ThreadLocal<Cipher> decryptCipher;
+	
+	PreparedAESKey(AES aes, byte[] keyBytes, byte[] ivBytes) throws InvalidKeyException,
+		InvalidAlgorithmParameterException {
+		this.aes = aes;
+		this.keySpec = new SecretKeySpec(keyBytes, aes.algorithm);
+		this.ivSpec = AES.CIPHER_MODE_ECB.equals(aes.cipherMode) || aes.isRandomNonce() ? null
+			: new IvParameterSpec(ivBytes);
+		// 提前校验密钥和向量，之后线程内创建 Cipher 不会再因参数失败
+		newCipher(Cipher.ENCRYPT_MODE);
+		this.encryptCipher = ThreadLocal.withInitial(() -> newCipherUnchecked(Cipher.ENCRYPT_MODE));
+		this.decryptCipher = ThreadLocal.withInitial(() -> newCipherUnchecked(Cipher.DECRYPT_MODE));
+	}
+	
+	private Cipher newCipher(int mode) throws InvalidKeyException, InvalidAlgorithmParameterException {
+		try {
+			Cipher cipher = Cipher.getInstance(aes.algorithmAndPadding);
+			if (aes.isRandomNonce()) {
+				// 每次加解密前都会以实际的 nonce 重新初始化
+				cipher.init(mode, keySpec, aes.nonceSpec(newNonce(), 0));
+			} else if (ivSpec == null) {
+				cipher.init(mode, keySpec);
+			} else {
+				cipher.init(mode, keySpec, ivSpec);
+			}
+			return cipher;
+		} catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+			// java 都提供 AES 算法及其补码方式
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private Cipher newCipherUnchecked(int mode) {
+		try {
+			return newCipher(mode);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private byte[] newNonce() {
+		byte[] nonce = new byte[aes.getNonceLength()];
+		RANDOM.get().nextBytes(nonce);
+		return nonce;
+	}
+	
+	/**
+	 * 获取线程内的 Cipher。GCM、CTR 模式下以 nonce 重新初始化
+	 *
+	 * @param nonce  nonce 所在数组，非 GCM、CTR 模式时忽略
+	 * @param offset nonce 在数组中的起始位置
+	 */
+	private Cipher getCipher(ThreadLocal<Cipher> holder, int mode, byte[] nonce, int offset) {
+		Cipher cipher = holder.get();
+		if (aes.isRandomNonce()) {
+			try {
+				cipher.init(mode, keySpec, aes.nonceSpec(nonce, offset));
+			} catch (GeneralSecurityException e) {
+				holder.remove();
+				throw new IllegalStateException(e);
+			}
+		}
+		return cipher;
+	}
+	
+	/**
+	 * 创建独立的 Cipher，供包装流使用。GCM、CTR 模式下以 nonce 初始化
+	 */
+	private Cipher newCipher(int mode, byte[] nonce) {
+		Cipher cipher = newCipherUnchecked(mode);
+		if (aes.isRandomNonce()) {
+			try {
+				cipher.init(mode, keySpec, aes.nonceSpec(nonce, 0));
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return cipher;
+	}
+	
+	/**
+	 * 执行加解密。doFinal 后 Cipher 自动恢复到初始化后的状态，可以直接复用；
+	 * 失败时 Cipher 状态不确定，丢弃后下次重新创建
+	 */
+	private static byte[] doFinal(ThreadLocal<Cipher> holder, Cipher cipher, byte[] input, int offset, int length)
+		throws IllegalBlockSizeException, BadPaddingException {
+		boolean success = false;
+		try {
+			byte[] output = cipher.doFinal(input, offset, length);
+			success = true;
+			return output;
+		} finally {
+			if (!success) {
+				holder.remove();
+			}
+		}
+	}
+	
+	/**
+	 * 加密
+	 *
+	 * @param plainBytes 待加密的字节数组
+	 *
+	 * @return 加密后的字节数组
+	 *
+	 * @throws IllegalBlockSizeException NoPadding 模式下内容长度不是 16 的倍数
+	 * @throws BadPaddingException
+	 */
+	public byte[] encrypt(byte[] plainBytes) throws IllegalBlockSizeException, BadPaddingException {
+		if (!aes.isRandomNonce()) {
+			return doFinal(encryptCipher, encryptCipher.get(), plainBytes, 0, plainBytes.length);
+		}
+		byte[] nonce = newNonce();
+		Cipher cipher = getCipher(encryptCipher, Cipher.ENCRYPT_MODE, nonce, 0);
+		byte[] output = new byte[nonce.length + cipher.getOutputSize(plainBytes.length)];
+		System.arraycopy(nonce, 0, output, 0, nonce.length);
+		boolean success = false;
+		try {
+			int length = cipher.doFinal(plainBytes, 0, plainBytes.length, output, nonce.length);
+			success = true;
+			return nonce.length + length == output.length ? output : Arrays.copyOf(output, nonce.length + length);
+		} catch (ShortBufferException e) {
+			// 输出数组按 getOutputSize 分配
+			throw new IllegalStateException(e);
+		} finally {
+			if (!success) {
+				encryptCipher.remove();
+			}
+		}
+	}
+	
+	/**
+	 * 加密，并将加密结果转换为 base64 编码后返回
+	 *
+	 * @param plainTxt 待加密的文本，使用 {@link AES#defaultCharset} 编码
+	 *
+	 * @return 加密结果转换为 base64 编码后的字符串
+	 *
+	 * @throws IllegalBlockSizeException
+	 * @throws BadPaddingException
+	 */
+	public String encryptToBase64(String plainTxt) throws IllegalBlockSizeException, BadPaddingException {
+		return Base64.encodeBase64String(encrypt(plainTxt.getBytes(aes.defaultCharset)));
+	}
+	
+	/**
+	 * 解密
+	 *
+	 * @param encryptedBytes 待解密的字节数组
+	 *
+	 * @return 解密后的字节数组
+	 *
+	 * @throws IllegalBlockSizeException
+	 * @throws BadPaddingException       密钥错误或内容被篡改
+	 */
+	public byte[] decrypt(byte[] encryptedBytes) throws IllegalBlockSizeException, BadPaddingException {
+		if (!aes.isRandomNonce()) {
+			return doFinal(decryptCipher, decryptCipher.get(), encryptedBytes, 0, encryptedBytes.length);
+		}
+		int nonceLength = aes.getNonceLength();
+		if (encryptedBytes.length < nonceLength) {
+			throw new IllegalBlockSizeException("密文长度小于 nonce 长度");
+		}
+		Cipher cipher = getCipher(decryptCipher, Cipher.DECRYPT_MODE, encryptedBytes, 0);
+		return doFinal(decryptCipher, cipher, encryptedBytes, nonceLength, encryptedBytes.length - nonceLength);
+	}
+	
+	/**
+	 * 解密，并将解密结果转换为字符串
+	 *
+	 * @param encryptedBytes 待解密的字节数组
+	 * @param charset        解密结果的编码字符集
+	 *
+	 * @return 解密后的文本
+	 *
+	 * @throws IllegalBlockSizeException
+	 * @throws BadPaddingException
+	 */
+	public String decryptToString(byte[] encryptedBytes, Charset charset)
+		throws IllegalBlockSizeException, BadPaddingException {
+		return new String(decrypt(encryptedBytes), charset);
+	}
+	
+	/**
+	 * 解密 base64 编码的加密结果，与 {@link #encryptToBase64(String)} 对应
+	 *
+	 * @param base64EncryptedTxt base64 编码的加密结果
+	 *
+	 * @return 解密后的文本，使用 {@link AES#defaultCharset} 解码
+	 *
+	 * @throws IllegalBlockSizeException
+	 * @throws BadPaddingException
+	 */
+	public String decryptBase64ToString(String base64EncryptedTxt) throws IllegalBlockSizeException,
+		BadPaddingException {
+		return decryptToString(Base64.decodeBase64(base64EncryptedTxt), aes.defaultCharset);
+	}
+	
+	/**
+	 * 从输入流读取内容加密后写入输出流，输入流、输出流均不关闭
+	 *
+	 * @param in  明文输入流
+	 * @param out 密文输出流
+	 *
+	 * @return 写入的字节数
+	 *
+	 * @throws IOException               读写失败
+	 * @throws IllegalBlockSizeException NoPadding 模式下内容长度不是 16 的倍数
+	 * @throws BadPaddingException
+	 */
+	public long encrypt(InputStream in, OutputStream out)
+		throws IOException, IllegalBlockSizeException, BadPaddingException {
+		if (!aes.isRandomNonce()) {
+			return transform(encryptCipher, encryptCipher.get(), in, out);
+		}
+		byte[] nonce = newNonce();
+		out.write(nonce);
+		return nonce.length + transform(encryptCipher, getCipher(encryptCipher, Cipher.ENCRYPT_MODE, nonce, 0), in, out);
+	}
+	
+	/**
+	 * 从输入流读取内容解密后写入输出流，输入流、输出流均不关闭
+	 *
+	 * @param in  密文输入流
+	 * @param out 明文输出流
+	 *
+	 * @return 写入的字节数
+	 *
+	 * @throws IOException               读写失败
+	 * @throws IllegalBlockSizeException
+	 * @throws BadPaddingException       密钥错误或内容被篡改
+	 */
+	public long decrypt(InputStream in, OutputStream out)
+		throws IOException, IllegalBlockSizeException, BadPaddingException {
+		if (!aes.isRandomNonce()) {
+			return transform(decryptCipher, decryptCipher.get(), in, out);
+		}
+		byte[] nonce = readNonce(in);
+		return transform(decryptCipher, getCipher(decryptCipher, Cipher.DECRYPT_MODE, nonce, 0), in, out);
+	}
+	
+	private byte[] readNonce(InputStream in) throws IOException {
+		byte[] nonce = new byte[aes.getNonceLength()];
+		int offset = 0;
+		while (offset < nonce.length) {
+			int n = in.read(nonce, offset, nonce.length - offset);
+			if (n == -1) {
+				throw new EOFException("密文长度小于 nonce 长度");
+			}
+			offset += n;
+		}
+		return nonce;
+	}
+	
+	private static long transform(ThreadLocal<Cipher> holder, Cipher cipher, InputStream in, OutputStream out)
+		throws IOException, IllegalBlockSizeException, BadPaddingException {
+		boolean success = false;
+		try {
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			byte[] output = new byte[STREAM_BUFFER_SIZE + BLOCK_PADDING_SIZE];
+			long count = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				int length = cipher.update(buffer, 0, n, output);
+				out.write(output, 0, length);
+				count += length;
+			}
+			// GCM 解密时全部明文在 doFinal 时才输出，不能使用固定大小的输出缓冲区
+			byte[] last = cipher.doFinal();
+			out.write(last);
+			count += last.length;
+			success = true;
+			return count;
+		} catch (ShortBufferException e) {
+			// 输出缓冲区已预留足够空间
+			throw new IllegalStateException(e);
+		} finally {
+			if (!success) {
+				holder.remove();
+			}
+		}
+	}
+	
+	/**
+	 * 加密 input 的剩余内容，写入 output。支持 direct buffer，不产生中间数组拷贝。
+	 * 调用后 input 的 position 移到 limit，output 的 position 前移写入的字节数
+	 *
+	 * @param input  明文
+	 * @param output 密文，剩余空间不能小于 {@link #getOutputSize(int)}
+	 *
+	 * @return 写入的字节数
+	 *
+	 * @throws ShortBufferException      output 剩余空间不足，此时 input、output 均未改变
+	 * @throws IllegalBlockSizeException NoPadding 模式下内容长度不是 16 的倍数
+	 * @throws BadPaddingException
+	 */
+	public int encrypt(ByteBuffer input, ByteBuffer output)
+		throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+		if (!aes.isRandomNonce()) {
+			return doFinal(encryptCipher, encryptCipher.get(), input, output);
+		}
+		if (output.remaining() < getOutputSize(input.remaining())) {
+			throw new ShortBufferException("输出缓冲区剩余空间不足");
+		}
+		byte[] nonce = newNonce();
+		Cipher cipher = getCipher(encryptCipher, Cipher.ENCRYPT_MODE, nonce, 0);
+		output.put(nonce);
+		return nonce.length + doFinal(encryptCipher, cipher, input, output);
+	}
+	
+	/**
+	 * 解密 input 的剩余内容，写入 output。支持 direct buffer，不产生中间数组拷贝。
+	 * 调用后 input 的 position 移到 limit，output 的 position 前移写入的字节数
+	 *
+	 * @param input  密文
+	 * @param output 明文，剩余空间不能小于 {@link #getOutputSize(int)}
+	 *
+	 * @return 写入的字节数
+	 *
+	 * @throws ShortBufferException      output 剩余空间不足，此时 input、output 均未改变
+	 * @throws IllegalBlockSizeException
+	 * @throws BadPaddingException       密钥错误或内容被篡改
+	 */
+	public int decrypt(ByteBuffer input, ByteBuffer output)
+		throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+		if (!aes.isRandomNonce()) {
+			return doFinal(decryptCipher, decryptCipher.get(), input, output);
+		}
+		int nonceLength = aes.getNonceLength();
+		if (input.remaining() < nonceLength) {
+			throw new IllegalBlockSizeException("密文长度小于 nonce 长度");
+		}
+		if (output.remaining() < input.remaining() - nonceLength - tagLength()) {
+			throw new ShortBufferException("输出缓冲区剩余空间不足");
+		}
+		byte[] nonce = new byte[nonceLength];
+		input.get(nonce);
+		return doFinal(decryptCipher, getCipher(decryptCipher, Cipher.DECRYPT_MODE, nonce, 0), input, output);
+	}
+	
+	private static int doFinal(ThreadLocal<Cipher> holder, Cipher cipher, ByteBuffer input, ByteBuffer output)
+		throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+		boolean success = false;
+		try {
+			int length = cipher.doFinal(input, output);
+			success = true;
+			return length;
+		} finally {
+			if (!success) {
+				holder.remove();
+			}
+		}
+	}
+	
+	/**
+	 * @param inputLength 待加密或解密的字节数
+	 *
+	 * @return 输出缓冲区所需的最大字节数
+	 */
+	public int getOutputSize(int inputLength) {
+		if (aes.isRandomNonce()) {
+			// nonce + 密文 + 认证标签
+			return aes.getNonceLength() + inputLength + tagLength();
+		}
+		// PKCS5Padding 加密最多增加一个分组，解密输出不会超过输入
+		return "NoPadding".equals(aes.paddingMode) ? inputLength : inputLength + 16 - inputLength % 16;
+	}
+	
+	/**
+	 * @return GCM 认证标签的字节数，其它模式为 0
+	 */
+	private int tagLength() {
+		return AES.CIPHER_MODE_GCM.equals(aes.cipherMode) ? AES.GCM_TAG_BITS / 8 : 0;
+	}
+	
+	/**
+	 * 包装为加密输入流：读取时返回密文。可用于上传加密内容，关闭时关闭被包装的输入流。
+	 * 每个流使用独立的 Cipher，不能跨线程并发使用同一个流
+	 *
+	 * @param in 明文输入流
+	 *
+	 * @return 密文输入流
+	 */
+	public InputStream newEncryptInputStream(InputStream in) {
+		if (!aes.isRandomNonce()) {
+			return new CipherInputStream(in, newCipherUnchecked(Cipher.ENCRYPT_MODE));
+		}
+		byte[] nonce = newNonce();
+		return new SequenceInputStream(new ByteArrayInputStream(nonce),
+			new CipherInputStream(in, newCipher(Cipher.ENCRYPT_MODE, nonce)));
+	}
+	
+	/**
+	 * 包装为解密输入流：读取时返回明文，关闭时关闭被包装的输入流
+	 *
+	 * @param in 密文输入流
+	 *
+	 * @return 明文输入流
+	 */
+	public InputStream newDecryptInputStream(InputStream in) {
+		if (!aes.isRandomNonce()) {
+			return new CipherInputStream(in, newCipherUnchecked(Cipher.DECRYPT_MODE));
+		}
+		return new NonceDecryptInputStream(in);
+	}
+	
+	/**
+	 * 包装为加密输出流：写入明文，输出密文。必须关闭才会写出最后一个分组，关闭时关闭被包装的输出流
+	 *
+	 * @param out 密文输出流
+	 *
+	 * @return 明文输出流
+	 */
+	public OutputStream newEncryptOutputStream(OutputStream out) {
+		if (!aes.isRandomNonce()) {
+			return new CipherOutputStream(out, newCipherUnchecked(Cipher.ENCRYPT_MODE));
+		}
+		byte[] nonce = newNonce();
+		return new CipherOutputStream(new PrefixOutputStream(out, nonce), newCipher(Cipher.ENCRYPT_MODE, nonce));
+	}
+	
+	/**
+	 * 包装为解密输出流：写入密文，输出明文。必须关闭才会写出最后一个分组，关闭时关闭被包装的输出流。
+	 * 注意 JDK 的 CipherOutputStream 关闭时会忽略补码错误，需要发现密钥错误时使用 {@link #decrypt(InputStream, OutputStream)}
+	 *
+	 * @param out 明文输出流
+	 *
+	 * @return 密文输出流
+	 */
+	public OutputStream newDecryptOutputStream(OutputStream out) {
+		if (!aes.isRandomNonce()) {
+			return new CipherOutputStream(out, newCipherUnchecked(Cipher.DECRYPT_MODE));
+		}
+		return new NonceDecryptOutputStream(out);
+	}
+	
+	public AES getAes() {
+		return aes;
+	}
+	
+	/**
+	 * 首次写入前先写出前缀（nonce）的输出流
+	 */
+	private static class PrefixOutputStream extends FilterOutputStream {
+		
+		private byte[] prefix;
+		
+		private PrefixOutputStream(OutputStream out, byte[] prefix) {
+			super(out);
+			this.prefix = prefix;
+		}
+		
+		private void writePrefix() throws IOException {
+			if (prefix != null) {
+				out.write(prefix);
+				prefix = null;
+			}
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			writePrefix();
+			out.write(b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			writePrefix();
+			out.write(b, off, len);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			writePrefix();
+			super.close();
+		}
+	}
+	
+	/**
+	 * 首次读取时先从密文开头读取 nonce，再解密其余内容的输入流
+	 */
+	private class NonceDecryptInputStream extends InputStream {
+		
+		private final InputStream in;
+		
+		private InputStream delegate;
+		
+		private NonceDecryptInputStream(InputStream in) {
+			this.in = in;
+		}
+		
+		private InputStream delegate() throws IOException {
+			if (delegate == null) {
+				delegate = new CipherInputStream(in, newCipher(Cipher.DECRYPT_MODE, readNonce(in)));
+			}
+			return delegate;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			return delegate().read();
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return delegate().read(b, off, len);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (delegate != null) {
+				delegate.close();
+			} else {
+				in.close();
+			}
+		}
+	}
+	
+	/**
+	 * 先缓存写入的 nonce，再解密其余内容的输出流
+	 */
+	private class NonceDecryptOutputStream extends OutputStream {
+		
+		private final OutputStream out;
+		
+		private final byte[] nonce = new byte[aes.getNonceLength()];
+		
+		private int nonceFilled;
+		
+		private OutputStream delegate;
+		
+		private NonceDecryptOutputStream(OutputStream out) {
+			this.out = out;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (delegate == null) {
+				int n = Math.min(len, nonce.length - nonceFilled);
+				System.arraycopy(b, off, nonce, nonceFilled, n);
+				nonceFilled += n;
+				off += n;
+				len -= n;
+				if (nonceFilled < nonce.length) {
+					return;
+				}
+				delegate = new CipherOutputStream(out, newCipher(Cipher.DECRYPT_MODE, nonce));
+			}
+			if (len > 0) {
+				delegate.write(b, off, len);
+			}
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			if (delegate != null) {
+				delegate.flush();
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (delegate != null) {
+				delegate.close();
+			} else {
+				out.close();
+			}
+		}
+	}
+}
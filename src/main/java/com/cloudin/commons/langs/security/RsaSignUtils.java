@@ -1,6 +1,8 @@
 package com.cloudin.commons.langs.security;
 
 import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -11,6 +13,9 @@ import java.security.SignatureException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * RSA 签名工具类
@@ -31,12 +36,64 @@ public enum RsaSignUtils {
 	 */
 	public String algorithm;
 	
+	/**
+	 * 每个线程复用的 {@link Signature}，init 时会重置内部状态
+	 */
+	private final ThreadLocal<Signature> signatures = new ThreadLocal<>();
+	
 	RsaSignUtils(String algorithm) {
 		this.algorithm = algorithm;
 	}
 	
+	private static final Logger logger = LoggerFactory.getLogger(RsaSignUtils.class);
+	
 	/**
-	 * 使用指定的算法对文本进行rsa签名
+	 * 批量验签默认的并行阈值
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+	
+	/**
+	 * 批量验签使用的线程池，为 null 时使用 {@link ForkJoinPool#commonPool()}
+	 */
+	private static volatile ForkJoinPool verifyPool;
+	
+	/**
+	 * 批量验签的并行阈值，每个子任务至少处理这么多条消息
+	 */
+	private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+	
+	/**
+	 * 设置批量验签使用的线程池
+	 *
+	 * @param verifyPool 线程池，为 null 时使用 {@link ForkJoinPool#commonPool()}
+	 */
+	public static void setVerifyPool(ForkJoinPool verifyPool) {
+		RsaSignUtils.verifyPool = verifyPool;
+	}
+	
+	/**
+	 * 设置批量验签的并行阈值，消息数不超过该值时在当前线程中验签
+	 *
+	 * @param parallelThreshold 并行阈值
+	 */
+	public static void setParallelThreshold(int parallelThreshold) {
+		RsaSignUtils.parallelThreshold = Math.max(1, parallelThreshold);
+	}
+	
+	/**
+	 * 获取当前线程的 {@link Signature}
+	 */
+	private Signature getSignature() throws NoSuchAlgorithmException {
+		Signature signature = signatures.get();
+		if (signature == null) {
+			signature = Signature.getInstance(algorithm);
+			signatures.set(signature);
+		}
+		return signature;
+	}
+	
+	/**
+	 * 使用指定的算法对文本进行rsa签名，解析后的私钥会被缓存，重复调用不再解析
 	 *
 	 * @param privateKey base64编码的rsa私钥字符串
 	 * @param plainTxt   待签名文本
@@ -50,7 +107,7 @@ public enum RsaSignUtils {
 	 */
 	public String signToBase64(String privateKey, String plainTxt, Charset charset)
 		throws InvalidKeySpecException, InvalidKeyException, SignatureException {
-		RSAPrivateKey rsaPrivateKey = RsaUtils.INSTANCE.loadPKCS8PriKeyFromBase64(privateKey);
+		RSAPrivateKey rsaPrivateKey = RsaUtils.INSTANCE.getPKCS8PriKeyFromBase64(privateKey);
 		byte[] res = sign(rsaPrivateKey, plainTxt.getBytes(charset));
 		if (res == null) {
 			return null;
@@ -126,7 +183,7 @@ public enum RsaSignUtils {
 	public byte[] sign(RSAPrivateKey privateKey, byte[] plainTxtBytes)
 		throws InvalidKeyException, SignatureException {
 		try {
-			Signature signature = Signature.getInstance(algorithm);
+			Signature signature = getSignature();
 			signature.initSign(privateKey);
 			signature.update(plainTxtBytes);
 			return signature.sign();
@@ -151,7 +208,7 @@ public enum RsaSignUtils {
 	 */
 	public boolean verify(byte[] pubKeyBytes, String plainTxt, String signatureBase64Str)
 		throws InvalidKeySpecException, InvalidKeyException, SignatureException {
-		RSAPublicKey rsaPublicKey = RsaUtils.INSTANCE.loadX509PubKey(pubKeyBytes);
+		RSAPublicKey rsaPublicKey = RsaUtils.INSTANCE.getX509PubKey(pubKeyBytes);
 		return verify(rsaPublicKey, plainTxt, signatureBase64Str, StandardCharsets.UTF_8);
 	}
 	
@@ -170,7 +227,7 @@ public enum RsaSignUtils {
 	 */
 	public boolean verify(String publicKeyStr, String plainTxt, String signatureBase64Str)
 		throws InvalidKeySpecException, InvalidKeyException, SignatureException {
-		RSAPublicKey rsaPublicKey = RsaUtils.INSTANCE.loadX509PubKeyFromBase64(publicKeyStr);
+		RSAPublicKey rsaPublicKey = RsaUtils.INSTANCE.getX509PubKeyFromBase64(publicKeyStr);
 		return verify(rsaPublicKey, plainTxt, signatureBase64Str, StandardCharsets.UTF_8);
 	}
 	
@@ -224,7 +281,7 @@ public enum RsaSignUtils {
 	public boolean verify(RSAPublicKey rsaPublicKey, byte[] plainTxtBytes, byte[] signatureBytes)
 		throws InvalidKeyException, SignatureException {
 		try {
-			Signature signature = Signature.getInstance(algorithm);
+			Signature signature = getSignature();
 			signature.initVerify(rsaPublicKey);
 			signature.update(plainTxtBytes);
 			return signature.verify(signatureBytes);
@@ -234,6 +291,79 @@ public enum RsaSignUtils {
 		return false;
 	}
 	
+	/**
+	 * 批量验签，消息数超过并行阈值时拆分到 {@link #setVerifyPool(ForkJoinPool)} 指定的线程池中并行执行
+	 *
+	 * @param messages 待验签的消息
+	 *
+	 * @return 与 messages 一一对应的验签结果，密钥或签名格式错误的消息视为验签失败
+	 */
+	public boolean[] verifyAll(List<SignedMessage> messages) {
+		// 转为数组，避免 LinkedList 等按下标访问的开销
+		SignedMessage[] array = messages.toArray(new SignedMessage[0]);
+		boolean[] results = new boolean[array.length];
+		int threshold = parallelThreshold;
+		if (array.length <= threshold) {
+			verifyRange(array, results, 0, array.length);
+			return results;
+		}
+		ForkJoinPool pool = verifyPool;
+		if (pool == null) {
+			pool = ForkJoinPool.commonPool();
+		}
+		pool.invoke(new VerifyTask(array, results, 0, array.length, threshold));
+		return results;
+	}
+	
+	private void verifyRange(SignedMessage[] messages, boolean[] results, int from, int to) {
+		for (int i = from; i < to; i++) {
+			SignedMessage message = messages[i];
+			try {
+				results[i] = verify(message.getPublicKey(), message.getPlainTxtBytes(), message.getSignatureBytes());
+			} catch (InvalidKeyException | SignatureException e) {
+				logger.debug("verify message {} failed", i, e);
+				results[i] = false;
+			}
+		}
+	}
+	
+	/**
+	 * 二分拆分的批量验签任务
+	 */
+	private class VerifyTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final SignedMessage[] messages;
+		
+		private final boolean[] results;
+		
+		private final int from;
+		
+		private final int to;
+		
+		private final int threshold;
+		
+		VerifyTask(SignedMessage[] messages, boolean[] results, int from, int to, int threshold) {
+			this.messages = messages;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from <= threshold) {
+				verifyRange(messages, results, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new VerifyTask(messages, results, from, mid, threshold),
+				new VerifyTask(messages, results, mid, to, threshold));
+		}
+	}
+	
 	public static void main(String[] args) throws InvalidKeySpecException, InvalidKeyException, SignatureException {
 		String privateKey = "MIICdwIBADANBgkqhkiG9w0BAQEFAASCAmEwggJdAgEAAoGBAJy+dhFO0w8CemAS" + "m6H6ttPh++k7p3W95ZqoHeaFtYaJPqVZd+w7xYplU2l3VLnjNmpzmxbUIDCt1cBt" + "ezwwE+tEm33ynIGICfUDcR1vnYARGey+aoAcIExS8SsSyZarA7gtu0ZqHC2zpayP" + "oOB6akyrt+wSxI2yCFzCKsyF6N9TAgMBAAECgYALjeKoLfZS8ezRbi24yAF4Jv1p" + "2PLkNAZb2y6xEoQqEa3jhG/ZoyJRrFx0ts4xEbWuLS1uhl6FGBtcnvVpn2WoYYzG" + "K6LR9y/TLfoUGHB3p8ZGwaiTST07+Y3rEDxVx4x6l711qJUFeUSI5DlgE6Xa6bCy" + "c9Yli6UN7yK4WGqwUQJBANCU1BF5xuhavk4GUevNnFl49FYtirOkdyzQCi/joy0K" + "ClloX/f53d/ZuSTCZB9Q8aKLbVxtDf1Z30o3jSxI/isCQQDAYMNmP/K9sEENa/T6" + "v0xcpY1r7g7M+vJpRlk1LBxNKCUMOga3F6hcMgDWRJVrXvTJf8oXH/Glz/Mm1tGZ" + "KLd5AkEAmtOOozY4vqr1DifE0Xs7LnMJM5r0lSpkyB/ZH/kiW8FTM1C1w/V2i74q" + "ny2oclJ8OsKyN+Q/eSsoAwg/Q3sfJwJATqwDnKAQM9SNdeCtSZHLt6OYRwgOk3MY" + "iUbUmnMUi9Ub+XkNX/jTyAhG4Vkgxc0KTBDvYy+UEdwNstds1baZ+QJBAIPYZjX8" + "e/9Ijs1W7sFM86yixP+MozyHK3o9cD0bayRn1gzU7uDZns4ONhBh0Jca5SwRqA8g" + "GyfZfejIWahwLTg=";
 		String publicKey = "MIGfMA0GCSqGSIb3DQEBAQUAA4GNADCBiQKBgQCcvnYRTtMPAnpgEpuh+rbT4fvp" + "O6d1veWaqB3mhbWGiT6lWXfsO8WKZVNpd1S54zZqc5sW1CAwrdXAbXs8MBPrRJt9" + "8pyBiAn1A3Edb52AERnsvmqAHCBMUvErEsmWqwO4LbtGahwts6Wsj6DgempMq7fs" + "EsSNsghcwirMhejfUwIDAQAB";
@@ -1,6 +1,7 @@
 package com.cloudin.commons.langs.security;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,17 +9,21 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.security.SignatureException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
 
 /**
  * rsa加解密、密钥解析工具类
@@ -37,6 +42,16 @@ public enum RsaUtils {
 	
 	public KeyFactory keyFactory;
 	
+	/**
+	 * 已解析私钥缓存，key 为编码密钥的 SHA-256 指纹
+	 */
+	private final KeyCache<RSAPrivateKey> privateKeyCache = new KeyCache<>(DEFAULT_KEY_CACHE_SIZE);
+	
+	/**
+	 * 已解析公钥缓存，key 为编码密钥的 SHA-256 指纹
+	 */
+	private final KeyCache<RSAPublicKey> publicKeyCache = new KeyCache<>(DEFAULT_KEY_CACHE_SIZE);
+	
 	RsaUtils() {
 		try {
 			keyFactory = KeyFactory.getInstance("RSA");
@@ -51,6 +66,23 @@ public enum RsaUtils {
 	public static final String SHA512_WITH_RSA      = "SHA512withRSA";
 	public static final String RSA_ECB_PKCS1PADDING = "RSA/ECB/PKCS1Padding";
 	
+	/**
+	 * 默认每类密钥最多缓存的数量
+	 */
+	public static final int DEFAULT_KEY_CACHE_SIZE = 64;
+	
+	/**
+	 * PKCS#1 v1.5 填充占用的字节数
+	 */
+	private static final int PKCS1_PADDING_LENGTH = 11;
+	
+	/**
+	 * 数字信封中 AES 密钥的字节数
+	 */
+	private static final int ENVELOPE_AES_KEY_LENGTH = 16;
+	
+	private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+	
 	/**
 	 * 从base64字符串中加载 rsa PKCS#8格式 私钥
 	 *
@@ -107,6 +139,81 @@ public enum RsaUtils {
 		return (RSAPublicKey) keyFactory.generatePublic(keySpec);
 	}
 	
+	/**
+	 * 从base64字符串中获取 rsa PKCS#8格式 私钥，相同的密钥只解析一次
+	 *
+	 * @param priKeyBase64Str base64编码的rsa私钥字符串
+	 *
+	 * @return {@link RSAPrivateKey}
+	 *
+	 * @throws InvalidKeySpecException
+	 */
+	public RSAPrivateKey getPKCS8PriKeyFromBase64(String priKeyBase64Str) throws InvalidKeySpecException {
+		String fingerprint = DigestUtils.sha256Hex(priKeyBase64Str);
+		RSAPrivateKey privateKey = privateKeyCache.get(fingerprint);
+		if (privateKey == null) {
+			privateKey = loadPKCS8PriKeyFromBase64(priKeyBase64Str);
+			privateKeyCache.put(fingerprint, privateKey);
+		}
+		return privateKey;
+	}
+	
+	/**
+	 * 从base64字符串中获取rsa公钥，相同的密钥只解析一次
+	 *
+	 * @param pubKeyBase64Str base64编码的rsa公钥字符串
+	 *
+	 * @return {@link RSAPublicKey}
+	 *
+	 * @throws InvalidKeySpecException
+	 */
+	public RSAPublicKey getX509PubKeyFromBase64(String pubKeyBase64Str) throws InvalidKeySpecException {
+		String fingerprint = DigestUtils.sha256Hex(pubKeyBase64Str);
+		RSAPublicKey publicKey = publicKeyCache.get(fingerprint);
+		if (publicKey == null) {
+			publicKey = loadX509PubKeyFromBase64(pubKeyBase64Str);
+			publicKeyCache.put(fingerprint, publicKey);
+		}
+		return publicKey;
+	}
+	
+	/**
+	 * 从byte数组获取rsa公钥，相同的密钥只解析一次
+	 *
+	 * @param pubKeyBytes 公钥字节数组
+	 *
+	 * @return {@link RSAPublicKey}
+	 *
+	 * @throws InvalidKeySpecException
+	 */
+	public RSAPublicKey getX509PubKey(byte[] pubKeyBytes) throws InvalidKeySpecException {
+		String fingerprint = DigestUtils.sha256Hex(pubKeyBytes);
+		RSAPublicKey publicKey = publicKeyCache.get(fingerprint);
+		if (publicKey == null) {
+			publicKey = loadX509PubKey(pubKeyBytes);
+			publicKeyCache.put(fingerprint, publicKey);
+		}
+		return publicKey;
+	}
+	
+	/**
+	 * 设置每类密钥最多缓存的数量，超出后淘汰旧的密钥
+	 *
+	 * @param keyCacheSize 缓存数量，小于等于 0 时不缓存
+	 */
+	public void setKeyCacheSize(int keyCacheSize) {
+		privateKeyCache.setMaxSize(keyCacheSize);
+		publicKeyCache.setMaxSize(keyCacheSize);
+	}
+	
+	/**
+	 * 清空已解析的密钥缓存，如密钥轮换后
+	 */
+	public void clearKeyCache() {
+		privateKeyCache.clear();
+		publicKeyCache.clear();
+	}
+	
 	/**
 	 * rsa解密
 	 *
@@ -278,4 +385,129 @@ public enum RsaUtils {
 		}
 		return null;
 	}
+	
+	/**
+	 * rsa公钥分块加密，明文按 密钥字节数 - 11 分块，每块的密文长度等于密钥字节数，所有块复用同一个 {@link Cipher}
+	 *
+	 * @param rsaPublicKey rsa公钥
+	 * @param plainText    任意长度的明文字节数组
+	 *
+	 * @return 各块密文依次拼接的结果
+	 */
+	public byte[] encryptChunked(RSAPublicKey rsaPublicKey, byte[] plainText)
+		throws InvalidKeyException, NoSuchPaddingException, BadPaddingException, IllegalBlockSizeException {
+		try {
+			Cipher cipher = Cipher.getInstance(RSA_ECB_PKCS1PADDING);
+			cipher.init(Cipher.ENCRYPT_MODE, rsaPublicKey);
+			int keyLength = keyLength(rsaPublicKey.getModulus().bitLength());
+			int blockLength = keyLength - PKCS1_PADDING_LENGTH;
+			// 空明文也输出一块，与 encrypt 保持一致
+			int blocks = Math.max(1, (plainText.length + blockLength - 1) / blockLength);
+			byte[] res = new byte[blocks * keyLength];
+			int outOffset = 0;
+			for (int offset = 0, i = 0; i < blocks; i++, offset += blockLength) {
+				int length = Math.min(blockLength, plainText.length - offset);
+				outOffset += cipher.doFinal(plainText, offset, length, res, outOffset);
+			}
+			return res;
+		} catch (NoSuchAlgorithmException | ShortBufferException e) {
+			// 一般rsa算法都存在，输出缓冲区按密钥长度分配，忽略该异常
+			logger.error("", e);
+		}
+		return null;
+	}
+	
+	/**
+	 * rsa私钥分块解密，与 {@link #encryptChunked(RSAPublicKey, byte[])} 对应
+	 *
+	 * @param rsaPrivateKey rsa私钥
+	 * @param cipherTxt     各块密文依次拼接的结果，长度必须是密钥字节数的整数倍
+	 *
+	 * @return 解密结果
+	 */
+	public byte[] decryptChunked(RSAPrivateKey rsaPrivateKey, byte[] cipherTxt)
+		throws InvalidKeyException, NoSuchPaddingException, BadPaddingException, IllegalBlockSizeException {
+		int keyLength = keyLength(rsaPrivateKey.getModulus().bitLength());
+		if (cipherTxt.length == 0 || cipherTxt.length % keyLength != 0) {
+			throw new IllegalBlockSizeException(
+				"cipher text length " + cipherTxt.length + " is not a multiple of key length " + keyLength);
+		}
+		try {
+			Cipher cipher = Cipher.getInstance(RSA_ECB_PKCS1PADDING);
+			cipher.init(Cipher.DECRYPT_MODE, rsaPrivateKey);
+			// Cipher 要求每块的输出空间不小于密钥字节数，最后一块需要额外预留填充长度
+			byte[] res = new byte[cipherTxt.length / keyLength * (keyLength - PKCS1_PADDING_LENGTH) + PKCS1_PADDING_LENGTH];
+			int outOffset = 0;
+			for (int offset = 0; offset < cipherTxt.length; offset += keyLength) {
+				outOffset += cipher.doFinal(cipherTxt, offset, keyLength, res, outOffset);
+			}
+			return Arrays.copyOf(res, outOffset);
+		} catch (NoSuchAlgorithmException | ShortBufferException e) {
+			// 一般rsa算法都存在，输出缓冲区按最大明文长度分配，忽略该异常
+			logger.error("", e);
+		}
+		return null;
+	}
+	
+	/**
+	 * 数字信封加密：随机生成 AES 密钥以 AES/GCM 加密明文，再用 rsa公钥加密该 AES 密钥，
+	 * 无论明文多大都只需要一次 rsa 运算
+	 * <p>
+	 * 输出格式：2 字节 rsa 密文长度 + rsa 加密的 AES 密钥 + AES/GCM 密文（含 nonce 和认证标签）
+	 *
+	 * @param rsaPublicKey rsa公钥
+	 * @param plainText    任意长度的明文字节数组
+	 *
+	 * @return 数字信封
+	 *
+	 * @throws GeneralSecurityException
+	 */
+	public byte[] encryptEnvelope(RSAPublicKey rsaPublicKey, byte[] plainText) throws GeneralSecurityException {
+		byte[] aesKey = new byte[ENVELOPE_AES_KEY_LENGTH];
+		SECURE_RANDOM.nextBytes(aesKey);
+		byte[] wrappedKey = encrypt(rsaPublicKey, aesKey);
+		if (wrappedKey == null) {
+			throw new NoSuchAlgorithmException(RSA_ECB_PKCS1PADDING);
+		}
+		byte[] body = AES.AES_GCM_NOPADDING.prepare(aesKey, null).encrypt(plainText);
+		byte[] res = new byte[2 + wrappedKey.length + body.length];
+		res[0] = (byte) (wrappedKey.length >>> 8);
+		res[1] = (byte) wrappedKey.length;
+		System.arraycopy(wrappedKey, 0, res, 2, wrappedKey.length);
+		System.arraycopy(body, 0, res, 2 + wrappedKey.length, body.length);
+		return res;
+	}
+	
+	/**
+	 * 数字信封解密，与 {@link #encryptEnvelope(RSAPublicKey, byte[])} 对应
+	 *
+	 * @param rsaPrivateKey rsa私钥
+	 * @param envelope      数字信封
+	 *
+	 * @return 明文
+	 *
+	 * @throws GeneralSecurityException 信封格式错误或被篡改
+	 */
+	public byte[] decryptEnvelope(RSAPrivateKey rsaPrivateKey, byte[] envelope) throws GeneralSecurityException {
+		if (envelope.length < 2) {
+			throw new IllegalBlockSizeException("envelope too short");
+		}
+		int wrappedKeyLength = ((envelope[0] & 0xFF) << 8) | (envelope[1] & 0xFF);
+		if (envelope.length < 2 + wrappedKeyLength) {
+			throw new IllegalBlockSizeException("envelope too short");
+		}
+		byte[] aesKey = decrypt(rsaPrivateKey, Arrays.copyOfRange(envelope, 2, 2 + wrappedKeyLength));
+		if (aesKey == null) {
+			throw new NoSuchAlgorithmException(RSA_ECB_PKCS1PADDING);
+		}
+		return AES.AES_GCM_NOPADDING.prepare(aesKey, null)
+			.decrypt(Arrays.copyOfRange(envelope, 2 + wrappedKeyLength, envelope.length));
+	}
+	
+	/**
+	 * 密钥字节数
+	 */
+	private static int keyLength(int modulusBitLength) {
+		return (modulusBitLength + 7) / 8;
+	}
 }
@@ -0,0 +1,62 @@
+package com.cloudin.commons.langs.security;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.InvalidKeySpecException;
+
+/**
+ * 待验签的消息，用于 {@link RsaSignUtils#verifyAll(java.util.List)} 批量验签
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 23:55
+ */
+public class SignedMessage {
+	
+	/**
+	 * rsa 公钥
+	 */
+	private final RSAPublicKey publicKey;
+	
+	/**
+	 * 明文字节数组
+	 */
+	private final byte[] plainTxtBytes;
+	
+	/**
+	 * 签名字节数组
+	 */
+	private final byte[] signatureBytes;
+	
+	public SignedMessage(RSAPublicKey publicKey, byte[] plainTxtBytes, byte[] signatureBytes) {
+		this.publicKey = publicKey;
+		this.plainTxtBytes = plainTxtBytes;
+		this.signatureBytes = signatureBytes;
+	}
+	
+	/**
+	 * @param publicKeyStr       base64编码的rsa公钥字符串，解析结果会被缓存
+	 * @param plainTxt           utf8 编码的明文
+	 * @param signatureBase64Str base64编码的签名字符串
+	 *
+	 * @throws InvalidKeySpecException
+	 */
+	public SignedMessage(String publicKeyStr, String plainTxt, String signatureBase64Str)
+		throws InvalidKeySpecException {
+		this(RsaUtils.INSTANCE.getX509PubKeyFromBase64(publicKeyStr), plainTxt.getBytes(StandardCharsets.UTF_8),
+			Base64.decodeBase64(signatureBase64Str));
+	}
+	
+	public RSAPublicKey getPublicKey() {
+		return publicKey;
+	}
+	
+	public byte[] getPlainTxtBytes() {
+		return plainTxtBytes;
+	}
+	
+	public byte[] getSignatureBytes() {
+		return signatureBytes;
+	}
+}
@@ -2,6 +2,7 @@ package com.cloudin.commons.langs.support.aliyun;
 
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.aliyuncs.IAcsClient;
 import com.aliyuncs.exceptions.ClientException;
 import com.aliyuncs.sts.model.v20150401.AssumeRoleResponse;
 import com.cloudin.commons.langs.cache.MemcachedTemplate;
@@ -72,6 +73,14 @@ public class OSSService {
      * 存放STS临时令牌的缓存，缓存时间应小于或等于 {@link #expir}
      */
     private MemcachedTemplate credentialsCache;
+    /**
+     * 本地的STS临时令牌池，在令牌过期前后台申请新的令牌，用户请求无需等待 STS
+     */
+    private final STSCredentialPool credentialPool = new STSCredentialPool();
+    /**
+     * 调用 STS 的客户端，首次申请令牌时创建，之后复用
+     */
+    private volatile IAcsClient acsClient;
     /**
      * 签名url默认使用时长，单位：秒，默认120秒
      */
@@ -160,6 +169,41 @@ public class OSSService {
         this.defaultUseTime = defaultUseTime;
     }
 
+    /**
+     * @param refreshAheadSeconds 令牌剩余有效时间小于 {@link #minTimeToExpir} + 使用时长 + refreshAheadSeconds 时在后台申请新的令牌，
+     *                            默认 {@link STSCredentialPool#DEFAULT_REFRESH_AHEAD_SECONDS} 秒
+     */
+    public void setRefreshAheadSeconds(int refreshAheadSeconds) {
+        credentialPool.setRefreshAheadSeconds(refreshAheadSeconds);
+    }
+
+    /**
+     * 更换访问ID，之后申请令牌使用新的访问ID，已申请的令牌不再使用
+     *
+     * @param accessKeyID 访问ID
+     */
+    public synchronized void setAccessKeyID(String accessKeyID) {
+        this.accessKeyID = accessKeyID;
+        resetClient();
+    }
+
+    /**
+     * 更换访问密钥，之后申请令牌使用新的访问密钥，已申请的令牌不再使用
+     *
+     * @param accessKeySecret 访问密钥
+     */
+    public synchronized void setAccessKeySecret(String accessKeySecret) {
+        this.accessKeySecret = accessKeySecret;
+        resetClient();
+    }
+
+    /**
+     * 停止令牌的后台刷新，不再使用时调用
+     */
+    public void destroy() {
+        credentialPool.shutdown();
+    }
+
     public Logger getLogger() {
         return logger;
     }
@@ -262,35 +306,69 @@ public class OSSService {
         builder.append(roleSessionName);
 
         String cacheKey = DigestUtils.sha1Hex(builder.toString());
+        int minValidSeconds = minTimeToExpir + expectToUseTime;
 
-        if (credentialsCache != null) {
-            STSCredential credentials = (STSCredential) credentialsCache.get(cacheKey);
-            if (credentials != null) {
-                // 检查缓存里的 token 的有效期是否能能满足使用要求
-                if (DateUtils.addSeconds(new Date(), minTimeToExpir + expectToUseTime).before(credentials.getExpirationDate())) {
-                    return credentials;
+        return credentialPool.get(cacheKey, minValidSeconds, () -> {
+            // 后台刷新时，共享缓存里的 token 也需要在刷新时间点之后仍然有效，否则重新申请
+            int requiredSeconds = minValidSeconds + credentialPool.getRefreshAheadSeconds();
+            if (credentialsCache != null) {
+                STSCredential credentials = (STSCredential) credentialsCache.get(cacheKey);
+                if (credentials != null && credentials.getExpirationDate() != null) {
+                    // 检查缓存里的 token 的有效期是否能能满足使用要求
+                    if (DateUtils.addSeconds(new Date(), requiredSeconds).before(credentials.getExpirationDate())) {
+                        return credentials;
+                    }
                 }
             }
-        }
 
-        String policy = buildPolicy(actions, new String[]{String.format("acs:oss:*:*:%s%s", bucket, resource)});
+            String policy = buildPolicy(actions, new String[]{String.format("acs:oss:*:*:%s%s", bucket, resource)});
+            STSCredential credential = assumeRole(roleSessionName, policy);
+            if (credential != null && credentialsCache != null) {
+                credentialsCache.set(cacheKey, credential);
+            }
+            return credential;
+        });
+    }
 
-        // 获取安全令牌
-        AssumeRoleResponse assumeRoleResponse = STSUtil
-                .assumeRole(accessKeyID, accessKeySecret, region, roleArn, roleSessionName, policy, expir);
+    /**
+     * 调用 STS 申请安全令牌，复用同一个 {@link IAcsClient}
+     *
+     * @param roleSessionName 角色 session 名称，用于审计
+     * @param policy          授权策略字符串
+     *
+     * @return 安全令牌，STS 未返回结果时为 null
+     *
+     * @throws com.aliyuncs.exceptions.ClientException
+     */
+    protected STSCredential assumeRole(String roleSessionName, String policy) throws ClientException {
+        IAcsClient client = acsClient;
+        if (client == null) {
+            synchronized (this) {
+                client = acsClient;
+                if (client == null) {
+                    client = STSUtil.createClient(accessKeyID, accessKeySecret, region);
+                    acsClient = client;
+                }
+            }
+        }
+        AssumeRoleResponse assumeRoleResponse = STSUtil.assumeRole(client, roleArn, roleSessionName, policy, expir);
         if (assumeRoleResponse != null) {
-            STSCredential credential = new STSCredential(assumeRoleResponse.getCredentials().getAccessKeyId(),
+            return new STSCredential(assumeRoleResponse.getCredentials().getAccessKeyId(),
                     assumeRoleResponse.getCredentials().getAccessKeySecret(),
                     assumeRoleResponse.getCredentials().getSecurityToken(),
                     assumeRoleResponse.getCredentials().getExpiration());
-            if (credentialsCache != null) {
-                credentialsCache.set(cacheKey, credential);
-            }
-            return credential;
         }
         return null;
     }
 
+    /**
+     * 访问凭证变更后丢弃 {@link #acsClient} 和已申请的令牌
+     */
+    private void resetClient() {
+        acsClient = null;
+        credentialPool.clear();
+    }
+
     /**
      * 对原始oss访问链接签名，生成携带授权签名的访问链接
      *
@@ -0,0 +1,261 @@
+package com.cloudin.commons.langs.support.aliyun;
+
+import com.aliyuncs.exceptions.ClientException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * STS 临时访问凭证池，按授权策略缓存凭证，并在凭证过期前异步申请新的凭证（refresh-ahead）。
+ * <p>
+ * 凭证的剩余有效时间小于 调用方要求的有效时间 + {@link #setRefreshAheadSeconds(int) 提前刷新时间} 时，
+ * 继续返回当前凭证，同时在后台申请新的凭证，调用方只在首次获取或凭证已不能满足使用要求时才会等待 STS。
+ * 同一策略同时只有一个申请在进行；后台刷新失败时保留当前凭证，稍后重试。
+ * 一个凭证有效期内没有被再次使用的策略不再刷新，从池中移除。
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/18 0018 03:40
+ */
+public class STSCredentialPool {
+
+	private static final Logger logger = LogManager.getLogger(STSCredentialPool.class);
+
+	/**
+	 * 默认的提前刷新时间，单位：秒
+	 */
+	public static final int DEFAULT_REFRESH_AHEAD_SECONDS = 300;
+
+	/**
+	 * 后台刷新失败后的重试间隔，单位：毫秒
+	 */
+	private static final long RETRY_MILLIS = 5000;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	private volatile long refreshAheadMillis = TimeUnit.SECONDS.toMillis(DEFAULT_REFRESH_AHEAD_SECONDS);
+
+	public STSCredentialPool() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "sts-credential-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		this.scheduler = executor;
+	}
+
+	/**
+	 * 申请凭证
+	 */
+	public interface Loader {
+
+		/**
+		 * @return 新的凭证，为 null 时不缓存
+		 *
+		 * @throws ClientException 调用 STS 失败
+		 */
+		STSCredential load() throws ClientException;
+	}
+
+	/**
+	 * @param refreshAheadSeconds 提前刷新时间，单位：秒，应小于凭证有效时间减去调用方要求的有效时间
+	 */
+	public void setRefreshAheadSeconds(int refreshAheadSeconds) {
+		this.refreshAheadMillis = TimeUnit.SECONDS.toMillis(refreshAheadSeconds);
+	}
+
+	public int getRefreshAheadSeconds() {
+		return (int) TimeUnit.MILLISECONDS.toSeconds(refreshAheadMillis);
+	}
+
+	/**
+	 * 获取凭证
+	 *
+	 * @param key             授权策略的缓存主键
+	 * @param minValidSeconds 凭证至少还需有效的时间，单位：秒
+	 * @param loader          申请凭证，后台刷新时同样使用
+	 *
+	 * @return 满足有效时间要求的凭证，申请结果为 null 时返回 null
+	 *
+	 * @throws ClientException 池中没有可用的凭证且调用 STS 失败
+	 */
+	public STSCredential get(String key, int minValidSeconds, Loader loader) throws ClientException {
+		long minValidMillis = TimeUnit.SECONDS.toMillis(minValidSeconds);
+		Entry entry = entries.computeIfAbsent(key, k -> new Entry(k, loader));
+		entry.loader = loader;
+		if (minValidMillis > entry.minValidMillis) {
+			entry.minValidMillis = minValidMillis;
+		}
+		STSCredential credential = entry.credential;
+		long remaining = remainingMillis(credential);
+		if (remaining <= minValidMillis) {
+			credential = entry.loadNow(minValidMillis);
+		} else if (System.currentTimeMillis() >= entry.refreshAt) {
+			entry.refreshAsync();
+		}
+		entry.lastAccess = System.currentTimeMillis();
+		return credential;
+	}
+
+	/**
+	 * @return 池中的授权策略数量
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 清空池中的凭证
+	 */
+	public void clear() {
+		for (Entry entry : entries.values()) {
+			entry.cancel();
+		}
+		entries.clear();
+	}
+
+	/**
+	 * 停止后台刷新
+	 */
+	public void shutdown() {
+		clear();
+		scheduler.shutdownNow();
+	}
+
+	private static long remainingMillis(STSCredential credential) {
+		if (credential == null || credential.getExpirationDate() == null) {
+			return 0;
+		}
+		return credential.getExpirationDate().getTime() - System.currentTimeMillis();
+	}
+
+	private class Entry {
+
+		private final String key;
+
+		private volatile Loader loader;
+
+		private volatile STSCredential credential;
+
+		/**
+		 * 调用方要求的最大有效时间，决定后台刷新的时间点
+		 */
+		private volatile long minValidMillis;
+
+		private volatile long lastAccess;
+
+		private volatile long loadedAt;
+
+		/**
+		 * 开始后台刷新的时间点
+		 */
+		private volatile long refreshAt;
+
+		private volatile long nextRetryAt;
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private ScheduledFuture<?> scheduled;
+
+		Entry(String key, Loader loader) {
+			this.key = key;
+			this.loader = loader;
+		}
+
+		/**
+		 * 同步申请，同一策略的并发请求只申请一次
+		 */
+		synchronized STSCredential loadNow(long minValidMillis) throws ClientException {
+			STSCredential current = credential;
+			if (remainingMillis(current) > minValidMillis) {
+				return current;
+			}
+			STSCredential loaded = loader.load();
+			if (loaded != null) {
+				update(loaded);
+			}
+			return loaded;
+		}
+
+		void refreshAsync() {
+			if (System.currentTimeMillis() < nextRetryAt || !refreshing.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				scheduler.execute(this::refresh);
+			} catch (RuntimeException e) {
+				refreshing.set(false);
+				logger.warn("STS 凭证后台刷新提交失败", e);
+			}
+		}
+
+		private void refresh() {
+			try {
+				STSCredential loaded = loader.load();
+				if (loaded != null) {
+					synchronized (this) {
+						update(loaded);
+					}
+				}
+			} catch (Exception e) {
+				nextRetryAt = System.currentTimeMillis() + RETRY_MILLIS;
+				logger.warn("STS 凭证后台刷新失败，继续使用当前凭证", e);
+				synchronized (this) {
+					// 当前凭证过期前持续重试，不依赖用户请求触发
+					if (remainingMillis(credential) > RETRY_MILLIS && !scheduler.isShutdown()) {
+						scheduled = scheduler.schedule(() -> {
+							nextRetryAt = 0;
+							refreshAsync();
+						}, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+					}
+				}
+			} finally {
+				refreshing.set(false);
+			}
+		}
+
+		/**
+		 * 保存新的凭证，并在剩余有效时间达到刷新时间点时安排后台刷新。
+		 * 提前量最多为有效期的一半，避免配置的提前量过大时每次访问都触发刷新
+		 */
+		private void update(STSCredential loaded) {
+			long now = System.currentTimeMillis();
+			long remaining = remainingMillis(loaded);
+			credential = loaded;
+			loadedAt = now;
+			refreshAt = now + remaining - Math.min(minValidMillis + refreshAheadMillis, remaining / 2);
+			nextRetryAt = 0;
+			if (scheduled != null) {
+				scheduled.cancel(false);
+			}
+			long delay = refreshAt - now;
+			if (delay > 0 && !scheduler.isShutdown()) {
+				scheduled = scheduler.schedule(this::scheduledRefresh, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		private void scheduledRefresh() {
+			if (lastAccess < loadedAt) {
+				// 当前凭证申请后没有再被使用，不再刷新
+				entries.remove(key, this);
+				return;
+			}
+			refreshAsync();
+		}
+
+		synchronized void cancel() {
+			if (scheduled != null) {
+				scheduled.cancel(false);
+			}
+		}
+	}
+}
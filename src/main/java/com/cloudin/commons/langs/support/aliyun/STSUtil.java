@@ -1,6 +1,7 @@
 package com.cloudin.commons.langs.support.aliyun;
 
 import com.aliyuncs.DefaultAcsClient;
+import com.aliyuncs.IAcsClient;
 import com.aliyuncs.exceptions.ClientException;
 import com.aliyuncs.http.MethodType;
 import com.aliyuncs.http.ProtocolType;
@@ -47,8 +48,39 @@ public class STSUtil {
 	 */
 	public static AssumeRoleResponse assumeRole(String accessKeyID, String accessKeySecret, String region,
 		String roleArn, String roleSessionName, String policy, long durationSeconds) throws ClientException {
+		return assumeRole(createClient(accessKeyID, accessKeySecret, region), roleArn, roleSessionName, policy,
+			durationSeconds);
+	}
+	
+	/**
+	 * 创建调用阿里云STS的客户端。客户端是线程安全的，频繁获取凭证时应创建一次后复用
+	 *
+	 * @param accessKeyID     访问ID
+	 * @param accessKeySecret 访问密钥
+	 * @param region          区域
+	 *
+	 * @return com.aliyuncs.IAcsClient
+	 */
+	public static IAcsClient createClient(String accessKeyID, String accessKeySecret, String region) {
 		IClientProfile profile = DefaultProfile.getProfile(region, accessKeyID, accessKeySecret);
-		DefaultAcsClient client = new DefaultAcsClient(profile);
+		return new DefaultAcsClient(profile);
+	}
+	
+	/**
+	 * 使用已创建的客户端调用阿里云STS (Security Token Service) 获取临时访问凭证
+	 *
+	 * @param client          由 {@link #createClient(String, String, String)} 创建的客户端
+	 * @param roleArn         RoleArn 需要在 RAM 控制台上获取
+	 * @param roleSessionName RoleSessionName 调用方自行指定临时Token的会话名称，用于标识你的用户，主要用于审计，或者用于区分Token颁发给谁
+	 * @param policy          权限策略
+	 * @param durationSeconds 临时访问凭证的有效时间，单位：秒
+	 *
+	 * @return com.aliyuncs.sts.model.v20150401.AssumeRoleResponse
+	 *
+	 * @throws com.aliyuncs.exceptions.ClientException
+	 */
+	public static AssumeRoleResponse assumeRole(IAcsClient client, String roleArn, String roleSessionName,
+		String policy, long durationSeconds) throws ClientException {
 		final AssumeRoleRequest request = new AssumeRoleRequest();
 		request.setVersion(STS_API_VERSION);
 		request.setMethod(MethodType.POST);
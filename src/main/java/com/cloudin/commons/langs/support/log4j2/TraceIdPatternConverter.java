@@ -1,5 +1,7 @@
 package com.cloudin.commons.langs.support.log4j2;
 
+import com.cloudin.commons.langs.time.Clock;
+import com.cloudin.commons.langs.time.SystemClock;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -25,6 +27,11 @@ public class TraceIdPatternConverter extends LogEventPatternConverter {
 	
 	private static ThreadLocal<String> traceIdLocal = new ThreadLocal<String>();
 	
+	/**
+	 * 生成追踪Id时使用的时钟
+	 */
+	private static volatile Clock clock = SystemClock.INSTANCE;
+	
 	public TraceIdPatternConverter() {
 		super("traceId", "traceId");
 	}
@@ -46,13 +53,25 @@ public class TraceIdPatternConverter extends LogEventPatternConverter {
 		return new TraceIdPatternConverter();
 	}
 	
+	/**
+	 * 设置生成追踪Id时使用的时钟
+	 *
+	 * @param clock 时钟，例如 {@link com.cloudin.commons.langs.time.CachedClock}
+	 */
+	public static void setClock(Clock clock) {
+		if (clock == null) {
+			throw new IllegalArgumentException("clock can't be null");
+		}
+		TraceIdPatternConverter.clock = clock;
+	}
+	
 	/**
 	 * 生成追踪Id
 	 *
 	 * @return
 	 */
 	public static String newTraceId(){
-		return String.format("%d_%d_%s", System.currentTimeMillis(), Thread.currentThread().getId(), RandomStringUtils.random(5, true, true));
+		return String.format("%d_%d_%s", clock.currentTimeMillis(), Thread.currentThread().getId(), RandomStringUtils.random(5, true, true));
 	}
 	
 	/**
@@ -1,6 +1,7 @@
 package com.cloudin.commons.langs.support.mybatis;
 
 import com.cloudin.commons.langs.security.AES;
+import com.cloudin.commons.langs.security.PreparedAESKey;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -8,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.helpers.MessageFormatter;
 
+import java.security.GeneralSecurityException;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -25,20 +27,84 @@ public class SecurityFieldTypeHandler implements TypeHandler<String> {
 
 	private static String	SEC_FIELD_KEY = "0123456789abcdef";
 	private static String	SEC_FIELD_IV = "0123456789abcdef";
+	private static AES		SEC_FIELD_AES = AES.AES_CBC_PKCS5PADDING;
+	
+	/**
+	 * 由 SEC_FIELD_KEY、SEC_FIELD_IV 准备好的密钥，修改密钥、向量或加密模式后重新准备
+	 */
+	private static volatile PreparedAESKey preparedKey;
+	
+	/**
+	 * 加密模式为 GCM 时，用于解密历史 CBC 数据的密钥
+	 */
+	private static volatile PreparedAESKey legacyKey;
 
 
 	public void setSecFieldKey(String secFieldKey) {
 		SEC_FIELD_KEY = secFieldKey;
+		preparedKey = null;
+		legacyKey = null;
 	}
 
 	public void setSecFieldIv(String secFieldIv) {
 		SEC_FIELD_IV = secFieldIv;
+		preparedKey = null;
+		legacyKey = null;
+	}
+	
+	/**
+	 * 设置加密模式，只支持 AES_CBC_PKCS5PADDING（默认）和 AES_GCM_NOPADDING。
+	 * <p>
+	 * 设置为 AES_GCM_NOPADDING 后新写入的数据使用认证加密，读取时仍能解密历史的 CBC 数据：
+	 * 历史数据无法通过 GCM 认证，解密失败后改用 CBC 解密。其它无认证、无补码的模式解密 CBC 数据时不会失败，
+	 * 只会得到错误的明文，因此不支持。
+	 * 注意 GCM 每次加密结果不同，加密字段不能再用于等值查询
+	 *
+	 * @param secFieldMode {@link AES} 枚举名称
+	 *
+	 * @throws IllegalArgumentException 不支持的加密模式
+	 */
+	public void setSecFieldMode(String secFieldMode) {
+		AES aes = AES.valueOf(secFieldMode);
+		if (aes != AES.AES_CBC_PKCS5PADDING && aes != AES.AES_GCM_NOPADDING) {
+			throw new IllegalArgumentException("不支持的加密模式：" + secFieldMode
+				+ "，只支持 AES_CBC_PKCS5PADDING、AES_GCM_NOPADDING");
+		}
+		SEC_FIELD_AES = aes;
+		preparedKey = null;
+	}
+	
+	private static PreparedAESKey getPreparedKey() throws Exception {
+		PreparedAESKey key = preparedKey;
+		if (key == null) {
+			key = SEC_FIELD_AES.prepare(SEC_FIELD_KEY, SEC_FIELD_IV);
+			preparedKey = key;
+		}
+		return key;
+	}
+	
+	private static String decrypt(String value) throws Exception {
+		PreparedAESKey key = getPreparedKey();
+		if (key.getAes() == AES.AES_CBC_PKCS5PADDING) {
+			return key.decryptBase64ToString(value);
+		}
+		try {
+			return key.decryptBase64ToString(value);
+		} catch (GeneralSecurityException e) {
+			// 切换加密模式前写入的数据
+			PreparedAESKey legacy = legacyKey;
+			if (legacy == null) {
+				legacy = AES.AES_CBC_PKCS5PADDING.prepare(SEC_FIELD_KEY, SEC_FIELD_IV);
+				legacyKey = legacy;
+			}
+			return legacy.decryptBase64ToString(value);
+		}
 	}
 
 	@Override
 	public void setParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
 		try {
-			String value = AES.AES_CBC_PKCS5PADDING.encryptToBase64(SEC_FIELD_KEY, SEC_FIELD_IV, parameter);
+			String value = getPreparedKey().encryptToBase64(parameter);
 			ps.setString(i, value);
 		} catch (Exception e) {
 			logger.error(MessageFormatter.format("i={},parameter={}", i, parameter).getMessage(), e);
@@ -51,7 +117,7 @@ public class SecurityFieldTypeHandler implements TypeHandler<String> {
 		String value = rs.getString(columnName);
 		if (StringUtils.isNotEmpty(value)) {
 			try {
-				return AES.AES_CBC_PKCS5PADDING.decryptToString(SEC_FIELD_KEY, SEC_FIELD_IV, value);
+				return decrypt(value);
 			} catch (Throwable t) {
 				logger.error(MessageFormatter.format("columnName={},value={}", columnName, value).getMessage(), t);
 			}
@@ -64,7 +130,7 @@ public class SecurityFieldTypeHandler implements TypeHandler<String> {
 		String value = rs.getString(columnIndex);
 		if (StringUtils.isNotEmpty(value)) {
 			try {
-				return AES.AES_CBC_PKCS5PADDING.decryptToString(SEC_FIELD_KEY, SEC_FIELD_IV, value);
+				return decrypt(value);
 			} catch (Throwable t) {
 				logger.error(MessageFormatter.format("columnIndex={},value={}", columnIndex, value).getMessage(), t);
 			}
@@ -77,7 +143,7 @@ public class SecurityFieldTypeHandler implements TypeHandler<String> {
 		String value = cs.getString(columnIndex);
 		if (StringUtils.isNotEmpty(value)) {
 			try {
-				return AES.AES_CBC_PKCS5PADDING.decryptToString(SEC_FIELD_KEY, SEC_FIELD_IV, value);
+				return decrypt(value);
 			} catch (Throwable t) {
 				logger.error(MessageFormatter.format("columnIndex={},value={}", columnIndex, value).getMessage(), t);
 			}
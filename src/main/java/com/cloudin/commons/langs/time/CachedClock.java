@@ -0,0 +1,101 @@
+package com.cloudin.commons.langs.time;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 缓存时钟。由一个后台守护线程按固定间隔刷新当前时间，读取时只读一个 volatile 字段，不需要系统调用。
+ * <p>
+ * 读到的时间最多落后一个刷新间隔，且刷新线程得不到调度时会短暂停滞，适用于对精度要求不高、但调用频繁的取时场景。
+ * 自行创建的实例不再使用时调用 {@link #close()} 停止刷新线程；{@link #getInstance() 全局共享的实例} 不能关闭
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 11:06
+ */
+public class CachedClock implements Clock, AutoCloseable {
+	
+	/**
+	 * 缓存的当前时间(毫秒)
+	 */
+	private volatile long now;
+	
+	/**
+	 * 是否继续刷新
+	 */
+	private volatile boolean running = true;
+	
+	/**
+	 * 刷新间隔，单位：纳秒
+	 */
+	private final long tickNanos;
+	
+	private final Thread ticker;
+	
+	/**
+	 * 是否为全局共享的实例
+	 */
+	private final boolean shared;
+	
+	/**
+	 * 刷新间隔为 1 毫秒的缓存时钟
+	 */
+	public CachedClock() {
+		this(1L);
+	}
+	
+	/**
+	 * @param tickMillis 刷新间隔，单位：毫秒
+	 */
+	public CachedClock(long tickMillis) {
+		this(tickMillis, false);
+	}
+	
+	private CachedClock(long tickMillis, boolean shared) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tickMillis must be greater than 0");
+		}
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.shared = shared;
+		this.now = System.currentTimeMillis();
+		this.ticker = new Thread(this::tick, "cached-clock-ticker");
+		this.ticker.setDaemon(true);
+		this.ticker.start();
+	}
+	
+	/**
+	 * @return 全局共享的缓存时钟，刷新间隔为 1 毫秒，首次调用时启动刷新线程
+	 */
+	public static CachedClock getInstance() {
+		return Holder.INSTANCE;
+	}
+	
+	@Override
+	public long currentTimeMillis() {
+		return now;
+	}
+	
+	/**
+	 * 停止刷新线程。停止后读到的时间不再变化
+	 *
+	 * @throws UnsupportedOperationException 全局共享的实例，关闭会使所有使用者读到的时间停滞
+	 */
+	@Override
+	public void close() {
+		if (shared) {
+			throw new UnsupportedOperationException("the shared CachedClock can't be closed");
+		}
+		running = false;
+		LockSupport.unpark(ticker);
+	}
+	
+	private void tick() {
+		while (running) {
+			now = System.currentTimeMillis();
+			LockSupport.parkNanos(this, tickNanos);
+		}
+	}
+	
+	private static class Holder {
+		private static final CachedClock INSTANCE = new CachedClock(1L, true);
+	}
+}
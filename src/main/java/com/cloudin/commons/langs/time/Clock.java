@@ -0,0 +1,17 @@
+package com.cloudin.commons.langs.time;
+
+/**
+ * 毫秒时钟。需要读取当前时间的组件通过该接口取时，便于替换为缓存时钟，或在测试中注入可控的时钟
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 11:02
+ * @see SystemClock
+ * @see CachedClock
+ */
+public interface Clock {
+	
+	/**
+	 * @return 以毫秒为单位的当前时间，含义同 {@link System#currentTimeMillis()}
+	 */
+	long currentTimeMillis();
+}
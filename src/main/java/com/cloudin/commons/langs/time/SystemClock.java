@@ -0,0 +1,20 @@
+package com.cloudin.commons.langs.time;
+
+/**
+ * 直接读取 {@link System#currentTimeMillis()} 的系统时钟
+ *
+ * @author 小天
+ * @version 1.0.0, 2026/10/17 0017 11:04
+ */
+public enum SystemClock implements Clock {
+	
+	/**
+	 * 单例
+	 */
+	INSTANCE;
+	
+	@Override
+	public long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+}
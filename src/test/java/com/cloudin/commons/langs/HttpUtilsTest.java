@@ -0,0 +1,308 @@
+package com.cloudin.commons.langs;
+
+import com.cloudin.commons.langs.http.HttpMetricsSink;
+import com.cloudin.commons.langs.http.HttpStatusException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基于本地 {@link HttpServer} 的 {@link HttpUtils} 测试
+ *
+ * @author 小天
+ * @date 2026/10/18 04:10
+ */
+public class HttpUtilsTest {
+
+    private static final int BIG_BODY_BYTES = 64 * 1024 * 1024;
+
+    private HttpServer      server;
+    private ExecutorService executor;
+    private String          baseUrl;
+
+    /**
+     * 服务端实际写出的响应内容字节数
+     */
+    private final AtomicLong     served       = new AtomicLong();
+    private final CountDownLatch bigBodyEnded = new CountDownLatch(1);
+    private final AtomicBoolean  gzipRequest  = new AtomicBoolean();
+    private final CountDownLatch slowStarted  = new CountDownLatch(1);
+    private final CountDownLatch slowRelease  = new CountDownLatch(1);
+
+    /**
+     * 请求 /hello 的客户端端口，同一连接的端口相同
+     */
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/hello", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            respond(exchange, "hello".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/slow", exchange -> {
+            slowStarted.countDown();
+            try {
+                slowRelease.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "slow".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/chunked", exchange -> writeBigBody(exchange, 200, 0));
+        server.createContext("/fixed", exchange -> writeBigBody(exchange, 200, BIG_BODY_BYTES));
+        server.createContext("/error", exchange -> writeBigBody(exchange, 500, BIG_BODY_BYTES));
+        server.createContext("/echo", this::echo);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        slowRelease.countDown();
+        HttpUtils.closeSharedHttpClient();
+        HttpUtils.closeAsyncHttpClient();
+        HttpUtils.setCompressionEnabled(false);
+        HttpUtils.setRequestCompressionThreshold(8 * 1024);
+        HttpUtils.resetCompressionStats();
+        HttpUtils.setMetricsSink(null);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void sharedClientReusesConnection() throws Exception {
+        HttpUtils.initSharedHttpClient(10, 5);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals("hello", HttpUtils.get(baseUrl + "/hello"));
+        }
+        Assert.assertEquals(1, clientPorts.size());
+        Assert.assertEquals(1, HttpUtils.getSharedConnectionManager().getTotalStats().getAvailable());
+
+        // 超出限制的响应不归还连接，也不占用连接
+        try {
+            HttpUtils.download(baseUrl + "/chunked", new ByteArrayOutputStream(), 1024);
+            Assert.fail();
+        } catch (IOException e) {
+            // 超出限制
+        }
+        Assert.assertEquals(0, HttpUtils.getSharedConnectionManager().getTotalStats().getLeased());
+        Assert.assertEquals("hello", HttpUtils.get(baseUrl + "/hello"));
+    }
+
+    @Test
+    public void withoutSharedClientEachRequestConnects() throws Exception {
+        Assert.assertEquals("hello", HttpUtils.get(baseUrl + "/hello"));
+        Assert.assertEquals("hello", HttpUtils.get(baseUrl + "/hello"));
+        Assert.assertEquals(2, clientPorts.size());
+    }
+
+    @Test
+    public void asyncCompletes() throws Exception {
+        Assert.assertEquals("hello", HttpUtils.getAsync(baseUrl + "/hello").get(5, TimeUnit.SECONDS));
+        try {
+            HttpUtils.getAsync(baseUrl + "/missing").get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals(404, ((HttpStatusException) e.getCause()).getStatusCode());
+        }
+    }
+
+    @Test
+    public void asyncCancelReleasesConnection() throws Exception {
+        // 每个主机只有一个连接，取消的请求不释放连接时后续请求无法完成
+        HttpUtils.initAsyncHttpClient(1, 1, 1);
+        CompletableFuture<String> slow = HttpUtils.getAsync(baseUrl + "/slow");
+        Assert.assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(slow.cancel(true));
+        Assert.assertTrue(slow.isCancelled());
+        Assert.assertEquals("hello", HttpUtils.getAsync(baseUrl + "/hello").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void streamWithinLimit() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(5, HttpUtils.download(baseUrl + "/hello", out, 5));
+        Assert.assertEquals("hello", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void oversizedChunkedResponseIsCutOff() throws Exception {
+        assertCutOff(baseUrl + "/chunked");
+    }
+
+    @Test
+    public void oversizedContentLengthIsCutOff() throws Exception {
+        assertCutOff(baseUrl + "/fixed");
+    }
+
+    @Test
+    public void partiallyReadStreamIsNotDownloaded() throws Exception {
+        HttpUtils.initSharedHttpClient(10, 5);
+        // 只读取开头，剩余内容不多时读完，连接复用
+        Assert.assertEquals("he", HttpUtils.getStream(baseUrl + "/hello", 0, in -> readHeader(in, 2)));
+        Assert.assertEquals("hello", HttpUtils.get(baseUrl + "/hello"));
+        Assert.assertEquals(1, clientPorts.size());
+
+        // 剩余内容很多时直接关闭连接
+        Assert.assertEquals(1024, HttpUtils.getStream(baseUrl + "/chunked", 0, in -> readHeader(in, 1024)).length());
+        assertNotDownloaded();
+        Assert.assertEquals(0, HttpUtils.getSharedConnectionManager().getTotalStats().getLeased());
+    }
+
+    @Test
+    public void largeErrorBodyIsNotDownloaded() throws Exception {
+        try {
+            HttpUtils.get(baseUrl + "/error");
+            Assert.fail();
+        } catch (HttpStatusException e) {
+            Assert.assertEquals(500, e.getStatusCode());
+        }
+        assertNotDownloaded();
+    }
+
+    @Test
+    public void gzipRoundTrip() throws Exception {
+        HttpUtils.setCompressionEnabled(true);
+        HttpUtils.setRequestCompressionThreshold(1024);
+        AtomicLong bytesOut = new AtomicLong();
+        HttpUtils.setMetricsSink(new HttpMetricsSink() {
+            @Override
+            public void onResponse(String host, int statusCode, long latencyNanos, long out, long in) {
+                bytesOut.set(out);
+            }
+
+            @Override
+            public void onError(String host, Throwable error, long latencyNanos) {
+            }
+
+            @Override
+            public void onLeaseWait(String host, long waitNanos) {
+            }
+        });
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            body.append("line ").append(i).append('\n');
+        }
+
+        Assert.assertEquals(body.toString(), HttpUtils.post(baseUrl + "/echo", body.toString()));
+        Assert.assertTrue(gzipRequest.get());
+        Assert.assertEquals(body.length(), HttpUtils.getRequestBytes());
+        Assert.assertTrue(HttpUtils.getRequestCompressedBytes() < body.length() / 2);
+        Assert.assertEquals(HttpUtils.getRequestCompressedBytes(), bytesOut.get());
+        Assert.assertEquals(body.length(), HttpUtils.getResponseBytes());
+        Assert.assertTrue(HttpUtils.getResponseCompressedBytes() < body.length() / 2);
+
+        // 低于阈值的请求内容不压缩
+        gzipRequest.set(false);
+        Assert.assertEquals("short", HttpUtils.post(baseUrl + "/echo", "short"));
+        Assert.assertFalse(gzipRequest.get());
+        Assert.assertEquals(5, bytesOut.get());
+    }
+
+    private void assertCutOff(String url) throws Exception {
+        try {
+            HttpUtils.download(url, new ByteArrayOutputStream(), 1024 * 1024);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("超出限制"));
+        }
+        assertNotDownloaded();
+    }
+
+    /**
+     * 连接关闭后服务端写入失败，不会把剩余内容全部发出
+     */
+    private void assertNotDownloaded() throws InterruptedException {
+        Assert.assertTrue(bigBodyEnded.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue("served=" + served.get(), served.get() < BIG_BODY_BYTES / 4);
+    }
+
+    private void writeBigBody(HttpExchange exchange, int status, long contentLength) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        try {
+            exchange.sendResponseHeaders(status, contentLength);
+            OutputStream out = exchange.getResponseBody();
+            for (int i = 0; i < BIG_BODY_BYTES / chunk.length; i++) {
+                out.write(chunk);
+                served.addAndGet(chunk.length);
+            }
+            out.close();
+        } catch (IOException e) {
+            // 客户端已关闭连接
+        } finally {
+            bigBodyEnded.countDown();
+            exchange.close();
+        }
+    }
+
+    /**
+     * 按 Content-Encoding 解压请求内容，客户端接受 gzip 时压缩后原样返回
+     */
+    private void echo(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            gzipRequest.set(true);
+            in = new GZIPInputStream(in);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            body.write(buffer, 0, n);
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                body.writeTo(gzip);
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            respond(exchange, compressed.toByteArray());
+        } else {
+            respond(exchange, body.toByteArray());
+        }
+    }
+
+    private static String readHeader(InputStream in, int length) throws IOException {
+        byte[] header = new byte[length];
+        int offset = 0;
+        int n;
+        while (offset < length && (n = in.read(header, offset, length - offset)) != -1) {
+            offset += n;
+        }
+        return new String(header, 0, offset, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
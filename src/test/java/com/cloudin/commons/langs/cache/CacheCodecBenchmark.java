@@ -0,0 +1,100 @@
+package com.cloudin.commons.langs.cache;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * java 序列化（memcached 客户端默认转换器）与 {@link CodecTranscoder} 各编解码器的编解码耗时对比，
+ * 缓存值模拟一页 200 行的列表数据，编码后的大小在 setUp 时输出。
+ * <p>
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author 小天
+ * @date 2026/10/18 01:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({"java", "binary", "binary-lz4", "fastjson", "fastjson-lz4"})
+    private String codec;
+
+    private Transcoder<Object> transcoder;
+    private List<Object>       value;
+    private CachedData         encoded;
+
+    @Setup
+    public void setUp() {
+        switch (codec) {
+            case "java":
+                transcoder = new SerializingTranscoder();
+                break;
+            case "binary":
+            case "binary-lz4":
+                transcoder = new CodecTranscoder(new BinaryCacheCodec());
+                break;
+            default:
+                transcoder = new CodecTranscoder(new FastjsonCacheCodec("java.util.ArrayList"));
+                break;
+        }
+        if (transcoder instanceof CodecTranscoder) {
+            ((CodecTranscoder) transcoder).setCompressionThreshold(codec.endsWith("-lz4") ? 1024 : 0);
+        }
+        value = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", 100000L + i);
+            row.put("title", "商品标题-" + i);
+            row.put("price", 19.9d + i);
+            row.put("stock", i * 3);
+            row.put("onSale", i % 2 == 0);
+            row.put("created", new Date(1500000000000L + i));
+            row.put("tags", new ArrayList<>(Arrays.asList("新品", "包邮", "tag" + (i % 5))));
+            value.add(row);
+        }
+        encoded = transcoder.encode(value);
+        System.out.println();
+        System.out.println(codec + " encoded size: " + encoded.getData().length + " bytes");
+    }
+
+    @Benchmark
+    public CachedData encode() {
+        return transcoder.encode(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return transcoder.decode(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CacheCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
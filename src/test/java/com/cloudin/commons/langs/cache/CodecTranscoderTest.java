@@ -0,0 +1,178 @@
+package com.cloudin.commons.langs.cache;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 01:30
+ */
+public class CodecTranscoderTest {
+
+    @Test
+    public void binaryRoundTrip() {
+        CodecTranscoder transcoder = new CodecTranscoder(new BinaryCacheCodec());
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 12345678901L);
+        row.put("name", "商品");
+        row.put("price", 9.9d);
+        row.put("count", -3);
+        row.put("enabled", true);
+        row.put("created", new Date(1500000000000L));
+        row.put("tags", new LinkedHashSet<>(Arrays.asList("a", "b")));
+        row.put("amount", new BigDecimal("12.30"));
+        row.put("none", null);
+        List<Object> values = Arrays.asList("text", Integer.MIN_VALUE, Long.MAX_VALUE, new byte[]{1, 2},
+            Collections.singletonList(row));
+        for (Object value : values) {
+            Object decoded = transcoder.decode(transcoder.encode(value));
+            if (value instanceof byte[]) {
+                Assert.assertArrayEquals((byte[]) value, (byte[]) decoded);
+            } else {
+                Assert.assertEquals(value, decoded);
+            }
+        }
+    }
+
+    @Test
+    public void binaryKeepsCollectionTypes() {
+        CodecTranscoder transcoder = new CodecTranscoder(new BinaryCacheCodec());
+        TreeMap<String, Integer> sorted = new TreeMap<>(Comparator.reverseOrder());
+        sorted.put("a", 1);
+        sorted.put("b", 2);
+        EnumMap<TimeUnit, String> units = new EnumMap<>(TimeUnit.class);
+        units.put(TimeUnit.SECONDS, "s");
+        List<Object> values = Arrays.asList(sorted, units, new LinkedList<>(Arrays.asList(1, 2)),
+            Collections.unmodifiableList(new ArrayList<>(Arrays.asList("x"))), Arrays.asList("y", "z"));
+        for (Object value : values) {
+            Object decoded = transcoder.decode(transcoder.encode(value));
+            Assert.assertEquals(value.getClass(), decoded.getClass());
+            Assert.assertEquals(value, decoded);
+        }
+        TreeMap<?, ?> decoded = (TreeMap<?, ?>) transcoder.decode(transcoder.encode(sorted));
+        Assert.assertEquals("b", decoded.firstKey());
+
+        // 紧凑编码的集合解码后可以赋值给原类型
+        Assert.assertTrue(transcoder.decode(transcoder.encode(new HashMap<>(sorted))) instanceof HashMap);
+        Assert.assertTrue(transcoder.decode(transcoder.encode(new HashSet<>(Arrays.asList(1)))) instanceof HashSet);
+    }
+
+    @Test
+    public void fastjsonRoundTrip() {
+        CodecTranscoder transcoder = new CodecTranscoder(new FastjsonCacheCodec("com.cloudin.commons."));
+        Item item = new Item();
+        item.setId(1L);
+        item.setName("商品");
+        Item decoded = (Item) transcoder.decode(transcoder.encode(item));
+        Assert.assertEquals(Long.valueOf(1L), decoded.getId());
+        Assert.assertEquals("商品", decoded.getName());
+    }
+
+    @Test
+    public void fastjsonRejectsUnacceptedClass() throws Exception {
+        FastjsonCacheCodec codec = new FastjsonCacheCodec(Item.class.getName());
+        byte[] encoded = codec.encode(new Item());
+        Assert.assertTrue(codec.decode(encoded, 0, encoded.length) instanceof Item);
+        Assert.assertFalse(new FastjsonCacheCodec("com.cloudin").isAccepted("com.cloudinx.Evil"));
+        try {
+            codec.encode(new Date());
+            Assert.fail();
+        } catch (IOException ignored) {
+        }
+
+        // 缓存数据中的类名不在允许范围内时不反序列化
+        byte[] className = "java.util.HashMap".getBytes(StandardCharsets.UTF_8);
+        byte[] json = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] forged = new byte[2 + className.length + json.length];
+        forged[1] = (byte) className.length;
+        System.arraycopy(className, 0, forged, 2, className.length);
+        System.arraycopy(json, 0, forged, 2 + className.length, json.length);
+        try {
+            codec.decode(forged, 0, forged.length);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("not accepted"));
+        }
+        // 默认注册的实例不允许任何类，视为未命中
+        Assert.assertNull(new CodecTranscoder(new BinaryCacheCodec()).decode(new CodecTranscoder(codec).encode(new Item())));
+    }
+
+    @Test
+    public void compressionAndWrappedEntry() {
+        CodecTranscoder transcoder = new CodecTranscoder(new BinaryCacheCodec());
+        List<String> value = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            value.add("row-" + (i % 10));
+        }
+        CachedData compressed = transcoder.encode(value);
+        transcoder.setCompressionThreshold(0);
+        CachedData plain = transcoder.encode(value);
+        Assert.assertTrue(compressed.getData().length * 4 < plain.getData().length);
+        Assert.assertEquals(value, transcoder.decode(compressed));
+        Assert.assertEquals(value, transcoder.decode(plain));
+
+        CacheEntry entry = (CacheEntry) transcoder.decode(transcoder.encode(new CacheEntry("v", 12, 34)));
+        Assert.assertEquals("v", entry.getValue());
+        Assert.assertEquals(12, entry.getDelta());
+        Assert.assertEquals(34, entry.getExpireAt());
+    }
+
+    @Test
+    public void compatibility() {
+        CodecTranscoder binary = new CodecTranscoder(new BinaryCacheCodec());
+        CodecTranscoder fastjson = new CodecTranscoder(new FastjsonCacheCodec("com.cloudin.commons."));
+        // 切换编解码器后旧数据仍可解码
+        Assert.assertEquals("value", fastjson.decode(binary.encode("value")));
+        // java 序列化写入的旧数据
+        CachedData legacy = new SerializingTranscoder().encode(new Date(1500000000000L));
+        Assert.assertEquals(new Date(1500000000000L), binary.decode(legacy));
+        // 未知版本视为未命中
+        byte[] data = binary.encode("value").getData();
+        data[0] = 2;
+        Assert.assertNull(binary.decode(new CachedData(CodecTranscoder.FLAG, data, CachedData.MAX_SIZE)));
+        // 旧版本节点无法识别新格式，同样视为未命中
+        Assert.assertNull(new SerializingTranscoder().decode(binary.encode("value")));
+    }
+
+    public static class Item {
+
+        private Long   id;
+        private String name;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cloudin.commons.langs.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 02:40
+ */
+public class HotKeyDetectorTest {
+
+    @Test
+    public void detectsSkewedKeys() {
+        HotKeyDetector detector = new HotKeyDetector(1024, 8, 100, 60000, 60000);
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 100; i++) {
+                detector.record("sts:bucket");
+                if (i % 2 == 0) {
+                    detector.record("config");
+                }
+            }
+            for (int i = 0; i < 200; i++) {
+                detector.record("item:" + (round * 200 + i));
+            }
+        }
+        Assert.assertTrue(detector.isHot("sts:bucket"));
+        Assert.assertTrue(detector.isHot("config"));
+        Assert.assertFalse(detector.isHot("item:1"));
+        Assert.assertEquals(2, detector.getHotKeyCount());
+        Assert.assertTrue(detector.getTopKeys()[0].startsWith("sts:bucket="));
+        Assert.assertEquals(50 * (100 + 50 + 200), detector.getAccessCount());
+    }
+
+    @Test
+    public void coolsDownAfterWindows() throws Exception {
+        HotKeyDetector detector = new HotKeyDetector(1024, 8, 100, 20, 60000);
+        for (int i = 0; i < 200; i++) {
+            detector.record("hot");
+        }
+        Assert.assertTrue(detector.isHot("hot"));
+        // 每个窗口计数减半，访问停止后逐渐冷却
+        for (int i = 0; i < 10 && detector.isHot("hot"); i++) {
+            Thread.sleep(30);
+            detector.record("other");
+        }
+        Assert.assertFalse(detector.isHot("hot"));
+    }
+
+    @Test
+    public void equalHashCodesAreCountedSeparately() {
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        HotKeyDetector detector = new HotKeyDetector(1024, 8, 100, 60000, 60000);
+        for (int i = 0; i < 200; i++) {
+            detector.record("Aa");
+        }
+        Assert.assertTrue(detector.isHot("Aa"));
+        // hashCode 相同的 key 不共享计数
+        Assert.assertFalse(detector.record("BB"));
+    }
+
+    @Test
+    public void templateServesHotKeysLocally() {
+        InMemoryMemcachedClient client = new InMemoryMemcachedClient();
+        try {
+            MemcachedTemplate template = new MemcachedTemplate();
+            template.setApp("test");
+            template.setMemcachedClient(client);
+            HotKeyDetector detector = new HotKeyDetector(1024, 8, 10, 60000, 60000);
+            template.setHotKeyDetector(detector);
+
+            template.set("sts", "credential-1");
+            for (int i = 0; i < 1000; i++) {
+                Assert.assertEquals("credential-1", template.get("sts"));
+            }
+            // 前 9 次未达到阈值，之后只有一次回源
+            Assert.assertEquals(10, client.getHitCount() + client.getMissCount());
+            Assert.assertTrue(detector.getReplicaHitCount() > 900);
+
+            template.set("sts", "credential-2");
+            Assert.assertEquals("credential-2", template.get("sts"));
+        } finally {
+            client.shutdown();
+        }
+    }
+}
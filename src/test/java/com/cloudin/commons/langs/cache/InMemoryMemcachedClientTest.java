@@ -0,0 +1,154 @@
+package com.cloudin.commons.langs.cache;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.OperationTimeoutException;
+import net.spy.memcached.internal.BulkFuture;
+import net.spy.memcached.internal.BulkGetCompletionListener;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 03:10
+ */
+public class InMemoryMemcachedClientTest {
+
+    private final InMemoryMemcachedClient client = new InMemoryMemcachedClient();
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    public void storeSemantics() throws Exception {
+        Assert.assertTrue(client.add("k", 0, "v1").get());
+        Assert.assertFalse(client.add("k", 0, "v2").get());
+        Assert.assertTrue(client.replace("k", 0, "v3").get());
+        Assert.assertFalse(client.replace("missing", 0, "v").get());
+        Assert.assertEquals("v3", client.get("k"));
+
+        CASValue<Object> casValue = client.gets("k");
+        Assert.assertEquals(CASResponse.OK, client.cas("k", casValue.getCas(), "v4"));
+        Assert.assertEquals(CASResponse.EXISTS, client.cas("k", casValue.getCas(), "v5"));
+        Assert.assertEquals(CASResponse.NOT_FOUND, client.cas("missing", 1, "v"));
+
+        Assert.assertTrue(client.append("k", "!").get());
+        Assert.assertEquals("v4!", client.get("k"));
+
+        Assert.assertEquals(-1, client.incr("counter", 1));
+        Assert.assertEquals(10, client.incr("counter", 1, 10));
+        Assert.assertEquals(15, client.incr("counter", 5));
+        Assert.assertEquals(0, client.decr("counter", 100));
+
+        Assert.assertTrue(client.delete("k").get());
+        Assert.assertFalse(client.delete("k").get());
+        Assert.assertNull(client.get("k"));
+    }
+
+    @Test
+    public void expiry() throws Exception {
+        int past = (int) (System.currentTimeMillis() / 1000) - 10;
+        client.set("absolute", past, "v").get();
+        client.set("negative", -1, "v").get();
+        client.set("relative", 60, "v").get();
+        client.set("forever", 0, "v").get();
+        Map<String, Object> values = client.getBulk(Arrays.asList("absolute", "negative", "relative", "forever"));
+        Assert.assertEquals(2, values.size());
+        Assert.assertTrue(values.containsKey("relative"));
+        Assert.assertTrue(values.containsKey("forever"));
+
+        Assert.assertTrue(client.touch("relative", -1).get());
+        Assert.assertNull(client.get("relative"));
+        Assert.assertFalse(client.touch("relative", 60).get());
+        Assert.assertEquals(1, client.getItemCount());
+    }
+
+    @Test
+    public void latencyAndFailures() throws Exception {
+        client.setLatencyMicros(50000);
+        Future<Boolean> future = client.set("k", 0, "v");
+        Assert.assertFalse(future.isDone());
+        Assert.assertTrue(future.get(1, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        Assert.assertEquals("v", client.get("k"));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        client.setLatencyMicros(0);
+        long cas = client.gets("k").getCas();
+        client.setFailureRate(1);
+        try {
+            client.get("k");
+            Assert.fail();
+        } catch (OperationTimeoutException e) {
+            // 注入的失败
+        }
+        try {
+            client.set("k", 0, "v2").get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof OperationTimeoutException);
+        }
+        try {
+            client.asyncCAS("k", cas, "v2").get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof OperationTimeoutException);
+        }
+        client.setFailureRate(0);
+        Assert.assertEquals("v", client.get("k"));
+        Assert.assertEquals(3, client.getFailureCount());
+    }
+
+    @Test
+    public void asyncListeners() throws Exception {
+        client.setLatencyMicros(50000);
+        client.set("k", 0, "v").get();
+        BulkFuture<Map<String, Object>> future = client.asyncGetBulk(Arrays.asList("k", "missing"));
+        CountDownLatch notified = new CountDownLatch(1);
+        AtomicReference<Map<String, ?>> received = new AtomicReference<>();
+        AtomicInteger removedCalls = new AtomicInteger();
+        BulkGetCompletionListener removed = f -> removedCalls.incrementAndGet();
+        future.addListener(f -> {
+            received.set(f.get());
+            notified.countDown();
+        });
+        future.addListener(removed);
+        future.removeListener(removed);
+        Assert.assertTrue(notified.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(Collections.singletonMap("k", "v"), received.get());
+        Assert.assertEquals(0, removedCalls.get());
+
+        // 已完成时立即通知
+        CountDownLatch late = new CountDownLatch(1);
+        future.addListener(f -> late.countDown());
+        Assert.assertTrue(late.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void templateRoundTrips() {
+        MemcachedTemplate template = new MemcachedTemplate();
+        template.setApp("test");
+        template.setMemcachedClient(client);
+        for (int i = 0; i < 10; i++) {
+            template.set("key" + i, "value" + i);
+        }
+        long roundTrips = client.getRoundTrips();
+        Map<String, Object> values = template.getMulti(Arrays.asList("key1", "key5", "missing"));
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals(roundTrips + 1, client.getRoundTrips());
+    }
+}
@@ -0,0 +1,61 @@
+package com.cloudin.commons.langs.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原 DigestUtils.md5Hex(app + key) 与各 {@link KeyEncoder} 的耗时对比，加 -prof gc 可查看每次调用的内存分配。
+ * <p>
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author 小天
+ * @date 2026/10/18 02:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyEncoderBenchmark {
+
+    private String app = "order-service";
+    private String key = "order:detail:202610180001:user:10086";
+
+    @Benchmark
+    public String digestUtils() {
+        return DigestUtils.md5Hex(app + key);
+    }
+
+    @Benchmark
+    public String md5() {
+        return KeyEncoder.MD5.encode(app, key);
+    }
+
+    @Benchmark
+    public String murmur3() {
+        return KeyEncoder.MURMUR3.encode(app, key);
+    }
+
+    @Benchmark
+    public String plain() {
+        return KeyEncoder.PLAIN.encode(app, key);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KeyEncoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.cloudin.commons.langs.cache;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 02:10
+ */
+public class KeyEncoderTest {
+
+    @Test
+    public void md5CompatibleWithDigestUtils() {
+        String[] keys = {"", "user:1", "商品:列表:1", "emoji-😀", "broken-\uD800-\uDC00x\uD800", "a b\tc"};
+        for (String key : keys) {
+            Assert.assertEquals(DigestUtils.md5Hex("app" + key), KeyEncoder.MD5.encode("app", key));
+            Assert.assertEquals(DigestUtils.md5Hex(null + key), KeyEncoder.MD5.encode(null, key));
+        }
+        Random random = new Random(22);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append((char) random.nextInt(0x10000));
+            String key = builder.toString();
+            Assert.assertEquals(DigestUtils.md5Hex("app" + key), KeyEncoder.MD5.encode("app", key));
+        }
+    }
+
+    @Test
+    public void murmur3() {
+        byte[] out = new byte[16];
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        KeyEncoder.murmur3(data, data.length, out);
+        Assert.assertEquals("e34bbc7bbc071b6c7a433ca9c49a9347", Hex.encodeHexString(out));
+        KeyEncoder.murmur3(new byte[0], 0, out);
+        Assert.assertEquals("00000000000000000000000000000000", Hex.encodeHexString(out));
+        Assert.assertEquals("e34bbc7bbc071b6c7a433ca9c49a9347",
+            Hex.encodeHexString(KeyEncoder.murmur3("The quick brown fox jumps over the lazy dog")));
+
+        Assert.assertEquals(32, KeyEncoder.MURMUR3.encode("app", "user:1").length());
+        Assert.assertNotEquals(KeyEncoder.MURMUR3.encode("app", "user:1"), KeyEncoder.MURMUR3.encode("app", "user:2"));
+    }
+
+    @Test
+    public void plainFallsBackForUnsafeKeys() {
+        Assert.assertEquals("appuser:1", KeyEncoder.PLAIN.encode("app", "user:1"));
+        Assert.assertEquals(KeyEncoder.MD5.encode("app", "a b"), KeyEncoder.PLAIN.encode("app", "a b"));
+        Assert.assertEquals(KeyEncoder.MD5.encode("app", "商品"), KeyEncoder.PLAIN.encode("app", "商品"));
+        StringBuilder longKey = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            longKey.append('k');
+        }
+        Assert.assertEquals(KeyEncoder.MD5.encode("app", longKey.toString()),
+            KeyEncoder.PLAIN.encode("app", longKey.toString()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.cloudin.commons.langs.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 {@link InMemoryMemcachedClient} 的 {@link MemcachedTemplate} 读取耗时，不需要 memcached 服务。
+ * latencyMicros 为模拟的网络往返耗时，对比单个读取、近端缓存、逐个读取与批量读取 20 个 key 的差异。
+ * <p>
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author 小天
+ * @date 2026/10/18 03:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemcachedTemplateBenchmark {
+
+    @Param({"0", "200"})
+    private long latencyMicros;
+
+    private InMemoryMemcachedClient client;
+    private MemcachedTemplate       template;
+    private MemcachedTemplate       nearCachedTemplate;
+    private List<String>            keys;
+
+    @Setup
+    public void setUp() {
+        client = new InMemoryMemcachedClient();
+        template = new MemcachedTemplate();
+        template.setApp("bench");
+        template.setMemcachedClient(client);
+        nearCachedTemplate = new MemcachedTemplate();
+        nearCachedTemplate.setApp("bench");
+        nearCachedTemplate.setMemcachedClient(client);
+        nearCachedTemplate.setNearCache(new NearCache(1000, 1000));
+
+        keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> value = new HashMap<>();
+            value.put("id", i);
+            value.put("name", "商品-" + i);
+            template.set("item:" + i, value);
+            keys.add("item:" + i);
+        }
+        client.setLatencyMicros(latencyMicros);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Benchmark
+    public Object get() {
+        return template.get("item:0");
+    }
+
+    @Benchmark
+    public Object getNearCached() {
+        return nearCachedTemplate.get("item:0");
+    }
+
+    @Benchmark
+    public List<Object> getEach() {
+        List<Object> res = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            res.add(template.get(key));
+        }
+        return res;
+    }
+
+    @Benchmark
+    public Map<String, Object> getMulti() {
+        return template.getMulti(keys);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MemcachedTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
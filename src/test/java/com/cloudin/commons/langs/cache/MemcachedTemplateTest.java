@@ -0,0 +1,193 @@
+package com.cloudin.commons.langs.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 00:45
+ */
+public class MemcachedTemplateTest {
+
+    private final InMemoryMemcachedClient client = new InMemoryMemcachedClient();
+
+    private MemcachedTemplate template;
+
+    @Before
+    public void setUp() {
+        template = new MemcachedTemplate();
+        template.setApp("test");
+        template.setMemcachedClient(client);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    public void multiOperations() throws Exception {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            values.put("key" + i, "value" + i);
+        }
+        Assert.assertTrue(template.setMulti(values).get(1, TimeUnit.SECONDS));
+
+        long roundTrips = client.getRoundTrips();
+        Map<String, Object> res = template.getMulti(Arrays.asList("key3", "missing", "key0", "key1"));
+        Assert.assertEquals(Arrays.asList("key3", "key0", "key1"), Arrays.asList(res.keySet().toArray()));
+        Assert.assertEquals("value3", res.get("key3"));
+        Assert.assertEquals(roundTrips + 1, client.getRoundTrips());
+
+        // key9 不存在，删除结果为 false
+        Assert.assertFalse(template.deleteMulti(Arrays.asList("key0", "key9")).get());
+        Assert.assertTrue(template.deleteMulti(Arrays.asList("key1", "key2")).get());
+        Assert.assertEquals(2, template.getMulti(Arrays.asList("key0", "key1", "key2", "key3", "key4")).size());
+    }
+
+    @Test
+    public void getOrLoadCoalescesConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            Future<?>[] futures = new Future<?>[16];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    return template.getOrLoad("hot", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(100);
+                        return "db";
+                    }, 60);
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                Assert.assertEquals("db", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("db", template.get("hot"));
+        // 租约已释放
+        Assert.assertNull(client.get(DigestUtils.md5Hex("testhot") + ":lease"));
+    }
+
+    @Test
+    public void getOrLoadWaitsForLeaseHolder() throws Exception {
+        // 模拟其它节点持有租约，稍后写入结果
+        client.set(DigestUtils.md5Hex("testshared") + ":lease", 0, "other-node");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                Thread.sleep(200);
+                return template.set("shared", "from-other-node");
+            });
+            Assert.assertEquals("from-other-node", template.getOrLoad("shared", () -> "local", 60));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 持有租约的节点迟迟不写入时自行加载
+        client.set(DigestUtils.md5Hex("teststuck") + ":lease", 0, "other-node");
+        template.setLeaseSeconds(1);
+        Assert.assertEquals("local", template.getOrLoad("stuck", () -> "local", 60));
+    }
+
+    @Test
+    public void getOrLoadKeepsLeaseOfOtherNode() throws Exception {
+        String leaseKey = DigestUtils.md5Hex("testslow") + ":lease";
+        Assert.assertEquals("db", template.getOrLoad("slow", () -> {
+            // 加载超过租约有效期，租约过期后被其它节点获取
+            client.set(leaseKey, 0, "other-node").get();
+            return "db";
+        }, 60));
+        Assert.assertEquals("other-node", client.get(leaseKey));
+    }
+
+    @Test
+    public void getOrLoadRefreshesEarly() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        template.setEarlyRefreshBeta(0);
+        for (int i = 0; i < 3; i++) {
+            template.getOrLoad("config", () -> {
+                Thread.sleep(5);
+                return loads.incrementAndGet();
+            }, 60);
+        }
+        Assert.assertEquals(1, loads.get());
+
+        // 加载耗时 * beta 远大于剩余有效期，每次都会提前刷新
+        template.setEarlyRefreshBeta(1e9);
+        Assert.assertEquals(2, (int) template.getOrLoad("config", () -> {
+            Thread.sleep(5);
+            return loads.incrementAndGet();
+        }, 60));
+
+        // 刷新失败时返回旧值
+        AtomicInteger failures = new AtomicInteger();
+        Assert.assertEquals(2, (int) template.getOrLoad("config", () -> {
+            failures.incrementAndGet();
+            throw new IllegalStateException("db down");
+        }, 60));
+        Assert.assertEquals(1, failures.get());
+        try {
+            template.getOrLoad("missing", () -> {
+                throw new Exception("db down");
+            }, 60);
+            Assert.fail();
+        } catch (CacheLoadException e) {
+            Assert.assertEquals("db down", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void getOrLoadRefreshesEarlyWithAbsoluteExpire() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        template.setEarlyRefreshBeta(1e9);
+        // 超过 30 天的过期时间为 unix 时间戳，这里为 60 秒后
+        int expire = (int) (System.currentTimeMillis() / 1000) + 60;
+        for (int i = 0; i < 2; i++) {
+            template.getOrLoad("absolute", () -> {
+                Thread.sleep(5);
+                return loads.incrementAndGet();
+            }, expire);
+        }
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void multiGetUsesNearCache() {
+        template.setNearCache(new NearCache(100, 60000));
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", 1);
+        values.put("b", 2);
+        template.setMulti(values);
+
+        Assert.assertEquals(2, template.getMulti(Arrays.asList("a", "b")).size());
+        long gets = client.getHitCount() + client.getMissCount();
+        Assert.assertEquals(2, template.getMulti(Arrays.asList("a", "b")).size());
+        // 第二次全部命中近端缓存，不访问 memcached
+        Assert.assertEquals(gets, client.getHitCount() + client.getMissCount());
+
+        template.deleteMulti(Arrays.asList("a"));
+        Assert.assertEquals(Arrays.asList("b"), Arrays.asList(template.getMulti(Arrays.asList("a", "b")).keySet().toArray()));
+        Assert.assertEquals(gets + 1, client.getMissCount() + client.getHitCount());
+    }
+}
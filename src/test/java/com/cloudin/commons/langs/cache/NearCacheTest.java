@@ -0,0 +1,105 @@
+package com.cloudin.commons.langs.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 00:20
+ */
+public class NearCacheTest {
+
+    @Test
+    public void concurrentMissesLoadOnce() throws Exception {
+        NearCache nearCache = new NearCache(100, 60000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    return nearCache.get("config", key -> {
+                        loads.incrementAndGet();
+                        sleep(100);
+                        return "value";
+                    });
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                Assert.assertEquals("value", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, nearCache.getMissCount());
+    }
+
+    @Test
+    public void templateReadsThroughAndInvalidates() throws Exception {
+        InMemoryMemcachedClient client = new InMemoryMemcachedClient();
+        try {
+            MemcachedTemplate template = new MemcachedTemplate();
+            template.setApp("test");
+            template.setMemcachedClient(client);
+            NearCache nearCache = new NearCache(100, 60000);
+            template.setNearCache(nearCache);
+
+            template.set("k", "v1");
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals("v1", template.get("k"));
+            }
+            Assert.assertEquals(1, client.getHitCount());
+            Assert.assertEquals(9, nearCache.getHitCount());
+
+            template.set("k", "v2");
+            Assert.assertEquals("v2", template.get("k"));
+            template.delete("k");
+            Assert.assertNull(template.get("k"));
+            // 远程未命中不缓存
+            Assert.assertNull(template.get("k"));
+            Assert.assertEquals(2, client.getHitCount());
+            Assert.assertEquals(2, client.getMissCount());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void boundedAndExpiring() throws Exception {
+        NearCache nearCache = new NearCache(10, 50);
+        for (int i = 0; i < 1000; i++) {
+            nearCache.put("key" + i, i);
+        }
+        // 淘汰由 Caffeine 异步执行
+        for (int i = 0; i < 50 && nearCache.getEvictionCount() == 0; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertTrue(nearCache.getEvictionCount() > 0);
+
+        // 已满的缓存可能拒绝新写入的 key，过期单独验证
+        NearCache expiring = new NearCache(10, 200);
+        expiring.put("short", "value");
+        Assert.assertEquals("value", expiring.getIfPresent("short"));
+        Thread.sleep(400);
+        Assert.assertNull(expiring.getIfPresent("short"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.cloudin.commons.langs.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 21:40
+ */
+public class HttpResilienceTest {
+
+    @Test
+    public void retryIdempotent() throws Exception {
+        HttpResilience resilience = new HttpResilience();
+        resilience.setRetryPolicy(new RetryPolicy(3, 1, 10));
+        AtomicInteger calls = new AtomicInteger();
+        String result = resilience.execute("a:80", true, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new HttpStatusException(503, "busy");
+            }
+            return "ok";
+        });
+        Assert.assertEquals("ok", result);
+        Assert.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void noRetryForNonIdempotent() throws Exception {
+        HttpResilience resilience = new HttpResilience();
+        resilience.setRetryPolicy(new RetryPolicy(3, 1, 10));
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            resilience.execute("a:80", false, () -> {
+                calls.incrementAndGet();
+                throw new IOException("reset");
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals(1, calls.get());
+        }
+
+        // 连接未建立，请求一定没有发送，可以重试
+        calls.set(0);
+        try {
+            resilience.execute("a:80", false, () -> {
+                calls.incrementAndGet();
+                throw new ConnectException("refused");
+            });
+            Assert.fail();
+        } catch (ConnectException e) {
+            Assert.assertEquals(3, calls.get());
+        }
+    }
+
+    @Test
+    public void circuitBreaker() throws Exception {
+        HttpResilience resilience = new HttpResilience();
+        resilience.setRetryPolicy(RetryPolicy.NONE);
+        resilience.setFailureThreshold(2);
+        resilience.setOpenMillis(50);
+        for (int i = 0; i < 2; i++) {
+            try {
+                resilience.execute("a:80", true, () -> {
+                    throw new HttpStatusException(500, "error");
+                });
+            } catch (HttpStatusException ignored) {
+            }
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, resilience.getCircuitBreaker("a:80").getState());
+        try {
+            resilience.execute("a:80", true, () -> "ok");
+            Assert.fail();
+        } catch (CircuitBreakerOpenException ignored) {
+        }
+        // 其它主机不受影响
+        Assert.assertEquals("ok", resilience.execute("b:80", true, () -> "ok"));
+
+        Thread.sleep(60);
+        Assert.assertEquals("ok", resilience.execute("a:80", true, () -> "ok"));
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, resilience.getCircuitBreaker("a:80").getState());
+    }
+
+    @Test
+    public void circuitBreakerOpenWindow() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 100);
+        long slow = breaker.tryAcquire();
+        long failed = breaker.tryAcquire();
+        Assert.assertNotEquals(CircuitBreaker.NO_PERMIT, slow);
+        breaker.onFailure(failed);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // 熔断前放行的慢请求成功，不结束熔断
+        breaker.onSuccess(slow);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+
+        // 熔断期间报告的失败不推迟恢复
+        Thread.sleep(60);
+        breaker.onFailure(failed);
+        Thread.sleep(60);
+        long probe = breaker.tryAcquire();
+        Assert.assertNotEquals(CircuitBreaker.NO_PERMIT, probe);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assert.assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+        breaker.onSuccess(probe);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void circuitBreakerIgnoresStaleResultsWhileHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 20);
+        long slow = breaker.tryAcquire();
+        breaker.onFailure(breaker.tryAcquire());
+        Thread.sleep(30);
+        long probe = breaker.tryAcquire();
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // 熔断前放行的请求在半开期间完成，成功或失败都不影响试探
+        breaker.onSuccess(slow);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure(slow);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onFailure(probe);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // 试探失败后，迟到的试探结果同样被忽略
+        breaker.onSuccess(probe);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void bulkhead() throws Exception {
+        HttpResilience resilience = new HttpResilience();
+        resilience.setMaxConcurrentPerHost(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                resilience.execute("a:80", true, () -> {
+                    started.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return "ok";
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        started.await();
+        try {
+            resilience.execute("a:80", true, () -> "ok");
+            Assert.fail();
+        } catch (BulkheadFullException ignored) {
+        }
+        finish.countDown();
+        thread.join();
+        Assert.assertEquals("ok", resilience.execute("a:80", true, () -> "ok"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.cloudin.commons.langs.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 22:20
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBounds() {
+        int last = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assert.assertTrue(index == last || index == last + 1);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            Assert.assertTrue(value <= upper);
+            // 相对误差不超过 1/16
+            Assert.assertTrue(upper - value <= value / 16);
+            last = index;
+        }
+    }
+
+    @Test
+    public void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500.5, histogram.getMean(), 0.001);
+        assertNear(500, histogram.getPercentile(50));
+        assertNear(990, histogram.getPercentile(99));
+        assertNear(1000, histogram.getPercentile(100));
+
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertTrue(histogram.getPercentile(100) > 1000);
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assert.assertTrue("expected=" + expected + ",actual=" + actual,
+            actual >= expected && actual <= expected + expected / 16);
+    }
+}
@@ -0,0 +1,159 @@
+package com.cloudin.commons.langs.idgenerator;
+
+import com.cloudin.commons.langs.io.TempFileUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 14:40
+ */
+public class SegmentIdGeneratorTest {
+
+    private File         tempFileDir;
+    private SegmentStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        tempFileDir = TempFileUtil.createTempFileDir();
+        store = new FileSegmentStore(tempFileDir);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TempFileUtil.delete(tempFileDir);
+    }
+
+    @Test
+    public void nextId() {
+        try (SegmentIdGenerator generator = new SegmentIdGenerator(store, "order", 1000, 10)) {
+            long last = 0;
+            for (int i = 0; i < 5000; i++) {
+                long id = generator.nextId();
+                Assert.assertEquals(last + 1, id);
+                last = id;
+            }
+        }
+    }
+
+    @Test
+    public void nextIdAcrossThreads() throws InterruptedException {
+        final int threads = 8;
+        final int perThread = 20000;
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, "order", 1000, 50)) {
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            ids.add(generator.nextId());
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            latch.await();
+        }
+        Assert.assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    public void slowStoreLosesNoSegment() throws InterruptedException {
+        final int threads = 8;
+        final int perThread = 5000;
+        final int localBatch = 5;
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        SegmentStore slowStore = (bizTag, step) -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ThreadLocalRandom.current().nextInt(2000)));
+            return store.nextMaxId(bizTag, step);
+        };
+        try (final SegmentIdGenerator generator = new SegmentIdGenerator(slowStore, "order", 100, localBatch)) {
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            ids.add(generator.nextId());
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            latch.await();
+        }
+        Assert.assertEquals(threads * perThread, ids.size());
+        // 未用到的Id只能是各线程本地缓冲的剩余部分，丢失整个号段时缺口至少为 step
+        long max = ids.stream().mapToLong(Long::longValue).max().getAsLong();
+        Assert.assertTrue(max - ids.size() <= threads * localBatch);
+    }
+
+    @Test
+    public void nextIdAfterClose() {
+        SegmentIdGenerator generator = new SegmentIdGenerator(store, "order", 100, 10);
+        long last = generator.nextId();
+        generator.close();
+        // 关闭后不再预取，号段用完时同步加载
+        for (int i = 0; i < 500; i++) {
+            long id = generator.nextId();
+            Assert.assertEquals(last + 1, id);
+            last = id;
+        }
+    }
+
+    @Test
+    public void closeDuringPrefetch() throws Exception {
+        CountDownLatch prefetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        SegmentStore blockingStore = (bizTag, step) -> {
+            if (loads.incrementAndGet() == 2) {
+                // 预取被关闭中断，或一直等到放行
+                prefetching.countDown();
+                release.await();
+            }
+            return store.nextMaxId(bizTag, step);
+        };
+        SegmentIdGenerator generator = new SegmentIdGenerator(blockingStore, "order", 100, 10);
+        try {
+            for (int i = 0; i < 80; i++) {
+                generator.nextId();
+            }
+            Assert.assertTrue(prefetching.await(5, TimeUnit.SECONDS));
+            generator.close();
+            long last = 80;
+            for (int i = 0; i < 200; i++) {
+                long id = generator.nextId();
+                Assert.assertTrue(id > last);
+                last = id;
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void restart() throws Exception {
+        long last;
+        try (SegmentIdGenerator generator = new SegmentIdGenerator(store, "user", 100)) {
+            last = generator.nextId();
+        }
+        try (SegmentIdGenerator generator = new SegmentIdGenerator(store, "user", 100)) {
+            Assert.assertTrue(generator.nextId() > last);
+        }
+        Assert.assertEquals(100, store.nextMaxId("other", 100));
+    }
+}
@@ -0,0 +1,206 @@
+package com.cloudin.commons.langs.idgenerator;
+
+import com.cloudin.commons.langs.time.CachedClock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 10:12
+ */
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void nextId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        long last = 0;
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    @Test
+    public void nextIdLockFree() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        generator.setLockFree(true);
+        assertUniqueAcrossThreads(generator, 8, 20000);
+    }
+
+    @Test
+    public void switchMode() throws InterruptedException {
+        final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        Thread switcher = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                generator.setLockFree(i % 2 == 0);
+                Thread.yield();
+            }
+        });
+        switcher.start();
+        assertUniqueAcrossThreads(generator, 4, 20000);
+        switcher.join();
+    }
+
+    @Test
+    public void nextIds() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        generator.setLockFree(true);
+        long first = generator.nextId();
+        long[] ids = generator.nextIds(100000);
+        Assert.assertEquals(100000, ids.length);
+        long last = first;
+        for (long id : ids) {
+            Assert.assertTrue(id > last);
+            Assert.assertEquals(3, SnowflakeIdGenerator.parseDataCenterId(id, 5L));
+            Assert.assertEquals(7, SnowflakeIdGenerator.parseWorkId(id, 5L, 5L));
+            last = id;
+        }
+        // 批量预留借用了未来的毫秒，之后的单个生成不应视为时钟回拨
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+        Assert.assertEquals(3, generator.newIds(3).length);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void clockMovedBackwards() {
+        final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        generator.setClock(now::get);
+        generator.nextId();
+        now.addAndGet(-5);
+        generator.nextId();
+    }
+
+    @Test
+    public void borrowOnClockMovedBackwards() {
+        final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        generator.setClock(now::get);
+        generator.setMaxBackwardMillis(10);
+        long last = generator.nextId();
+        now.addAndGet(-5);
+        // 回拨 5 毫秒，逻辑时钟最多超前系统时间 10 毫秒，即可以继续用到回拨前的时间截 + 5 毫秒
+        int count = 4095 + 4096 * 5;
+        for (int i = 0; i < count; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+        Assert.assertEquals(count, generator.getBorrowedCount());
+        Assert.assertEquals(0, generator.getWaitCount());
+        Assert.assertEquals(now.get() + 10, generator.getLastTimeStamp());
+    }
+
+    @Test
+    public void reserverStalledBeforePublishing() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7) {
+            @Override
+            void borrowUntil(long endTimeStamp) {
+                if (first.compareAndSet(true, false)) {
+                    // 批量预留的线程在登记借用窗口前被挂起
+                    stalled.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.borrowUntil(endTimeStamp);
+            }
+        };
+        generator.setLockFree(true);
+        long start = generator.nextId();
+        AtomicReference<long[]> reserved = new AtomicReference<>();
+        Thread reserver = new Thread(() -> reserved.set(generator.nextIds(4096 * 50)));
+        reserver.start();
+        Assert.assertTrue(stalled.await(5, TimeUnit.SECONDS));
+        try {
+            // 挂起期间其他线程正常生成ID，不会误判为时钟回拨
+            for (int i = 0; i < 10000; i++) {
+                Assert.assertTrue(generator.nextId() > start);
+            }
+        } finally {
+            resume.countDown();
+            reserver.join();
+        }
+        Assert.assertEquals(4096 * 50, reserved.get().length);
+        for (int i = 0; i < 10000; i++) {
+            generator.nextId();
+        }
+    }
+
+    @Test
+    public void parkOnOverflow() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+        generator.setParkOnOverflow(true);
+        long last = 0;
+        for (int i = 0; i < 4096 * 5; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+        Assert.assertEquals(0, generator.getBorrowedCount());
+    }
+
+    @Test
+    public void cachedClock() throws InterruptedException {
+        CachedClock clock = new CachedClock();
+        try {
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 7);
+            generator.setClock(clock);
+            generator.setLockFree(true);
+            assertUniqueAcrossThreads(generator, 4, 20000);
+        } finally {
+            clock.close();
+        }
+    }
+
+    @Test
+    public void parse() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 5L, 7, 5L);
+        generator.setLockFree(true);
+        long before = System.currentTimeMillis();
+        long id = generator.nextId();
+        long after = System.currentTimeMillis();
+
+        long timeStamp = SnowflakeIdGenerator.parseTimeStamp(id, generator.getBaseTimeStamp());
+        Assert.assertTrue(timeStamp >= before && timeStamp <= after);
+        Assert.assertEquals(timeStamp, generator.getLastTimeStamp());
+        Assert.assertEquals(3, SnowflakeIdGenerator.parseDataCenterId(id, 5L));
+        Assert.assertEquals(7, SnowflakeIdGenerator.parseWorkId(id, 5L, 5L));
+    }
+
+    private void assertUniqueAcrossThreads(final SnowflakeIdGenerator generator, int threads, final int perThread)
+            throws InterruptedException {
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        Assert.assertEquals(threads * perThread, ids.size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.cloudin.commons.langs.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次创建 Cipher 与使用 {@link PreparedAESKey} 的加解密耗时对比，模拟 SecurityFieldTypeHandler 加解密一个字段。
+ * <p>
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author 小天
+ * @date 2026/10/17 22:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AESBenchmark {
+
+    private static final String KEY = "0123456789abcdef";
+    private static final String IV  = "0123456789abcdef";
+
+    private String         plainTxt;
+    private byte[]         encrypted;
+    private PreparedAESKey preparedKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        plainTxt = "13800138000";
+        preparedKey = AES.AES_CBC_PKCS5PADDING.prepare(KEY, IV);
+        encrypted = preparedKey.encrypt(plainTxt.getBytes(AES.AES_CBC_PKCS5PADDING.defaultCharset));
+    }
+
+    @Benchmark
+    public String encryptPerCall() throws Exception {
+        return AES.AES_CBC_PKCS5PADDING.encryptToBase64(KEY, IV, plainTxt);
+    }
+
+    @Benchmark
+    public String encryptPrepared() throws Exception {
+        return preparedKey.encryptToBase64(plainTxt);
+    }
+
+    @Benchmark
+    public byte[] decryptPerCall() throws Exception {
+        return AES.AES_CBC_PKCS5PADDING.decrypt(KEY.getBytes(), IV.getBytes(), encrypted);
+    }
+
+    @Benchmark
+    public byte[] decryptPrepared() throws Exception {
+        return preparedKey.decrypt(encrypted);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AESBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cloudin.commons.langs.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CBC、GCM、CTR 模式在 1KB、1MB 内容上的加解密耗时对比，均使用 {@link PreparedAESKey}。
+ * <p>
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author 小天
+ * @date 2026/10/17 23:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AESModeBenchmark {
+
+    @Param({"AES_CBC_PKCS5PADDING", "AES_GCM_NOPADDING", "AES_CTR_NOPADDING"})
+    private String mode;
+
+    @Param({"1024", "1048576"})
+    private int size;
+
+    private PreparedAESKey preparedKey;
+    private byte[]         plain;
+    private byte[]         encrypted;
+
+    @Setup
+    public void setUp() throws Exception {
+        preparedKey = AES.valueOf(mode).prepare("0123456789abcdef", "0123456789abcdef");
+        plain = new byte[size];
+        new Random(1).nextBytes(plain);
+        encrypted = preparedKey.encrypt(plain);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return preparedKey.encrypt(plain);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return preparedKey.decrypt(encrypted);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AESModeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,215 @@
+package com.cloudin.commons.langs.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 22:50
+ */
+public class PreparedAESKeyTest {
+
+    private static final String KEY = "0123456789abcdef";
+    private static final String IV  = "fedcba9876543210";
+
+    @Test
+    public void compatibleWithAES() throws Exception {
+        for (AES aes : new AES[]{AES.AES_CBC_PKCS5PADDING, AES.AES_ECB_PKCS5PADDING}) {
+            PreparedAESKey preparedKey = aes.prepare(KEY, IV);
+            String plainTxt = "手机号 13800138000";
+            String encrypted = preparedKey.encryptToBase64(plainTxt);
+            Assert.assertEquals(aes.encryptToBase64(KEY, IV, plainTxt), encrypted);
+            Assert.assertEquals(plainTxt, preparedKey.decryptBase64ToString(encrypted));
+            // Cipher 复用后结果不变
+            Assert.assertEquals(encrypted, preparedKey.encryptToBase64(plainTxt));
+        }
+    }
+
+    @Test
+    public void recoverAfterFailure() throws Exception {
+        PreparedAESKey preparedKey = AES.AES_CBC_PKCS5PADDING.prepare(KEY, IV);
+        try {
+            preparedKey.decrypt(new byte[15]);
+            Assert.fail();
+        } catch (Exception ignored) {
+        }
+        byte[] plain = "abc".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(plain, preparedKey.decrypt(preparedKey.encrypt(plain)));
+    }
+
+    @Test
+    public void stream() throws Exception {
+        PreparedAESKey preparedKey = AES.AES_CBC_PKCS5PADDING.prepare(KEY, IV);
+        byte[] plain = new byte[100003];
+        new Random(1).nextBytes(plain);
+        byte[] expected = preparedKey.encrypt(plain);
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        Assert.assertEquals(expected.length, preparedKey.encrypt(new ByteArrayInputStream(plain), encrypted));
+        Assert.assertArrayEquals(expected, encrypted.toByteArray());
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        preparedKey.decrypt(new ByteArrayInputStream(expected), decrypted);
+        Assert.assertArrayEquals(plain, decrypted.toByteArray());
+
+        // 包装流
+        ByteArrayOutputStream wrapped = new ByteArrayOutputStream();
+        try (OutputStream out = preparedKey.newEncryptOutputStream(wrapped)) {
+            out.write(plain);
+        }
+        Assert.assertArrayEquals(expected, wrapped.toByteArray());
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (InputStream in = preparedKey.newDecryptInputStream(
+            preparedKey.newEncryptInputStream(new ByteArrayInputStream(plain)))) {
+            byte[] buffer = new byte[1000];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                read.write(buffer, 0, n);
+            }
+        }
+        Assert.assertArrayEquals(plain, read.toByteArray());
+    }
+
+    @Test
+    public void directByteBuffer() throws Exception {
+        PreparedAESKey preparedKey = AES.AES_CBC_PKCS5PADDING.prepare(KEY, IV);
+        byte[] plain = new byte[70001];
+        new Random(2).nextBytes(plain);
+        ByteBuffer input = ByteBuffer.allocateDirect(plain.length);
+        input.put(plain).flip();
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(preparedKey.getOutputSize(plain.length));
+        preparedKey.encrypt(input, encrypted);
+        encrypted.flip();
+        Assert.assertEquals(preparedKey.encrypt(plain).length, encrypted.remaining());
+
+        ByteBuffer decrypted = ByteBuffer.allocateDirect(preparedKey.getOutputSize(encrypted.remaining()));
+        preparedKey.decrypt(encrypted, decrypted);
+        decrypted.flip();
+        byte[] result = new byte[decrypted.remaining()];
+        decrypted.get(result);
+        Assert.assertArrayEquals(plain, result);
+    }
+
+    @Test
+    public void randomNonce() throws Exception {
+        for (AES aes : new AES[]{AES.AES_GCM_NOPADDING, AES.AES_CTR_NOPADDING}) {
+            PreparedAESKey preparedKey = aes.prepare(KEY, null);
+            byte[] plain = new byte[50001];
+            new Random(3).nextBytes(plain);
+
+            byte[] encrypted = preparedKey.encrypt(plain);
+            Assert.assertEquals(preparedKey.getOutputSize(plain.length), encrypted.length);
+            // 每次加密使用不同的 nonce
+            Assert.assertFalse(Arrays.equals(encrypted, preparedKey.encrypt(plain)));
+            Assert.assertArrayEquals(plain, preparedKey.decrypt(encrypted));
+            Assert.assertArrayEquals(plain, aes.decrypt(KEY.getBytes(), null, aes.encrypt(KEY.getBytes(), null, plain)));
+
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            preparedKey.encrypt(new ByteArrayInputStream(plain), streamed);
+            ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+            preparedKey.decrypt(new ByteArrayInputStream(streamed.toByteArray()), decrypted);
+            Assert.assertArrayEquals(plain, decrypted.toByteArray());
+
+            ByteArrayOutputStream wrapped = new ByteArrayOutputStream();
+            try (OutputStream out = preparedKey.newEncryptOutputStream(preparedKey.newDecryptOutputStream(wrapped))) {
+                for (int i = 0; i < plain.length; i += 1000) {
+                    out.write(plain, i, Math.min(1000, plain.length - i));
+                }
+            }
+            Assert.assertArrayEquals(plain, wrapped.toByteArray());
+            byte[] read = new byte[plain.length];
+            try (InputStream in = preparedKey.newDecryptInputStream(
+                preparedKey.newEncryptInputStream(new ByteArrayInputStream(plain)))) {
+                int offset = 0;
+                int n;
+                while ((n = in.read(read, offset, read.length - offset)) > 0) {
+                    offset += n;
+                }
+                Assert.assertEquals(plain.length, offset);
+            }
+            Assert.assertArrayEquals(plain, read);
+
+            ByteBuffer input = ByteBuffer.allocateDirect(plain.length);
+            input.put(plain).flip();
+            ByteBuffer output = ByteBuffer.allocateDirect(preparedKey.getOutputSize(plain.length));
+            Assert.assertEquals(output.capacity(), preparedKey.encrypt(input, output));
+            output.flip();
+            ByteBuffer result = ByteBuffer.allocate(plain.length);
+            preparedKey.decrypt(output, result);
+            Assert.assertArrayEquals(plain, result.array());
+        }
+    }
+
+    @Test
+    public void cachedKeyPerKey() throws Exception {
+        AES aes = AES.AES_GCM_NOPADDING;
+        byte[] plain = "13800138000".getBytes(StandardCharsets.UTF_8);
+        byte[] encrypted = aes.encrypt(KEY.getBytes(), null, plain);
+        Assert.assertArrayEquals(plain, aes.decrypt(KEY.getBytes(), null, encrypted));
+        try {
+            aes.decrypt(IV.getBytes(), null, encrypted);
+            Assert.fail();
+        } catch (AEADBadTagException ignored) {
+        }
+        aes.setKeyCacheSize(0);
+        try {
+            Assert.assertArrayEquals(plain, aes.decrypt(KEY.getBytes(), null, aes.encrypt(KEY.getBytes(), null, plain)));
+        } finally {
+            aes.setKeyCacheSize(AES.DEFAULT_KEY_CACHE_SIZE);
+        }
+    }
+
+    @Test(expected = AEADBadTagException.class)
+    public void gcmDetectsTampering() throws Exception {
+        PreparedAESKey preparedKey = AES.AES_GCM_NOPADDING.prepare(KEY, null);
+        byte[] encrypted = preparedKey.encrypt("13800138000".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+        preparedKey.decrypt(encrypted);
+    }
+
+    @Test(expected = InvalidKeyException.class)
+    public void invalidKey() throws Exception {
+        AES.AES_CBC_PKCS5PADDING.prepare("short", IV);
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        final PreparedAESKey preparedKey = AES.AES_CBC_PKCS5PADDING.prepare(KEY, IV);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String plainTxt = seed + "-" + i;
+                        if (!plainTxt.equals(preparedKey.decryptBase64ToString(preparedKey.encryptToBase64(plainTxt)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assert.assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
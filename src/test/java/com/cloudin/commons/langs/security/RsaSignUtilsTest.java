@@ -0,0 +1,94 @@
+package com.cloudin.commons.langs.security;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SignatureException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 23:55
+ */
+public class RsaSignUtilsTest {
+
+    @After
+    public void tearDown() {
+        RsaSignUtils.setVerifyPool(null);
+        RsaSignUtils.setParallelThreshold(RsaSignUtils.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    @Test
+    public void reusedSignatureAcrossKeys() throws Exception {
+        KeyPair first = generate();
+        KeyPair second = generate();
+        byte[] data = "hello world".getBytes(StandardCharsets.UTF_8);
+
+        byte[] firstSign = RsaSignUtils.SHA256withRSA.sign((RSAPrivateKey) first.getPrivate(), data);
+        byte[] secondSign = RsaSignUtils.SHA256withRSA.sign((RSAPrivateKey) second.getPrivate(), data);
+        Assert.assertTrue(RsaSignUtils.SHA256withRSA.verify((RSAPublicKey) first.getPublic(), data, firstSign));
+        Assert.assertFalse(RsaSignUtils.SHA256withRSA.verify((RSAPublicKey) first.getPublic(), data, secondSign));
+        Assert.assertTrue(RsaSignUtils.SHA256withRSA.verify((RSAPublicKey) second.getPublic(), data, secondSign));
+        // 不同算法各自持有 Signature
+        byte[] sha1Sign = RsaSignUtils.SHA1withRSA.sign((RSAPrivateKey) first.getPrivate(), data);
+        Assert.assertTrue(RsaSignUtils.SHA1withRSA.verify((RSAPublicKey) first.getPublic(), data, sha1Sign));
+        try {
+            RsaSignUtils.SHA256withRSA.verify((RSAPublicKey) first.getPublic(), data, sha1Sign);
+            Assert.fail();
+        } catch (SignatureException e) {
+            // 摘要算法不匹配
+        }
+        // 异常后复用的 Signature 仍可正常使用
+        Assert.assertTrue(RsaSignUtils.SHA256withRSA.verify((RSAPublicKey) first.getPublic(), data, firstSign));
+    }
+
+    @Test
+    public void verifyAll() throws Exception {
+        KeyPair keyPair = generate();
+        RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+
+        List<SignedMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            byte[] data = ("record-" + i).getBytes(StandardCharsets.UTF_8);
+            byte[] signature = RsaSignUtils.SHA256withRSA.sign(privateKey, data);
+            if (i % 7 == 0) {
+                data = ("tampered-" + i).getBytes(StandardCharsets.UTF_8);
+            } else if (i % 11 == 0) {
+                signature = new byte[]{1, 2, 3};
+            }
+            messages.add(new SignedMessage(publicKey, data, signature));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RsaSignUtils.setVerifyPool(pool);
+            RsaSignUtils.setParallelThreshold(16);
+            boolean[] parallel = RsaSignUtils.SHA256withRSA.verifyAll(new LinkedList<>(messages));
+            RsaSignUtils.setParallelThreshold(1000);
+            boolean[] sequential = RsaSignUtils.SHA256withRSA.verifyAll(messages);
+            for (int i = 0; i < messages.size(); i++) {
+                boolean expected = i % 7 != 0 && i % 11 != 0;
+                Assert.assertEquals("message " + i, expected, parallel[i]);
+                Assert.assertEquals("message " + i, expected, sequential[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static KeyPair generate() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,100 @@
+package com.cloudin.commons.langs.security;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Random;
+
+/**
+ * @author 小天
+ * @date 2026/10/17 23:40
+ */
+public class RsaUtilsTest {
+
+    @After
+    public void tearDown() {
+        RsaUtils.INSTANCE.setKeyCacheSize(RsaUtils.DEFAULT_KEY_CACHE_SIZE);
+        RsaUtils.INSTANCE.clearKeyCache();
+    }
+
+    @Test
+    public void cachedKeysAreParsedOnce() throws Exception {
+        KeyPair keyPair = generate();
+        String privateKey = Base64.encodeBase64String(keyPair.getPrivate().getEncoded());
+        String publicKey = Base64.encodeBase64String(keyPair.getPublic().getEncoded());
+
+        Assert.assertSame(RsaUtils.INSTANCE.getPKCS8PriKeyFromBase64(privateKey),
+            RsaUtils.INSTANCE.getPKCS8PriKeyFromBase64(privateKey));
+        Assert.assertSame(RsaUtils.INSTANCE.getX509PubKeyFromBase64(publicKey),
+            RsaUtils.INSTANCE.getX509PubKeyFromBase64(publicKey));
+
+        String signature = RsaSignUtils.SHA256withRSA.signToBase64(privateKey, "hello world");
+        Assert.assertTrue(RsaSignUtils.SHA256withRSA.verify(publicKey, "hello world", signature));
+        Assert.assertFalse(RsaSignUtils.SHA256withRSA.verify(publicKey, "hello world!", signature));
+    }
+
+    @Test
+    public void cacheIsBounded() throws Exception {
+        RsaUtils.INSTANCE.setKeyCacheSize(1);
+        String first = Base64.encodeBase64String(generate().getPublic().getEncoded());
+        String second = Base64.encodeBase64String(generate().getPublic().getEncoded());
+
+        RsaUtils.INSTANCE.getX509PubKeyFromBase64(first);
+        Assert.assertSame(RsaUtils.INSTANCE.getX509PubKeyFromBase64(second),
+            RsaUtils.INSTANCE.getX509PubKeyFromBase64(second));
+        // 容量为 1，第一个密钥已被淘汰，重新解析得到新实例
+        Assert.assertNotSame(RsaUtils.INSTANCE.getX509PubKeyFromBase64(first),
+            RsaUtils.INSTANCE.getX509PubKeyFromBase64(second));
+
+        RsaUtils.INSTANCE.setKeyCacheSize(0);
+        Assert.assertNotSame(RsaUtils.INSTANCE.getX509PubKeyFromBase64(first),
+            RsaUtils.INSTANCE.getX509PubKeyFromBase64(first));
+    }
+
+    @Test
+    public void chunkedAndEnvelope() throws Exception {
+        KeyPair keyPair = generate();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
+        Random random = new Random(17);
+        // 0、不足一块、恰好一块（1024 位密钥每块 117 字节）、多块
+        for (int length : new int[]{0, 100, 117, 118, 10000}) {
+            byte[] plainText = new byte[length];
+            random.nextBytes(plainText);
+
+            byte[] chunked = RsaUtils.INSTANCE.encryptChunked(publicKey, plainText);
+            Assert.assertEquals(Math.max(1, (length + 116) / 117) * 128, chunked.length);
+            Assert.assertArrayEquals(plainText, RsaUtils.INSTANCE.decryptChunked(privateKey, chunked));
+
+            byte[] envelope = RsaUtils.INSTANCE.encryptEnvelope(publicKey, plainText);
+            Assert.assertArrayEquals(plainText, RsaUtils.INSTANCE.decryptEnvelope(privateKey, envelope));
+        }
+        // 单块时与 encrypt/decrypt 互通
+        byte[] single = "hello".getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(single,
+            RsaUtils.INSTANCE.decrypt(privateKey, RsaUtils.INSTANCE.encryptChunked(publicKey, single)));
+
+        byte[] envelope = RsaUtils.INSTANCE.encryptEnvelope(publicKey, single);
+        envelope[envelope.length - 1] ^= 1;
+        try {
+            RsaUtils.INSTANCE.decryptEnvelope(privateKey, envelope);
+            Assert.fail();
+        } catch (GeneralSecurityException e) {
+            // 被篡改的信封无法通过 GCM 认证
+        }
+    }
+
+    private static KeyPair generate() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,101 @@
+package com.cloudin.commons.langs.support.aliyun;
+
+import com.aliyuncs.exceptions.ClientException;
+import org.apache.commons.lang3.time.DateFormatUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 03:40
+ */
+public class STSCredentialPoolTest {
+
+    private final STSCredentialPool pool = new STSCredentialPool();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void refreshesInBackground() throws Exception {
+        Thread caller = Thread.currentThread();
+        List<Thread> loaderThreads = new CopyOnWriteArrayList<>();
+        STSCredentialPool.Loader loader = () -> {
+            loaderThreads.add(Thread.currentThread());
+            return credential(3);
+        };
+        STSCredential first = pool.get("read", 0, loader);
+        Assert.assertSame(first, pool.get("read", 0, loader));
+        Assert.assertEquals(1, loads.get());
+
+        // 有效期过半时在后台申请新的凭证
+        for (int i = 0; i < 50 && loads.get() < 2; i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(2, loads.get());
+        Assert.assertNotSame(first, pool.get("read", 0, loader));
+        Assert.assertSame(caller, loaderThreads.get(0));
+        Assert.assertNotSame(caller, loaderThreads.get(1));
+    }
+
+    @Test
+    public void keepsCredentialWhenRefreshFails() throws Exception {
+        STSCredential first = pool.get("read", 0, () -> credential(3));
+        STSCredentialPool.Loader failing = () -> {
+            loads.incrementAndGet();
+            throw new ClientException("SDK.ServerUnreachable", "unreachable");
+        };
+        for (int i = 0; i < 50 && loads.get() < 2; i++) {
+            Assert.assertSame(first, pool.get("read", 0, failing));
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(2, loads.get());
+        // 失败后在重试间隔内不再申请，继续使用当前凭证
+        Assert.assertSame(first, pool.get("read", 0, failing));
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void loadsOncePerPolicy() throws Exception {
+        STSCredentialPool.Loader slow = () -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            return credential(1800);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<STSCredential>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> pool.get("write", 120, slow)));
+            }
+            for (Future<STSCredential> future : futures) {
+                Assert.assertSame(futures.get(0).get(), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, pool.size());
+    }
+
+    private STSCredential credential(int expireSeconds) {
+        int n = loads.incrementAndGet();
+        String expiration = DateFormatUtils.formatUTC(System.currentTimeMillis() + expireSeconds * 1000L,
+            "yyyy-MM-dd'T'HH:mm:ss'Z'");
+        return new STSCredential("id-" + n, "secret-" + n, "token-" + n, expiration);
+    }
+}
@@ -0,0 +1,37 @@
+package com.cloudin.commons.langs.time;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author 小天
+ * @date 2026/10/18 06:20
+ */
+public class CachedClockTest {
+
+    @Test
+    public void closeStopsTicking() throws InterruptedException {
+        CachedClock clock = new CachedClock();
+        Thread.sleep(5);
+        Assert.assertTrue(System.currentTimeMillis() - clock.currentTimeMillis() < 1000);
+        clock.close();
+        Thread.sleep(5);
+        long stopped = clock.currentTimeMillis();
+        Thread.sleep(10);
+        Assert.assertEquals(stopped, clock.currentTimeMillis());
+    }
+
+    @Test
+    public void sharedInstanceCannotBeClosed() throws InterruptedException {
+        CachedClock clock = CachedClock.getInstance();
+        try {
+            clock.close();
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // 全局共享的实例
+        }
+        long before = clock.currentTimeMillis();
+        Thread.sleep(10);
+        Assert.assertTrue(clock.currentTimeMillis() > before);
+    }
+}